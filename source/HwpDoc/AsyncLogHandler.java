@@ -0,0 +1,250 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * LogRecord를 고정 크기의 ring buffer에 넣기만 하고, 포맷과 파일 쓰기는 logging thread 하나가 target Handler로 한다.
+ * 변환하는 thread는 파일 I/O를 기다리지 않는다.
+ * buffer가 차면 WARNING 미만의 record는 버리고 (버린 수는 나중에 WARNING으로 남긴다), WARNING 이상은 잠시 자리를 기다리다가
+ * 그래도 없으면 직접 쓴다. close() 뒤에 들어온 record도 직접 쓴다.
+ *
+ * logging.properties 에서는 다음과 같이 쓴다.
+ * <pre>
+ * handlers=HwpDoc.AsyncLogHandler
+ * HwpDoc.AsyncLogHandler.target=java.util.logging.FileHandler
+ * HwpDoc.AsyncLogHandler.capacity=8192
+ * </pre>
+ */
+public class AsyncLogHandler extends Handler {
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int BATCH_SIZE = 256;
+    private static final long WARNING_WAIT_MILLIS = 1000;
+    private static final LogRecord CLOSE = new LogRecord(Level.OFF, "close");
+    private static final Metrics.Counter droppedRecords = Metrics.counter("log.dropped");
+
+    private final Handler target;
+    private final ArrayBlockingQueue<LogRecord> queue;
+    private final Thread worker;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong accepted = new AtomicLong();
+    private final Object writeLock = new Object();
+    private long written;                   // writeLock으로 보호
+    private volatile boolean closed;
+
+    /**
+     * LogManager 설정으로 만든다. target을 정하지 않으면 ConsoleHandler를 쓴다.
+     */
+    public AsyncLogHandler() {
+        this(newTarget(property("target", "java.util.logging.ConsoleHandler")),
+             parseInt(property("capacity", null), DEFAULT_CAPACITY));
+        String level = property("level", null);
+        if (level != null) {
+            setLevel(Level.parse(level.trim()));
+        }
+    }
+
+    public AsyncLogHandler(Handler target, int capacity) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<LogRecord>(Math.max(BATCH_SIZE, capacity));
+        // target에서 버릴 record는 buffer에 넣기 전에 거른다.
+        setLevel(target.getLevel());
+        worker = new Thread(this::drain, "H2Orestart-log");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (isLoggable(record) == false) {
+            return;
+        }
+        // caller는 LogRecord가 처음 불릴 때 stack에서 찾으므로, logging thread로 넘기기 전에 정해둔다.
+        record.getSourceClassName();
+
+        if (closed) {
+            write(record);
+            return;
+        }
+        if (record.getLevel().intValue() >= Level.WARNING.intValue()) {
+            boolean queued;
+            try {
+                queued = queue.offer(record, WARNING_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (queued == false) {
+                write(record);
+                return;
+            }
+        } else if (queue.offer(record) == false) {
+            dropped.increment();
+            droppedRecords.increment();
+            return;
+        }
+        accepted.incrementAndGet();
+        // 넣는 사이에 close()가 queue를 비웠으면 남은 record를 직접 쓴다.
+        if (closed && queue.remove(record)) {
+            write(record);
+        }
+    }
+
+    /**
+     * 지금까지 받은 record를 target에 쓸 때까지 기다린다.
+     */
+    @Override
+    public void flush() {
+        long count = accepted.get();
+        synchronized (writeLock) {
+            while (written < count && worker.isAlive()) {
+                try {
+                    writeLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            target.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SecurityException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (queue.offer(CLOSE, 5, TimeUnit.SECONDS)) {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // logging thread가 쓰지 못하고 남은 record는 여기서 쓴다. 이후에 들어오는 record는 publish()가 직접 target에 넘긴다.
+        synchronized (writeLock) {
+            LogRecord record;
+            while ((record = queue.poll()) != null) {
+                if (record != CLOSE) {
+                    publishTarget(record);
+                    written++;
+                }
+            }
+            reportDropped();
+            target.close();
+            writeLock.notifyAll();
+        }
+    }
+
+    public Handler getTarget() {
+        return target;
+    }
+
+    private void drain() {
+        List<LogRecord> batch = new ArrayList<LogRecord>(BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                boolean closing = false;
+                synchronized (writeLock) {
+                    for (LogRecord record: batch) {
+                        if (record == CLOSE) {
+                            closing = true;
+                            continue;
+                        }
+                        publishTarget(record);
+                        written++;
+                    }
+                    reportDropped();
+                    if (queue.isEmpty()) {
+                        target.flush();
+                    }
+                    writeLock.notifyAll();
+                }
+                batch.clear();
+                if (closing) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(LogRecord record) {
+        synchronized (writeLock) {
+            publishTarget(record);
+        }
+    }
+
+    private void publishTarget(LogRecord record) {
+        try {
+            target.publish(record);
+        } catch (RuntimeException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    private void reportDropped() {
+        long count = dropped.sumThenReset();
+        if (count > 0) {
+            LogRecord record = new LogRecord(Level.WARNING, count + " log records dropped. log buffer is full.");
+            record.setSourceClassName(AsyncLogHandler.class.getName());
+            record.setSourceMethodName("publish");
+            publishTarget(record);
+        }
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = LogManager.getLogManager().getProperty(AsyncLogHandler.class.getName() + "." + name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static Handler newTarget(String className) {
+        try {
+            Class<?> clazz = ClassLoader.getSystemClassLoader().loadClass(className.trim());
+            return (Handler) clazz.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("can't create log handler " + className, e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+
+/**
+ * BinData(그림 등)를 한번만 읽고 압축해제하여 공유하기 위한 크기 제한 LRU 캐시.
+ * 돌려주는 byte[]는 여러 곳에서 공유하므로 호출하는 쪽에서 수정하면 안된다.
+ */
+public class BinDataCache {
+    private static final Logger log = Logger.getLogger(BinDataCache.class.getName());
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final long maxBytes;
+    private long totalBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+
+    @FunctionalInterface
+    public interface Loader {
+        byte[] load() throws IOException, DataFormatException;
+    }
+
+    public BinDataCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public BinDataCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public byte[] get(String key, Loader loader) throws IOException, DataFormatException {
+        synchronized (this) {
+            byte[] cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // 읽고 압축해제하는 동안에는 lock을 잡지 않는다.
+        byte[] loaded = loader.load();
+        if (loaded == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            byte[] cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            if (loaded.length <= maxBytes) {
+                entries.put(key, loaded);
+                totalBytes += loaded.length;
+                evict();
+            } else {
+                log.fine(key + " (" + loaded.length + " bytes) is larger than cache. not cached");
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized byte[] peek(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, byte[]> eldest = it.next();
+            totalBytes -= eldest.getValue().length;
+            it.remove();
+        }
+    }
+}
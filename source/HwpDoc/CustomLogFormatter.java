@@ -22,22 +22,39 @@ package HwpDoc;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Formatter;
 import java.util.logging.LogRecord;
 
+/**
+ * "[MM-dd HH:mm] (클래스이름 끝 12자.메소드이름 앞 4자) LEVEL: 메시지" 형식으로 만든다.
+ * 여러 thread에서 동시에 불러도 된다. 시각은 분 단위로, 줄인 클래스/메소드 이름은 한번 만든 것을 다시 쓴다.
+ */
 public class CustomLogFormatter extends Formatter {
-	private static final SimpleDateFormat dateFormat = new SimpleDateFormat("MM-dd HH:mm");
-	private Date dat = new Date();
+	private static final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MM-dd HH:mm").withZone(ZoneId.systemDefault());
+	private static final ConcurrentHashMap<String, String> classNames = new ConcurrentHashMap<String, String>();
+	private static final ConcurrentHashMap<String, String> methodNames = new ConcurrentHashMap<String, String>();
+
+	private static final class Stamp {
+		final long minute;
+		final String text;
+
+		Stamp(long minute, String text) {
+			this.minute = minute;
+			this.text = text;
+		}
+	}
+	private volatile Stamp stamp = new Stamp(-1, "");
 
 	@Override
 	public String format(LogRecord record) {
-		StringBuffer buf = new StringBuffer();
-		dat.setTime(record.getMillis());
+		StringBuilder buf = new StringBuilder(128);
 		
-		buf.append("[").append(dateFormat.format(dat)).append("] ")
-			.append("(").append(record.getSourceClassName().substring(record.getSourceClassName().length()-12)+"."+record.getSourceMethodName().substring(0,4)).append(") ")
+		buf.append("[").append(getStamp(record.getMillis())).append("] ")
+			.append("(").append(shortClassName(record)).append(".").append(shortMethodName(record)).append(") ")
 			.append(record.getLevel()).append(": ").append(formatMessage(record));
 	    if (record.getThrown() != null) {
 	        StringWriter sw = new StringWriter();
@@ -51,4 +68,30 @@ public class CustomLogFormatter extends Formatter {
 
 		return buf.toString();
 	}
+
+	private String getStamp(long millis) {
+		long minute = millis / 60000;
+		Stamp current = stamp;
+		if (current.minute != minute) {
+			current = new Stamp(minute, dateFormat.format(Instant.ofEpochMilli(minute * 60000)));
+			stamp = current;
+		}
+		return current.text;
+	}
+
+	private static String shortClassName(LogRecord record) {
+		String name = record.getSourceClassName();
+		if (name == null) {
+			name = record.getLoggerName()==null ? "" : record.getLoggerName();
+		}
+		return classNames.computeIfAbsent(name, n -> n.length() > 12 ? n.substring(n.length()-12) : n);
+	}
+
+	private static String shortMethodName(LogRecord record) {
+		String name = record.getSourceMethodName();
+		if (name == null) {
+			return "";
+		}
+		return methodNames.computeIfAbsent(name, n -> n.length() > 4 ? n.substring(0,4) : n);
+	}
 }
@@ -0,0 +1,375 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.logging.Logger;
+
+/**
+ * 파일 앞부분의 signature만 보고 HWP(OLE compound file)인지 HWPX(zip)인지 정한 뒤, 해당하는 형식으로만 detect()한다.
+ * detect()한 HwpFile/HwpxFile은 열어둔 채로 잠시 보관하여, 뒤따르는 open()에서 파일을 다시 읽지 않도록 한다.
+ * (TypeDetection 과 filter()가 각각 파일을 여는 경우) 가져가지 않은 것은 MAX_AGE_MILLIS가 지나면 timer가 닫는다.
+ * 파일 대신 메모리에 읽어둔 문서(ByteBuffer)도 같은 방법으로 다룬다.
+ */
+public class HancomDetector {
+    private static final Logger log = Logger.getLogger(HancomDetector.class.getName());
+    private static final Metrics.Histogram detectPhase = Metrics.histogram("phase.detect", "ns");
+
+    private static final byte[] OLE_SIGNATURE = { (byte)0xD0, (byte)0xCF, (byte)0x11, (byte)0xE0, (byte)0xA1, (byte)0xB1, (byte)0x1A, (byte)0xE1 };
+    private static final byte[] ZIP_SIGNATURE = { 'P', 'K', 0x03, 0x04 };
+    private static final String HWPX_MIMETYPE = "application/hwp+zip";
+
+    private static final int MAX_ENTRIES = 4;
+    private static final long MAX_AGE_MILLIS = 60 * 1000;
+
+    // 파일 경로 (메모리의 문서는 buffer 식별자) -> detect()까지 마친 HwpFile 또는 HwpxFile
+    private static final LinkedHashMap<String, Detected> cache = new LinkedHashMap<>();
+    // filter()가 불리지 않아도 열어둔 파일(과 Windows의 파일 잠금)이 MAX_AGE_MILLIS 뒤에는 닫히도록 한다.
+    private static Timer expiryTimer;
+
+    /**
+     * 문서가 있는 곳. 파일이거나 메모리의 ByteBuffer.
+     */
+    private static class Source {
+        final File file;
+        final ByteBuffer data;
+
+        Source(File file) {
+            this.file = file;
+            this.data = null;
+        }
+
+        Source(ByteBuffer data) {
+            this.file = null;
+            this.data = data;
+        }
+
+        String key() {
+            return file != null ? file.getAbsolutePath() : "memory@" + System.identityHashCode(data);
+        }
+
+        FileChannel openChannel() throws IOException {
+            return file != null ? FileChannel.open(file.toPath(), StandardOpenOption.READ) : new MemoryChannel(data);
+        }
+
+        HwpFile newHwpFile() throws FileNotFoundException {
+            return file != null ? new HwpFile(file) : new HwpFile(new MemoryChannel(data), key());
+        }
+
+        HwpxFile newHwpxFile() throws FileNotFoundException {
+            return file != null ? new HwpxFile(file) : new HwpxFile(new MemoryChannel(data), key());
+        }
+    }
+
+    private static class Detected {
+        final File file;
+        final ByteBuffer data;
+        final long size;
+        final long modified;
+        final long detectedAt;
+        final long detectNanos;     // detect()에 걸린 시간
+        final long detectEnded;     // detect()를 마친 System.nanoTime()
+        final Object hanFile;
+
+        Detected(Source source, Object hanFile, long detectStart) {
+            this.file = source.file;
+            this.data = source.data;
+            this.size = file != null ? file.length() : 0;
+            this.modified = file != null ? file.lastModified() : 0;
+            this.detectedAt = System.currentTimeMillis();
+            this.detectEnded = System.nanoTime();
+            this.detectNanos = this.detectEnded - detectStart;
+            this.hanFile = hanFile;
+        }
+
+        boolean matches(Source source) {
+            if (source.file != null) {
+                return size == source.file.length() && modified == source.file.lastModified();
+            }
+            return data == source.data;
+        }
+    }
+
+    /**
+     * 파일의 처음 몇 byte만 읽어서 형식을 추정한다. zip이면 첫 entry가 mimetype인지도 확인한다.
+     * 첫 entry가 mimetype이 아닌 zip은 HWPX로 추정하고, 실제 확인은 detect()에 맡긴다.
+     */
+    public static HanType sniff(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return sniff(channel);
+        }
+    }
+
+    public static HanType sniff(FileChannel channel) throws IOException {
+        byte[] head = new byte[30];     // zip local file header
+        int len = read(channel, 0, head);
+        if (len >= OLE_SIGNATURE.length && Arrays.equals(Arrays.copyOf(head, OLE_SIGNATURE.length), OLE_SIGNATURE)) {
+            return HanType.HWP;
+        }
+        if (len < head.length || Arrays.equals(Arrays.copyOf(head, ZIP_SIGNATURE.length), ZIP_SIGNATURE) == false) {
+            return HanType.NONE;
+        }
+
+        int method = (head[8]&0xFF) | (head[9]&0xFF)<<8;
+        int nameLen = (head[26]&0xFF) | (head[27]&0xFF)<<8;
+        int extraLen = (head[28]&0xFF) | (head[29]&0xFF)<<8;
+        if (method != 0 || nameLen != 8) {
+            return HanType.HWPX;
+        }
+        byte[] rest = new byte[nameLen + extraLen + HWPX_MIMETYPE.length()];
+        len = read(channel, head.length, rest);
+        if (len < nameLen || "mimetype".equals(new String(rest, 0, nameLen, StandardCharsets.US_ASCII)) == false) {
+            return HanType.HWPX;
+        }
+        String mimetype = new String(rest, nameLen + extraLen, Math.max(0, len - nameLen - extraLen), StandardCharsets.US_ASCII);
+        if (HWPX_MIMETYPE.equals(mimetype) == false) {
+            log.fine("zip file with mimetype " + mimetype);
+            return HanType.NONE;
+        }
+        return HanType.HWPX;
+    }
+
+    private static int read(FileChannel channel, long position, byte[] buf) throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(buf);
+        while (bb.hasRemaining()) {
+            if (channel.read(bb, position + bb.position()) < 0) {
+                break;
+            }
+        }
+        return bb.position();
+    }
+
+    /**
+     * 형식을 정하고 해당 형식으로 detect()한다. 성공하면 열어둔 HwpFile/HwpxFile을 보관한다.
+     * @return HWP, HWPX 또는 NONE
+     */
+    public static HanType detect(File file) {
+        return detect(new Source(file));
+    }
+
+    /**
+     * 메모리에 읽어둔 문서를 detect()한다. 같은 ByteBuffer로 takeHwp(), takeHwpx() 해야 보관한 것을 사용한다.
+     */
+    public static HanType detect(ByteBuffer data) {
+        return detect(new Source(data));
+    }
+
+    private static HanType detect(Source source) {
+        long start = detectPhase.start();
+        try {
+            return detectSource(source, start);
+        } finally {
+            detectPhase.stop(start);
+        }
+    }
+
+    private static HanType detectSource(Source source, long start) {
+        expireStale();
+        HanType type;
+        try (FileChannel channel = source.openChannel()) {
+            type = sniff(channel);
+        } catch (IOException e) {
+            log.info("file can't be read. " + e.getMessage());
+            return HanType.NONE;
+        }
+
+        synchronized (cache) {
+            Detected detected = cache.get(source.key());
+            if (detected != null && detected.matches(source)) {
+                if ((type == HanType.HWP && detected.hanFile instanceof HwpFile)
+                        || (type == HanType.HWPX && detected.hanFile instanceof HwpxFile)) {
+                    return type;
+                }
+            }
+        }
+
+        Object hanFile = null;
+        try {
+            switch (type) {
+            case HWP:
+                HwpFile hwp = source.newHwpFile();
+                hwp.detect();
+                hanFile = hwp;
+                break;
+            case HWPX:
+                HwpxFile hwpx = source.newHwpxFile();
+                hwpx.detect();
+                hanFile = hwpx;
+                break;
+            case NONE:
+                return HanType.NONE;
+            }
+        } catch (IOException | HwpDetectException e) {
+            log.info("file detected neither HWPX nor HWP");
+            return HanType.NONE;
+        }
+
+        put(source, hanFile, start);
+        return type;
+    }
+
+    /**
+     * detect()에서 보관한 HwpFile을 꺼낸다. 없거나 파일이 바뀌었으면 새로 만든다.
+     */
+    public static HwpFile takeHwp(File file) throws FileNotFoundException {
+        return takeHwp(new Source(file));
+    }
+
+    public static HwpFile takeHwp(ByteBuffer data) throws FileNotFoundException {
+        return takeHwp(new Source(data));
+    }
+
+    private static HwpFile takeHwp(Source source) throws FileNotFoundException {
+        Object hanFile = take(source);
+        if (hanFile instanceof HwpFile) {
+            return (HwpFile)hanFile;
+        }
+        close(hanFile);
+        return source.newHwpFile();
+    }
+
+    /**
+     * detect()에서 보관한 HwpxFile을 꺼낸다. 없거나 파일이 바뀌었으면 새로 만든다.
+     */
+    public static HwpxFile takeHwpx(File file) throws FileNotFoundException {
+        return takeHwpx(new Source(file));
+    }
+
+    public static HwpxFile takeHwpx(ByteBuffer data) throws FileNotFoundException {
+        return takeHwpx(new Source(data));
+    }
+
+    private static HwpxFile takeHwpx(Source source) throws FileNotFoundException {
+        Object hanFile = take(source);
+        if (hanFile instanceof HwpxFile) {
+            return (HwpxFile)hanFile;
+        }
+        close(hanFile);
+        return source.newHwpxFile();
+    }
+
+    /**
+     * 보관중인 파일을 닫는다. 임시 파일을 지우기 전에 불러야 한다.
+     */
+    public static void evict(File file) {
+        evict(new Source(file));
+    }
+
+    public static void evict(ByteBuffer data) {
+        evict(new Source(data));
+    }
+
+    private static void evict(Source source) {
+        expireStale();
+        Detected detected;
+        synchronized (cache) {
+            detected = cache.remove(source.key());
+        }
+        if (detected != null) {
+            close(detected.hanFile);
+        }
+    }
+
+    private static Object take(Source source) {
+        expireStale();
+        Detected detected;
+        synchronized (cache) {
+            detected = cache.remove(source.key());
+        }
+        if (detected == null) {
+            return null;
+        }
+        if (detected.matches(source) == false) {
+            close(detected.hanFile);
+            return null;
+        }
+        // TypeDetection에서 filter() 전에 한 detect()도 이 변환의 통계에 넣는다.
+        detectPhase.addToSummary(detected.detectNanos, detected.detectEnded);
+        return detected.hanFile;
+    }
+
+    private static void put(Source source, Object hanFile, long detectStart) {
+        Detected old;
+        synchronized (cache) {
+            old = cache.put(source.key(), new Detected(source, hanFile, detectStart));
+            if (expiryTimer == null) {
+                expiryTimer = new Timer("H2Orestart-detect-expiry", true);
+            }
+            expiryTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    expireStale();
+                }
+            }, MAX_AGE_MILLIS + 1000);
+        }
+        if (old != null && old.hanFile != hanFile) {
+            close(old.hanFile);
+        }
+        expireStale();
+    }
+
+    /**
+     * 오래되었거나 넘치는 것은 닫는다.
+     */
+    private static void expireStale() {
+        List<Object> stale = new ArrayList<Object>();
+        synchronized (cache) {
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<String, Detected>> it = cache.entrySet().iterator();
+            while (it.hasNext()) {
+                Detected eldest = it.next().getValue();
+                if (cache.size() > MAX_ENTRIES || now - eldest.detectedAt > MAX_AGE_MILLIS) {
+                    it.remove();
+                    stale.add(eldest.hanFile);
+                }
+            }
+        }
+        for (Object hanFile: stale) {
+            close(hanFile);
+        }
+    }
+
+    private static void close(Object hanFile) {
+        try {
+            if (hanFile instanceof HwpFile) {
+                ((HwpFile)hanFile).close();
+            } else if (hanFile instanceof HwpxFile) {
+                ((HwpxFile)hanFile).close();
+            }
+        } catch (IOException e) {
+            log.severe(e.getMessage());
+        }
+    }
+}
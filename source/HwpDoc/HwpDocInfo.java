@@ -20,10 +20,12 @@
  */
 package HwpDoc;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -48,6 +50,7 @@ import HwpDoc.HwpElement.HwpRecord_Numbering;
 import HwpDoc.HwpElement.HwpRecord_ParaShape;
 import HwpDoc.HwpElement.HwpRecord_Style;
 import HwpDoc.HwpElement.HwpRecord_TabDef;
+import HwpDoc.HwpElement.HwpRecordReader;
 import HwpDoc.HwpElement.HwpTag;
 
 public class HwpDocInfo {
@@ -93,24 +96,23 @@ public class HwpDocInfo {
         this.parentHwp = parent;
     }
 	
-	boolean parse(byte[] buf, int version) throws HwpParseException {
-		int off = 0;
-		while(off < buf.length) {
-			int header = buf[off+3]<<24&0xFF000000 | buf[off+2]<<16&0xFF0000 | buf[off+1]<<8&0xFF00 | buf[off]&0xFF;
-			int tagNum = header&0x3FF;				// 10 bits (0 - 9 bit)
-			int level = (header&0xFFC00)>>>10;		// 10 bits (10-19 bit)
-			int size =  (header&0xFFF00000)>>>20;	// 12 bits (20-31 bit)
-			
-			if (size==0xFFF) {
-				size = buf[off+7]<<24&0xFF000000 | buf[off+6]<<16&0xFF0000 | buf[off+5]<<8&0xFF00 | buf[off+4]&0xFF;
-				off += 8;
-			} else {
-				off += 4;
-			}
+	boolean parse(byte[] buf, int version) throws HwpParseException, IOException {
+		return parse(new HwpRecordReader(buf, 0, buf.length), version);
+	}
+	
+	boolean parse(HwpRecordReader reader, int version) throws HwpParseException, IOException {
+		while(reader.next()) {
+			int tagNum = reader.tagNum();
+			int level = reader.level();
+			int size = reader.size();
+			byte[] buf = reader.buffer();
+			int off = reader.offset();
 			
 			HwpRecord record = null;
 			HwpTag tag = HwpTag.from(tagNum);
-			log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())+"[TAG]="+tag.toString()+" ("+size+")");
+			if (log.isLoggable(Level.FINE)) {
+				log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())+"[TAG]="+tag.toString()+" ("+size+")");
+			}
 			switch(tag) {
 			case HWPTAG_DOCUMENT_PROPERTIES:
 				record = new HwpRecord_DocumentProperties(this, tagNum, level, size, buf, off, version);
@@ -171,7 +173,6 @@ public class HwpDocInfo {
 				break;
 			default:
 			}
-			off += size;
 		}
 		
 		return true;
@@ -0,0 +1,269 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc.HwpElement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import HwpDoc.Metrics;
+
+/**
+ * HWP record를 하나씩 읽는다. (tagNum, level, size 와 buffer()/offset()으로 data 위치를 알려준다)
+ * byte[]를 넘겨받아 그대로 읽거나, InputStream(압축해제 stream 등)에서 record 하나씩 필요한 만큼만 읽는다.
+ * InputStream에서 읽을 때에는 mark()한 record부터 현재 record까지만 buffer에 남기므로,
+ * section 전체를 메모리에 올리지 않아도 된다.
+ */
+public class HwpRecordReader {
+	private static final Logger log = Logger.getLogger(HwpRecordReader.class.getName());
+	private static final int INITIAL_BUF_SIZE = 8 * 1024;
+	private static final int MAX_BUF_SIZE = Integer.MAX_VALUE - 8;
+	// InputStream에서 읽을 때 record 하나의 최대 크기. 깨진 크기로 큰 buffer를 잡지 않도록 한다.
+	private static final int MAX_STREAM_RECORD_SIZE = Integer.getInteger("H2Orestart.maxRecordSize", 64 * 1024 * 1024);
+
+	// HwpTag별로 읽은 record 수
+	private static final Metrics.Counter[] recordCounters = new Metrics.Counter[0x400];
+	private static final Metrics.Counter unknownRecords = Metrics.counter("records.UNKNOWN");
+	static {
+		for (int tagNum=0; tagNum < recordCounters.length; tagNum++) {
+			HwpTag tag = HwpTag.from(tagNum);
+			if (tag != null) {
+				recordCounters[tagNum] = Metrics.counter("records." + tag.name());
+			}
+		}
+	}
+
+	private final InputStream is;	// null이면 buf에 모든 record가 있다.
+	private byte[] buf;
+	private int limit;				// buf에서 유효한 data의 끝
+	private int mark = -1;			// buffer에 남겨둘 첫 record 위치
+	private boolean countOnRead;	// readAt()으로 읽은 record를 센다.
+	private int countedEnd = -1;	// 이미 센 record의 끝. 이보다 앞의 record는 다시 읽어도 세지 않는다.
+
+	private int recordOffset;		// 현재 record header 위치
+	private int headerSize;			// 4 또는 8 (size가 0xFFF인 경우)
+	private int tagNum;
+	private int level;
+	private int size;
+
+	public HwpRecordReader(byte[] buf, int off, int length) {
+		this.is = null;
+		this.buf = buf;
+		this.limit = off + length;
+		this.recordOffset = off;
+	}
+
+	public HwpRecordReader(InputStream is) {
+		this.is = is;
+		this.buf = new byte[INITIAL_BUF_SIZE];
+	}
+
+	/**
+	 * 다음 record로 이동한다.
+	 * @return 더 읽을 record가 없으면 false
+	 */
+	public boolean next() throws IOException {
+		if (advance()) {
+			countRecord(tagNum);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean advance() throws IOException {
+		int pos = recordOffset + headerSize + size;
+		if (is == null) {
+			return readAt(pos);
+		}
+
+		// mark 앞의 record는 버리고, 남길 record를 buffer 앞으로 당긴다.
+		int keep = mark >= 0 ? mark : pos;
+		if (keep > 0) {
+			System.arraycopy(buf, keep, buf, 0, limit - keep);
+			limit -= keep;
+			pos -= keep;
+			if (mark >= 0) {
+				mark = 0;
+			}
+		}
+		recordOffset = pos;
+		headerSize = 0;
+		size = 0;
+
+		if (fill(pos + 4) == false) {
+			return false;
+		}
+		if ((buf[pos+3]&0xFF) == 0xFF && (buf[pos+2]&0xF0) == 0xF0) {	// size==0xFFF, 4byte 크기가 뒤따른다.
+			if (fill(pos + 8) == false) {
+				return false;
+			}
+		}
+		if (decode(pos) == false) {
+			return false;
+		}
+		long end = (long)pos + headerSize + size;
+		if (size > MAX_STREAM_RECORD_SIZE || end > MAX_BUF_SIZE) {
+			log.warning("Record(" + tagNum + ") is too large. size=" + size);
+			size = 0;
+			return false;
+		}
+		return fill((int)end);
+	}
+
+	private static void countRecord(int tagNum) {
+		Metrics.Counter counter = recordCounters[tagNum];
+		(counter != null ? counter : unknownRecords).increment();
+	}
+
+	/**
+	 * next() 대신 readAt()으로 읽는 경우, readAt()에서 record를 HwpTag별로 센다.
+	 * 같은 record를 여러번 readAt()해도 한번만 센다.
+	 */
+	public void countOnRead() {
+		countOnRead = Metrics.ENABLED;
+	}
+
+	/**
+	 * off 위치의 record header를 읽는다. byte[]를 넘겨받은 경우에만 사용한다.
+	 * 이후 next()는 이 record의 다음 record로 이동한다.
+	 */
+	public boolean readAt(int off) {
+		recordOffset = off;
+		headerSize = 0;
+		size = 0;
+		if (off < 0 || (long)off + 4 > limit) {
+			return false;
+		}
+		if (decode(off) == false) {
+			return false;
+		}
+		long end = (long)off + headerSize + size;
+		if (end > limit || end > MAX_BUF_SIZE) {
+			log.warning("Record(" + tagNum + ") exceeds buffer. size=" + size + ", remains=" + (limit - off - headerSize));
+			size = 0;
+			return false;
+		}
+		if (countOnRead && off >= countedEnd) {
+			countRecord(tagNum);
+			countedEnd = (int)end;
+		}
+		return true;
+	}
+
+	private boolean decode(int off) {
+		int header = buf[off+3]<<24&0xFF000000 | buf[off+2]<<16&0xFF0000 | buf[off+1]<<8&0xFF00 | buf[off]&0xFF;
+		tagNum = header&0x3FF;				// 10 bits (0 - 9 bit)
+		level = (header&0xFFC00)>>>10;		// 10 bits (10-19 bit)
+		size = (header&0xFFF00000)>>>20;	// 12 bits (20-31 bit)
+
+		if (size==0xFFF) {
+			if ((long)off + 8 > limit) {
+				size = 0;
+				return false;
+			}
+			size = buf[off+7]<<24&0xFF000000 | buf[off+6]<<16&0xFF0000 | buf[off+5]<<8&0xFF00 | buf[off+4]&0xFF;
+			headerSize = 8;
+			if (size < 0) {
+				log.warning("Record(" + tagNum + ") has invalid size " + Integer.toUnsignedString(size));
+				size = 0;
+				return false;
+			}
+		} else {
+			headerSize = 4;
+		}
+		return true;
+	}
+
+	/**
+	 * buf에 end 위치까지 data를 채운다.
+	 * @return stream이 먼저 끝나면 false
+	 */
+	private boolean fill(int end) throws IOException {
+		if (end > buf.length) {
+			buf = Arrays.copyOf(buf, Math.max(end, (int)Math.min((long)buf.length * 2, MAX_BUF_SIZE)));
+		}
+		while (limit < end) {
+			int count = is.read(buf, limit, end - limit);
+			if (count < 0) {
+				if (limit > recordOffset) {
+					log.warning("Stream ends in the middle of record. " + (limit - recordOffset) + " bytes left");
+				}
+				return false;
+			}
+			limit += count;
+		}
+		return true;
+	}
+
+	/**
+	 * 현재 record부터 이후의 record를 다음 mark()까지 buffer에 남긴다.
+	 * [markOffset(), recordOffset()) 구간은 buffer()에 연속으로 들어 있다.
+	 */
+	public void mark() {
+		mark = recordOffset;
+	}
+
+	public boolean isMarked() {
+		return mark >= 0;
+	}
+
+	public int markOffset() {
+		return mark;
+	}
+
+	public byte[] buffer() {
+		return buf;
+	}
+
+	/** 현재 record data의 위치 */
+	public int offset() {
+		return recordOffset + headerSize;
+	}
+
+	public int recordOffset() {
+		return recordOffset;
+	}
+
+	public int headerSize() {
+		return headerSize;
+	}
+
+	public int limit() {
+		return limit;
+	}
+
+	public int tagNum() {
+		return tagNum;
+	}
+
+	public HwpTag tag() {
+		return HwpTag.from(tagNum);
+	}
+
+	public int level() {
+		return level;
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -21,6 +21,7 @@
 package HwpDoc.HwpElement;
 
 import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.w3c.dom.NamedNodeMap;
@@ -72,7 +73,9 @@ public class HwpRecord_BinData extends HwpRecord {
             if (pathLen1 > 0) {
                 aPath = new String(buf, offset, pathLen1, StandardCharsets.UTF_16LE);
                 offset += pathLen1;
-                log.finest("                                                  " + aPath + "(AbsoluteLink)");
+                if (log.isLoggable(Level.FINEST)) {
+                    log.finest("                                                  " + aPath + "(AbsoluteLink)");
+                }
             }
             pathLen2 = (buf[offset + 1] << 8 & 0xFF00 | buf[offset] & 0x00FF) * 2;
             offset += 2;
@@ -97,7 +100,9 @@ public class HwpRecord_BinData extends HwpRecord {
                 offset += extLen;
             }
             aPath = String.format("BIN%04X.%s", binDataID, format);
-            log.fine("                                                  " + "ID=" + binDataID + "(" + aPath + ")");
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("                                                  " + "ID=" + binDataID + "(" + aPath + ")");
+            }
         }
 
         if (offset - off - size != 0) {
@@ -21,6 +21,7 @@
 package HwpDoc.HwpElement;
 
 import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import HwpDoc.Exception.HwpParseException;
@@ -56,7 +57,9 @@ public class HwpRecord_CtrlHeader extends HwpRecord {
 		offset += 4;
 		Ctrl ctrl = null;
 		
-		log.fine("                                                  ctrlID="+ctrlId);
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  ctrlID="+ctrlId);
+		}
 		// ctrlId를 거꾸로 읽어 비교한다.
 		switch(ctrlId) {
 		case "dces":	// 구역 정의
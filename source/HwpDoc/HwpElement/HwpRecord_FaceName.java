@@ -21,6 +21,7 @@
 package HwpDoc.HwpElement;
 
 import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.w3c.dom.NamedNodeMap;
@@ -108,15 +109,17 @@ public class HwpRecord_FaceName extends HwpRecord {
                 offset += faceNameLen;
             }
         }
-        log.fine("                                                  " + "ID=" + (parent.faceNameList.size()) + ",Nm="
-                + faceName + (basicFaceName == null ? "" : ",Basic=" + basicFaceName)
-                + (substExists ? ",Alt=" + substFace + (substType == null ? "" : "(" + substType.toString() + ")") : "")
-                + (attrExists == false ? "" : ",계열=" + familyType) + (attrExists == false ? "" : ",세리프=" + serifStyle)
-                + (attrExists == false ? "" : ",굵기=" + weight) + (attrExists == false ? "" : ",비례=" + propotion)
-                + (attrExists == false ? "" : ",대조=" + contrast)
-                + (attrExists == false ? "" : ",스트로크편차=" + strokeVariation)
-                + (attrExists == false ? "" : ",자획유형=" + armStyle) + (attrExists == false ? "" : ",글자형=" + letterform)
-                + (attrExists == false ? "" : ",중간선=" + midLine) + (attrExists == false ? "" : ",X높이=" + xHeight));
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  " + "ID=" + (parent.faceNameList.size()) + ",Nm="
+                    + faceName + (basicFaceName == null ? "" : ",Basic=" + basicFaceName)
+                    + (substExists ? ",Alt=" + substFace + (substType == null ? "" : "(" + substType.toString() + ")") : "")
+                    + (attrExists == false ? "" : ",계열=" + familyType) + (attrExists == false ? "" : ",세리프=" + serifStyle)
+                    + (attrExists == false ? "" : ",굵기=" + weight) + (attrExists == false ? "" : ",비례=" + propotion)
+                    + (attrExists == false ? "" : ",대조=" + contrast)
+                    + (attrExists == false ? "" : ",스트로크편차=" + strokeVariation)
+                    + (attrExists == false ? "" : ",자획유형=" + armStyle) + (attrExists == false ? "" : ",글자형=" + letterform)
+                    + (attrExists == false ? "" : ",중간선=" + midLine) + (attrExists == false ? "" : ",X높이=" + xHeight));
+        }
 
         if (offset - off - size != 0) {
             throw new HwpParseException();
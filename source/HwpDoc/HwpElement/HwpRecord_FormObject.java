@@ -29,7 +29,6 @@ import HwpDoc.paragraph.Ctrl_Form;
 
 public class HwpRecord_FormObject extends HwpRecord {
     private static final Logger log = Logger.getLogger(HwpRecord_FormObject.class.getName());
-    public static String formStr;
     
     HwpRecord_FormObject(int tagNum, int level, int size) {
         super(tagNum, level, size);
@@ -44,6 +43,7 @@ public class HwpRecord_FormObject extends HwpRecord {
         
         short strLen	 = (short) ((buf[offset+1]<<8&0xFF00 | buf[offset]&0x00FF)*2);
         offset += 2;
+        String formStr = null;
         if (strLen > 0) {
             formStr = new String(buf, offset, strLen, StandardCharsets.UTF_16LE);
             offset += strLen;
@@ -22,6 +22,7 @@ package HwpDoc.HwpElement;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import HwpDoc.HwpDocInfo;
@@ -50,7 +51,9 @@ public class HwpRecord_IdMapping extends HwpRecord {
 			offset += 4;
 			
 			counts[i] = count;
-			log.finest("Total " + count + " IDs are mapping to " + Index.from(i));
+			if (log.isLoggable(Level.FINEST)) {
+				log.finest("Total " + count + " IDs are mapping to " + Index.from(i));
+			}
 
 			switch(Index.from(i)) {
 			case BIN_DATA:
@@ -20,6 +20,7 @@
  */
 package HwpDoc.HwpElement;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import HwpDoc.Exception.HwpParseException;
@@ -38,7 +39,9 @@ public class HwpRecord_ListHeader extends HwpRecord {
 		short nParas 		= (short) (buf[offset+1]<<8&0xFF00 | buf[offset]&0x00FF);
 		offset += 2;
 		
-		log.fine("                                                  "+"문단갯수="+nParas);
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  "+"문단갯수="+nParas);
+		}
 		return nParas;
 	}
 
@@ -26,9 +26,8 @@ import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import HwpDoc.Exception.HwpParseException;
 import HwpDoc.paragraph.Ctrl;
@@ -48,9 +47,6 @@ import HwpDoc.paragraph.ParaText;
 
 public class HwpRecord_ParaText extends HwpRecord {
 	private static final Logger log = Logger.getLogger(HwpRecord_ParaText.class.getName());
-    private static final String PATTERN_STRING = "[\\u0000\\u000a\\u000d\\u0018-\\u001f]|[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017].{6}[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017]";
-    private static final String PATTERN_8BYTES = "[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017].{6}[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017]";
-    public static Pattern pattern = Pattern.compile(PATTERN_STRING);
 
 	HwpRecord_ParaText(int tagNum, int level, int size) {
 		super(tagNum, level, size);
@@ -61,131 +57,146 @@ public class HwpRecord_ParaText extends HwpRecord {
 		
 		ArrayList<Ctrl> paras = new ArrayList<>();
 		
-		String text = new String(buf, offset, size, StandardCharsets.UTF_16LE);
+		// UTF-16LE 문자를 String으로 바꾸지 않고 byte에서 바로 읽으면서 제어문자를 찾는다.
+		int nChars = size/2;
+		if (log.isLoggable(Level.FINER)) {
+			log.finer("paraText Length="+ nChars);
+		}
+		int prevIndex = 0;
+		int i = 0;
+		
+		while (i < nChars) {
+			int c = charAt(buf, off, i);
+			if (c > 0x1f) {
+				i++;
+				continue;
+			}
+			
+			int ctrlLength = 0;
+			if (isCharControl(c)) {
+				ctrlLength = 1;
+			} else if (i+8 <= nChars && isExtendControl(charAt(buf, off, i+7))) {
+				ctrlLength = 8;
+			}
+			if (ctrlLength == 0) {
+				// 짝이 맞지 않는 제어문자는 글자로 취급한다.
+				i++;
+				continue;
+			}
+			
+			if (i > prevIndex) {
+				// write text
+				String content = new String(buf, off+prevIndex*2, (i-prevIndex)*2, StandardCharsets.UTF_16LE);
+				paras.add(new ParaText("____", content, prevIndex));
+			}
+			
+			if (ctrlLength == 1) {
+				// 문자컨드롤
+				switch(c) {
+				case 0x0a:      // 10 한 줄 끝 (line break);
+					paras.add(new Ctrl_Character("   _", CtrlCharType.LINE_BREAK));
+					break;
+				case 0x0d:      // 13 문단 끝 (para break)
+					paras.add(new Ctrl_Character("   _", CtrlCharType.PARAGRAPH_BREAK));
+					break;
+				case 0x18:      // 24 하이픈
+					paras.add(new Ctrl_Character("   _", CtrlCharType.HARD_HYPHEN));
+					break;
+				case 0x1e:      // 30 묶음 빈칸
+				case 0x1f:      // 31 고정폭 빈칸
+					paras.add(new Ctrl_Character("   _", CtrlCharType.HARD_SPACE));
+					break;
+				}
+			} else {
+				// 인라인 컨트롤, 확장컨트롤
+				String info = getInfo(buf, off+i*2+2);
+				
+				switch(c) {
+				case 0x04:  // 필드 끝
+					break;
+				case 0x08:  // title mark
+					break;
+				case 0x09:  // 탭
+					paras.add(new ParaText("____", "\t", 0));
+					break;
+				case 0x10:  // 머리말/꼬리말
+					paras.add(new Ctrl_HeadFoot(info));
+					break;
+				case 0x12:  // 자동번호
+					paras.add(new Ctrl_AutoNumber(info));
+					break;
+				case 0x15:  // 페이지 컨트롤(감추기, 새번호로 시작 등)
+					{
+						switch(info) {
+						case "dhgp":    // 감추기
+							break;
+						case "pngp":    // 쪽 번호 위치
+							paras.add(new Ctrl_PageNumPos(info));
+							break;
+						case "onwn":    // 새 번호 지정
+							paras.add(new Ctrl_NewNumber(info));
+							break;
+						}
+					}
+					break;
+				case 0x02:  // 구역정의/단정의
+					{
+						switch(info) {
+						case "dces":
+							paras.add(new Ctrl_SectionDef(info));
+							break;
+						case "dloc":
+							paras.add(new Ctrl_ColumnDef(info));
+							break;
+						}
+					}
+					break;
+				case 0x03:  // 필드 시작 (누름틀,하이퍼링크,블록책갈피,표계산식,문서 요약,사용자 정보,현재 날짜/시간,문서 날짜/시간,파일 경로,상호 참조,메일머지,메모,교정부호,개인정보
+				case 0x0e:  // 예약
+				case 0x0f:  // 숨은 설명
+					break;
+				case 0x11:  // 각주/미주
+					paras.add(new Ctrl_Note(info));
+					break;
+				case 0x16:  // 책갈피/찾아보기 표식
+				case 0x17:  // 덧말/글자 겹침
+					break;
+				case 0x0b:  // 그리기 개체/표
+					{
+						switch(info) {
+						case " osg":
+							paras.add(new Ctrl_GeneralShape(info));
+							break;
+						case " lbt":
+							paras.add(new Ctrl_Table(info));
+							break;
+						case "deqe":
+							paras.add(new Ctrl_EqEdit(info));
+							break;
+						case "mrof":
+							break;
+						}
+					}
+					break;
+				default:
+					break;
+				}
+			}
+			i += ctrlLength;
+			prevIndex = i;
+		}
+		
+		if (prevIndex*2 < size) {
+			// write final text
+			String content = new String(buf, off+prevIndex*2, size-prevIndex*2, StandardCharsets.UTF_16LE);
+			paras.add(new ParaText("____", content, prevIndex));
+		}
 		offset += size;
-
-        Matcher m = pattern.matcher(text);
-        
-        log.finer("paraText Length="+ text.length());
-        int prevIndex = 0;
-        
-        while(m.find()) {
-            if (m.start()>prevIndex) {
-                // write text
-                int startIndex = prevIndex;
-                
-                String content = text.substring(startIndex, m.start());
-                paras.add(new ParaText("____", content, startIndex));
-            }
-            
-            if (m.start()+1==m.end()) {
-                // 문자컨드롤
-                byte controlByte = m.group().getBytes(StandardCharsets.UTF_16LE)[0];
-                
-                switch(controlByte) {
-                case 0x0a:      // 10 한 줄 끝 (line break);
-                    paras.add(new Ctrl_Character("   _", CtrlCharType.LINE_BREAK));
-                    break;
-                case 0x0d:      // 13 문단 끝 (para break)
-                    paras.add(new Ctrl_Character("   _", CtrlCharType.PARAGRAPH_BREAK));
-                    break;
-                case 0x18:      // 24 하이픈
-                    paras.add(new Ctrl_Character("   _", CtrlCharType.HARD_HYPHEN));
-                    break;
-                case 0x1e:      // 30 묶음 빈칸
-                case 0x1f:      // 31 고정폭 빈칸
-                    paras.add(new Ctrl_Character("   _", CtrlCharType.HARD_SPACE));
-                    break;
-                }
-                
-            } else if (m.start()+8==m.end()) {
-                // 인라인 컨트롤, 확장컨트롤
-                byte controlByte = m.group().getBytes(StandardCharsets.UTF_16LE)[0];
-                String info = new String(m.group().getBytes(StandardCharsets.UTF_16LE), 2, 12, StandardCharsets.US_ASCII).replaceAll("[\\x00-\\x20]+$", "");
-
-                switch(controlByte) {
-                case 0x04:  // 필드 끝
-                    break;
-                case 0x08:  // title mark
-                    break;
-                case 0x09:  // 탭
-                    paras.add(new ParaText("____", "\t", 0));
-                    break;
-                case 0x10:  // 머리말/꼬리말
-                    paras.add(new Ctrl_HeadFoot(info));
-                    break;
-                case 0x12:  // 자동번호
-                    paras.add(new Ctrl_AutoNumber(info));
-                    break;
-                case 0x15:  // 페이지 컨트롤(감추기, 새번호로 시작 등)
-                    {
-                        switch(info) {
-                        case "dhgp":    // 감추기
-                            break;
-                        case "pngp":    // 쪽 번호 위치
-                            paras.add(new Ctrl_PageNumPos(info));
-                            break;
-                        case "onwn":    // 새 번호 지정
-                            paras.add(new Ctrl_NewNumber(info));
-                            break;
-                        }
-                    }
-                    break;
-                case 0x02:  // 구역정의/단정의
-                    {
-                        switch(info) {
-                        case "dces":
-                            paras.add(new Ctrl_SectionDef(info));
-                            break;
-                        case "dloc":
-                            paras.add(new Ctrl_ColumnDef(info));
-                            break;
-                        }
-                    }
-                    break;
-                case 0x03:  // 필드 시작 (누름틀,하이퍼링크,블록책갈피,표계산식,문서 요약,사용자 정보,현재 날짜/시간,문서 날짜/시간,파일 경로,상호 참조,메일머지,메모,교정부호,개인정보
-                case 0x0e:  // 예약
-                case 0x0f:  // 숨은 설명
-                    break;
-                case 0x11:  // 각주/미주
-                    paras.add(new Ctrl_Note(info));
-                    break;
-                case 0x16:  // 책갈피/찾아보기 표식
-                case 0x17:  // 덧말/글자 겹침
-                    break;
-                case 0x0b:  // 그리기 개체/표
-                    {
-                        switch(info) {
-                        case " osg":
-                            paras.add(new Ctrl_GeneralShape(info));
-                            break;
-                        case " lbt":
-                            paras.add(new Ctrl_Table(info));
-                            break;
-                        case "deqe":
-                            paras.add(new Ctrl_EqEdit(info));
-                            break;
-                        case "mrof":
-                            break;
-                        }
-                    }
-                    break;
-                default:
-                    break;
-                }
-            }
-            prevIndex = m.end();
-        }
-        
-        if (prevIndex<text.length()) {
-            // write final text
-            int startIndex = prevIndex;
-            String content = text.substring(startIndex);
-            paras.add(new ParaText("____", content, startIndex));
-        }
-		        
-		String readable = toReadableString(text);
-		log.fine("                                                  "+readable);
+		
+		if (log.isLoggable(Level.FINE)) {
+			String readable = toReadableString(new String(buf, off, size, StandardCharsets.UTF_16LE));
+			log.fine("                                                  "+readable);
+		}
 
 		if (offset-off-size != 0) {
 			log.fine("[TAG]=" + tagNum + ", size=" + size + ", but currentSize=" + (offset-off));
@@ -195,14 +206,40 @@ public class HwpRecord_ParaText extends HwpRecord {
 		return paras;
 	}
 	
+	private static int charAt(byte[] buf, int off, int index) {
+		int pos = off + index*2;
+		return (buf[pos+1]&0xFF)<<8 | buf[pos]&0xFF;
+	}
+	
+	// 1 글자로 된 문자 컨트롤
+	private static boolean isCharControl(int c) {
+		return c==0x00 || c==0x0a || c==0x0d || (c>=0x18 && c<=0x1f);
+	}
+	
+	// 8 글자(16 bytes)로 된 인라인/확장 컨트롤. 첫 글자와 마지막 글자가 컨트롤 코드이다.
+	private static boolean isExtendControl(int c) {
+		return c>=0x01 && c<=0x17 && c!=0x0a && c!=0x0d;
+	}
+	
+	// 컨트롤 코드 뒤의 12 bytes를 ASCII로 읽고, 뒤쪽의 공백/NULL은 잘라낸다.
+	private static String getInfo(byte[] buf, int pos) {
+		int end = pos + 12;
+		while (end > pos && (buf[end-1]&0xFF) <= 0x20) {
+			end--;
+		}
+		return new String(buf, pos, end-pos, StandardCharsets.US_ASCII);
+	}
+	
 	public static String getText(int tagNum, int level, int size, byte[] buf, int off, int version) throws HwpParseException {
         int offset = off;
         
         String text = new String(buf, offset, size, StandardCharsets.UTF_16LE);
         offset += size;
 
-        String readable = toReadableString(text);
-        log.fine("                                                  "+readable);
+        if (log.isLoggable(Level.FINE)) {
+            String readable = toReadableString(text);
+            log.fine("                                                  "+readable);
+        }
 
         if (offset-off-size != 0) {
             log.fine("[TAG]=" + tagNum + ", size=" + size + ", but currentSize=" + (offset-off));
@@ -77,6 +77,13 @@ public enum HwpTag {
 	HWPTAG_SHAPE_COMPONENT_UNKNOWN	(_HwpTag.HWPTAG_BEGIN+99);
 
 	private int tagNum;
+	private static final HwpTag[] TAGS = new HwpTag[0x400];	// tagNum은 10 bit. 정의되지 않은 tagNum은 null
+	
+	static {
+		for (HwpTag tag: values()) {
+			TAGS[tag.tagNum] = tag;
+		}
+	}
 	
     private HwpTag(int tagNum) { 
     	this.tagNum = tagNum;
@@ -87,10 +94,8 @@ public enum HwpTag {
     }
     
     public static HwpTag from(int tagNum) {
-    	for (HwpTag tag: values()) {
-    		if (tag.tagNum == tagNum)
-    			return tag;
-    	}
-    	return null;
+    	if (tagNum < 0 || tagNum >= TAGS.length)
+    		return null;
+    	return TAGS[tagNum];
     }
 }
@@ -24,7 +24,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -32,11 +36,14 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -44,11 +51,14 @@ import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.SecretKeySpec;
 
+import HwpDoc.HwpElement.HwpRecord_BinData;
 import HwpDoc.HwpElement.HwpRecord_BinData.Compressed;
+import HwpDoc.HwpElement.HwpRecord_BinData.Type;
 import HwpDoc.Exception.CompoundDetectException;
 import HwpDoc.Exception.CompoundParseException;
 import HwpDoc.Exception.HwpParseException;
 import HwpDoc.Exception.NotImplementedException;
+import HwpDoc.HwpElement.HwpRecordReader;
 import HwpDoc.HwpElement.HwpTag;
 import HwpDoc.OLEdoc.CompoundFile;
 import HwpDoc.OLEdoc.DirectoryEntry;
@@ -56,6 +66,9 @@ import HwpDoc.paragraph.HwpParagraph;
 
 public class HwpFile {
     private static final Logger log = Logger.getLogger(HwpFile.class.getName());
+    private static final Metrics.Histogram streamInflated = Metrics.histogram("stream.inflated", "bytes");
+    private static final Metrics.Histogram docInfoPhase = Metrics.histogram("phase.docinfo", "ns");
+    private static final Metrics.Histogram sectionsPhase = Metrics.histogram("phase.sections", "ns");
 
     public	String filename;
     public	CompoundFile oleFile;
@@ -68,6 +81,9 @@ public class HwpFile {
     // Let's have member that are needed for showing in LibreOffice
     public	List<DirectoryEntry> directoryBinData;
     public	List<HwpParagraph>  paraList;
+    private	BinDataCache binDataCache = new BinDataCache();
+    private	int parseThreads = SectionParser.DEFAULT_THREADS;
+    private	Runnable cancelCheck;       // section을 읽기 전마다 부른다.
     
     
     public HwpFile(String filename) throws FileNotFoundException {
@@ -88,6 +104,18 @@ public class HwpFile {
         viewText = new ArrayList<HwpSection>();
     }
 
+    /**
+     * 파일이 아닌 channel(메모리에 읽어둔 문서 등)에서 읽는다. name은 log 등에 쓰는 이름.
+     */
+    public HwpFile(FileChannel channel, String name) {
+        oleFile = new CompoundFile(channel);
+        this.filename = name;
+        fileHeader = new HwpFileHeader();
+        docInfo = new HwpDocInfo(this);
+        bodyText = new ArrayList<HwpSection>();
+        viewText = new ArrayList<HwpSection>();
+    }
+
     public List<HwpSection> getSections() {
         if (fileHeader.bDistributable) {
             return viewText;
@@ -120,19 +148,9 @@ public class HwpFile {
     }
 
     public void open() throws HwpDetectException, CompoundDetectException, IOException, DataFormatException, HwpParseException, NotImplementedException, CompoundParseException {
-        if (fileHeader.signature==null || fileHeader.version==null) {
-            detect();
-        }
-        version = Integer.parseInt(fileHeader.version);
-        
-        if (fileHeader.bPasswordEncrypted) {
-            throw new HwpParseException();
-        }
-        
-        if (getDocInfo(version)==false) 
-            throw new CompoundParseException();
-        log.fine("DocInfo parsed");
+        openDocInfo();
         
+        long start = sectionsPhase.start();
         // 배포용 문서가 아니면 BodyText를 읽는다.
         if (fileHeader.bDistributable==false) {
             if (getBodyText(version)==false) 
@@ -146,6 +164,44 @@ public class HwpFile {
                 throw new CompoundParseException();
             log.fine("Distributable file. ViewText parsed");
         }
+        sectionsPhase.stop(start);
+    }
+    
+    /**
+     * FileHeader와 DocInfo만 읽는다. 본문은 readSections()로 section 하나씩 읽는다.
+     */
+    public void openDocInfo() throws HwpDetectException, CompoundDetectException, IOException, DataFormatException, HwpParseException, NotImplementedException, CompoundParseException {
+        if (fileHeader.signature==null || fileHeader.version==null) {
+            detect();
+        }
+        version = Integer.parseInt(fileHeader.version);
+        
+        if (fileHeader.bPasswordEncrypted) {
+            throw new HwpParseException();
+        }
+        
+        long start = docInfoPhase.start();
+        if (getDocInfo(version)==false) 
+            throw new CompoundParseException();
+        docInfoPhase.stop(start);
+        log.fine("DocInfo parsed");
+    }
+    
+    /**
+     * openDocInfo() 다음에 본문(배포용 문서면 ViewText)의 section을 순서대로 하나씩 읽어 handler에 넘긴다.
+     * 읽은 section은 getSections()에 보관하지 않으므로, 문서가 커도 section 하나만큼의 메모리만 쓴다.
+     */
+    public void readSections(HwpSection.Handler handler) throws HwpParseException, NotImplementedException, IOException, DataFormatException {
+        List<DirectoryEntry> sections = oleFile.getChildEntries(fileHeader.bDistributable ? "ViewText" : "BodyText");
+        long parseNanos = 0;    // handler에서 쓴 시간은 빼고 section을 읽은 시간만 더한다.
+        for (int i=0; i < sections.size(); i++) {
+            long start = sectionsPhase.start();
+            HwpSection section = fileHeader.bDistributable ? readViewSection(sections.get(i), version)
+                                                           : readBodySection(sections.get(i), version);
+            parseNanos += sectionsPhase.start() - start;
+            handler.handle(i, section);
+        }
+        sectionsPhase.record(parseNanos);
     }
     
     public void saveHwpComponent() throws IOException {
@@ -188,17 +244,9 @@ public class HwpFile {
     }
 
     private DirectoryEntry searchChildEntry(Path basePath, DirectoryEntry baseEntry, String entryName) throws IOException {
-        List<DirectoryEntry> entries = oleFile.getChildEntries(baseEntry);
-        for (DirectoryEntry entry: entries) {
-            if (entry.getObjectType()==0x01) {
-                Path childPath = Paths.get(basePath.toString(), entry.getDirectoryEntryName().trim());
-                // Files.createDirectory(childPath);
-                return searchChildEntry(childPath, entry, entryName);
-            } else {
-                if (entry.getDirectoryEntryName().trim().equals(entryName)) {
-                    return entry;
-                }
-            }
+        DirectoryEntry entry = oleFile.getEntryByPath(baseEntry.getPath() + "/" + entryName);
+        if (entry != null && entry.getObjectType()!=0x01) {
+            return entry;
         }
         return null;
     }
@@ -255,29 +303,14 @@ public class HwpFile {
     
     public byte[] getChildBytes(String entryName, Compressed compressed) throws IOException {
         byte[] retBytes = null;
-        String patternStr = ".*"+Pattern.quote(File.separator)+"([^"+Pattern.quote(File.separator)+"]+)$";
-        String shortFilename = filename.replaceAll(patternStr, "$1");	// ".*\\\\([^\\\\]+)$"		// 불필요코드이나 현재는 유지
-        shortFilename = shortFilename.replaceAll("(.*)\\.hwp$", "$1");								// 불필요코드이나 현재는 유지
-        log.finer("HwpFilePath="+filename + ", FileName="+shortFilename);
-        DirectoryEntry targetEntry = null;
-        
-        List<DirectoryEntry> entries = oleFile.getChildEntries("Root Entry");
-        for (DirectoryEntry entry: entries) {
-            if (entry.getObjectType()==0x01) {
-                Path childPath = Paths.get(shortFilename, entry.getDirectoryEntryName().trim());	// 불필요코드이나 현재는 유지.
-                targetEntry = searchChildEntry(childPath, entry, entryName);
-                if (targetEntry!=null)	break;
-            } else {
-                if (entry.getDirectoryEntryName().trim().equals(entryName)) {
-                    targetEntry = entry;
-                    break;
-                }
-            }
+        DirectoryEntry targetEntry = oleFile.getEntry(entryName);
+        if (targetEntry != null && targetEntry.getObjectType()==0x01) {
+            targetEntry = null;
         }
         if (targetEntry != null) {
             if (compressed == Compressed.COMPRESS || (compressed==Compressed.FOLLOW_STORAGE && fileHeader.bCompressed)) {
                 try {
-                    retBytes = unzip(oleFile.read(targetEntry));
+                    retBytes = unzip(oleFile.getBuffer(targetEntry));
                 } catch (IOException | DataFormatException e) {
                     e.printStackTrace();
                 }
@@ -289,12 +322,53 @@ public class HwpFile {
         return retBytes;
     }
     
+    /**
+     * BinData를 읽어서 돌려준다. 같은 BinData는 한번만 읽고 압축해제하여 캐시에서 공유한다.
+     * 돌려주는 byte[]는 공유되므로 수정하면 안된다.
+     */
+    public byte[] getBinData(HwpRecord_BinData binData) throws IOException, DataFormatException {
+        if (binData.type == Type.LINK) {
+            return binDataCache.get("LINK:" + binData.aPath, () -> Files.readAllBytes(Paths.get(binData.aPath)));
+        }
+        String entryName = String.format("BIN%04X.%s", binData.binDataID, binData.format);
+        return binDataCache.get(entryName, () -> getChildBytes(entryName, binData.compressed));
+    }
+    
+    /**
+     * BinData를 stream으로 돌려준다. 캐시에 없으면 전체를 메모리에 올리지 않고 sector에서 바로 압축해제하며 읽는다.
+     */
+    public InputStream getBinDataStream(HwpRecord_BinData binData) throws IOException {
+        if (binData.type == Type.LINK) {
+            byte[] cached = binDataCache.peek("LINK:" + binData.aPath);
+            return cached!=null ? new ByteArrayInputStream(cached) : Files.newInputStream(Paths.get(binData.aPath));
+        }
+        String entryName = String.format("BIN%04X.%s", binData.binDataID, binData.format);
+        byte[] cached = binDataCache.peek(entryName);
+        if (cached != null) {
+            return new ByteArrayInputStream(cached);
+        }
+        DirectoryEntry entry = oleFile.getEntry(entryName);
+        if (entry == null || entry.getObjectType()==0x01) {
+            return null;
+        }
+        InputStream is = oleFile.getInputStream(entry);
+        if (binData.compressed == Compressed.COMPRESS || (binData.compressed==Compressed.FOLLOW_STORAGE && fileHeader.bCompressed)) {
+            return inflate(is);
+        }
+        return is;
+    }
+    
 	private byte[] unzip(byte[] input) throws IOException, DataFormatException {
+        return unzip(ByteBuffer.wrap(input));
+    }
+    
+    private byte[] unzip(ByteBuffer input) throws IOException, DataFormatException {
         Inflater decompressor = new Inflater(true);
-        decompressor.setInput(input, 0, input.length);
+        int inputLength = input.remaining();
+        decompressor.setInput(input);   // 매핑된 sector 영역을 복사 없이 바로 입력으로 사용
         
         byte[] retBytes = null;
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream(input.length)) {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream(inputLength)) {
             // Decompress the data
             byte[] buf = new byte[8096];
             while (!decompressor.finished()) {
@@ -307,10 +381,33 @@ public class HwpFile {
             }
             bos.close();
             retBytes = bos.toByteArray();
+            streamInflated.record(retBytes.length);
+        } finally {
+            decompressor.end();
         }
         return retBytes;
     }
 	
+    /**
+     * 압축된 stream을 압축해제하며 읽는 InputStream을 돌려준다. close()할 때 Inflater도 해제한다.
+     */
+    private InputStream inflate(InputStream is) {
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(is, inflater, 8192) {
+            private boolean closed;
+            
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!closed) {
+                    closed = true;
+                    streamInflated.record(inflater.getBytesWritten());
+                    inflater.end();
+                }
+            }
+        };
+    }
+    
     private byte[] decrypt(byte[] buf) throws HwpParseException {
         int offset 	= 0;
         int header 	= buf[offset+3]<<24&0xFF000000 | buf[offset+2]<<16&0xFF0000 | buf[offset+1]<<8&0xFF00 | buf[offset]&0xFF;
@@ -340,10 +437,10 @@ public class HwpFile {
         // 2. rand()함수의 결과 값을 이용하여 배열을 채운다. 단, rand()함수가 호출되는 순번에 따라 그 사용 방식이 달라진다.홀수번째 : 배열에 채워지는 값짝수번째 : 배열에 채워지는 횟수
         // 3. 홀수번째 rand() & 0xFF의 값을 A라 하고, 짝수번째 (rand() & 0x0F + 1)의 결과를 B라 할 때배열에 A값을 B번 횟수만큼 삽입한다.예를 들어 A가 ‘a’이고, B가 3일 경우에 배열에 ‘a’를 3번 삽입한다.
         // 4. 배열크기가 256이 될 때까지 3항을 반복한다.
-        Rand.srand(seed);
+        Rand rand = new Rand(seed);
         for (int i=0; i < 256; ) {
-            byte a = (byte) (Rand.rand() & 0x000000FF);
-            int cnt = (Rand.rand() & 0x0000000F) + 1;
+            byte a = (byte) (rand.rand() & 0x000000FF);
+            int cnt = (rand.rand() & 0x0000000F) + 1;
             for (int j=0; j<cnt && i<256; j++,i++) {
                 docData[i] ^= a;
             }
@@ -371,47 +468,113 @@ public class HwpFile {
     }
     
     public boolean getDocInfo(int version) throws CompoundDetectException, IOException, DataFormatException, HwpParseException, NotImplementedException {
-        if (fileHeader.bCompressed)
-            return docInfo.parse(unzip(getComponent("DocInfo")), version);
-        else 
+        if (fileHeader.bCompressed) {
+            DirectoryEntry entry = oleFile.getEntry("DocInfo");
+            if (entry == null) {
+                throw new CompoundDetectException();
+            }
+            try (InputStream is = inflate(oleFile.getInputStream(entry))) {
+                return docInfo.parse(new HwpRecordReader(is), version);
+            }
+        } else {
             return docInfo.parse(getComponent("DocInfo"), version);
+        }
     }
     
     private boolean getBodyText(int version) throws HwpParseException, IOException, DataFormatException {
         List<DirectoryEntry> sections = oleFile.getChildEntries("BodyText");
         log.fine("BodyText has " + sections.size() + " children");
-        for (DirectoryEntry section: sections) {
-            HwpSection hwpSection = new HwpSection(this);
-            if (fileHeader.bCompressed) {
-                hwpSection.parse(unzip(oleFile.read(section)), version);
-            } else {
-                hwpSection.parse(oleFile.read(section), version);
+        if (parseThreads <= 1 || sections.size() <= 1) {
+            for (DirectoryEntry section: sections) {
+                bodyText.add(readBodySection(section, version));
             }
-            bodyText.add(hwpSection);
+            return true;
+        }
+        
+        // section끼리는 서로 독립적이므로 동시에 parse하고, 순서는 그대로 유지한다.
+        List<Callable<HwpSection>> tasks = new ArrayList<Callable<HwpSection>>();
+        for (DirectoryEntry section: sections) {
+            tasks.add(() -> readBodySection(section, version));
+        }
+        try {
+            bodyText.addAll(SectionParser.parseAll(tasks, parseThreads));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof HwpParseException)    throw (HwpParseException)cause;
+            if (cause instanceof IOException)          throw (IOException)cause;
+            if (cause instanceof RuntimeException)     throw (RuntimeException)cause;
+            if (cause instanceof Error)                throw (Error)cause;
+            throw new HwpParseException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HwpParseException(e);
         }
         return true;
     }
     
+    private HwpSection readBodySection(DirectoryEntry section, int version) throws HwpParseException, IOException {
+        checkCancelled();
+        HwpSection hwpSection = new HwpSection(this);
+        if (fileHeader.bCompressed) {
+            // section 전체를 압축해제해 두지 않고, 압축해제하면서 record 단위로 읽는다.
+            try (InputStream is = inflate(oleFile.getInputStream(section))) {
+                hwpSection.parse(is, version);
+            }
+        } else {
+            hwpSection.parse(oleFile.read(section), version);
+        }
+        return hwpSection;
+    }
+    
+    /**
+     * BodyText의 section들을 동시에 parse할 thread 수를 정한다. 1이면 순서대로 parse한다.
+     * 배포용 문서(ViewText)는 항상 순서대로 parse한다.
+     */
+    public void setParseThreads(int threads) {
+        this.parseThreads = Math.max(1, threads);
+    }
+    
+    /**
+     * section을 읽기 전마다 부를 중단 확인을 정한다. 변환을 멈추려면 RuntimeException을 던지면 된다.
+     */
+    public void setCancelCheck(Runnable cancelCheck) {
+        this.cancelCheck = cancelCheck;
+    }
+    
+    private void checkCancelled() {
+        if (cancelCheck != null) {
+            cancelCheck.run();
+        }
+    }
+    
     private boolean getViewText(int version) throws HwpParseException, NotImplementedException, IOException, DataFormatException {
         List<DirectoryEntry> sections = oleFile.getChildEntries("ViewText");
         log.fine("ViewText has " + sections.size() + " children");
         for (DirectoryEntry section: sections) {
-            HwpSection hwpSection = new HwpSection(this);
-            if (fileHeader.bCompressed) {
-                hwpSection.parse(unzip(decrypt(oleFile.read(section))), version);
-            } else {
-                hwpSection.parse(decrypt(oleFile.read(section)), version);
-            }
-            viewText.add(hwpSection);
+            viewText.add(readViewSection(section, version));
         }
         return true;
     }
     
+    private HwpSection readViewSection(DirectoryEntry section, int version) throws HwpParseException, IOException, DataFormatException {
+        checkCancelled();
+        HwpSection hwpSection = new HwpSection(this);
+        if (fileHeader.bCompressed) {
+            try (InputStream is = inflate(new ByteArrayInputStream(decrypt(oleFile.read(section))))) {
+                hwpSection.parse(is, version);
+            }
+        } else {
+            hwpSection.parse(decrypt(oleFile.read(section)), version);
+        }
+        return hwpSection;
+    }
+    
     public byte[] getComponent(String entryName) throws CompoundDetectException {
         return oleFile.getComponent(entryName);
     }
     
     public void close() throws IOException {
+        binDataCache.clear();
         oleFile.close();
     }
     
@@ -433,14 +596,15 @@ public class HwpFile {
         this.paraList.add(para);
     }
     
+    // 여러 문서를 동시에 읽을 수 있도록 seed는 객체마다 따로 둔다.
     public static class Rand {
-        static int random_seed;
+        private int random_seed;
         
-        public static void srand(int seed) {
+        public Rand(int seed) {
             random_seed = seed;
         }
         
-        public static int rand() {
+        public int rand() {
             random_seed = (random_seed * 214013 + 2531011) & 0xFFFFFFFF;
             return ((random_seed >> 16) & 0x7FFF);
         }
@@ -20,14 +20,22 @@
  */
 package HwpDoc;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -41,6 +49,7 @@ import HwpDoc.HwpElement.HwpRecord_FormObject;
 import HwpDoc.HwpElement.HwpRecord_ListHeader;
 import HwpDoc.HwpElement.HwpRecord_ParaRangeTag;
 import HwpDoc.HwpElement.HwpRecord_ParaText;
+import HwpDoc.HwpElement.HwpRecordReader;
 import HwpDoc.HwpElement.HwpTag;
 import HwpDoc.paragraph.CapParagraph;
 import HwpDoc.paragraph.CellParagraph;
@@ -79,6 +88,8 @@ public class HwpSection {
     private static final Logger log = Logger.getLogger(HwpSection.class.getName());
     
     public	List<HwpParagraph>	paraList;
+    private	int	bufLength;      // buf 중 유효한 길이. 재사용하는 buffer는 buf.length보다 짧을 수 있다.
+    private	HwpRecordReader header; // buf의 record header를 읽는다.
     
     public HwpSection(HwpFile hwp) {
         paraList = new ArrayList<HwpParagraph>();
@@ -87,6 +98,14 @@ public class HwpSection {
     public HwpSection(HwpxFile hwpx) {
         paraList = new ArrayList<HwpParagraph>();
     }
+    
+    /**
+     * HwpFile.readSections(), HwpxFile.readSections()에서 읽은 section을 하나씩 넘겨받는다.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void handle(int index, HwpSection section) throws IOException;
+    }
 
     boolean read(Document document, int version, IContext context) throws NotImplementedException {
         Element element = document.getDocumentElement();
@@ -106,57 +125,110 @@ public class HwpSection {
         return true;
     }
     
-    boolean parse(byte[] buf, int version) throws HwpParseException {
-        int off = 0;
+    /**
+     * section XML을 stream으로 읽으면서 hp:p 문단 단위로 parse한다. section 전체를 Document로 만들지 않는다.
+     */
+    boolean read(InputStream is, int version, IContext context) throws NotImplementedException, XMLStreamException, ParserConfigurationException {
+        paraList = new ArrayList<HwpParagraph>();
+        
+        try (SectionXmlReader reader = new SectionXmlReader(is)) {
+            Element node;
+            while ((node = reader.nextParagraph()) != null) {
+                HwpParagraph para = new HwpParagraph(node, version, context);
+                paraList.add(para);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 압축하지 않은 section 전체를 parse한다. (tests.bench.SectionParseBench에서도 사용한다)
+     */
+    public boolean parse(byte[] buf, int version) throws HwpParseException {
+        return parse(buf, buf.length, version);
+    }
+    
+    boolean parse(byte[] buf, int length, int version) throws HwpParseException {
+        parseRecords(buf, 0, length, version, true);
+        return true;
+    }
+    
+    /**
+     * InputStream(압축해제 stream 등)에서 record를 읽어가며 parse한다.
+     * level 0 record(문단)와 그 하위 record들을 모아서 parse하므로, section 전체가 아니라 가장 큰 문단 하나만큼만 buffer에 남는다.
+     */
+    boolean parse(InputStream is, int version) throws HwpParseException, IOException {
+        HwpRecordReader reader = new HwpRecordReader(is);
+        while (reader.next()) {
+            if (reader.level()==0) {
+                if (reader.isMarked()) {
+                    parseRecords(reader.buffer(), reader.markOffset(), reader.recordOffset(), version, false);
+                }
+                reader.mark();
+            }
+        }
+        if (reader.isMarked()) {
+            parseRecords(reader.buffer(), reader.markOffset(), reader.limit(), version, false);
+        }
+        return true;
+    }
+    
+    /**
+     * @param countRecords record를 HwpTag별로 센다. stream에서 읽을 때는 HwpRecordReader.next()에서 이미 셌다.
+     */
+    private void parseRecords(byte[] buf, int start, int end, int version, boolean countRecords) throws HwpParseException {
+        int off = start;
+        bufLength = end;
+        header = new HwpRecordReader(buf, start, end-start);
+        if (countRecords) {
+            header.countOnRead();
+        }
+        // 하위 level record가 속할 문단. 매번 paraList를 훑지 않도록 마지막 문단을 들고 있는다.
+        HwpParagraph currPara = paraList.isEmpty() ? null : paraList.get(paraList.size()-1);
         
-        while(off < buf.length) {
-            int header = buf[off+3]<<24&0xFF000000 | buf[off+2]<<16&0xFF0000 | buf[off+1]<<8&0xFF00 | buf[off]&0xFF;
-            int tagNum = header&0x3FF;				// 10 bits (0 - 9 bit)
-            int level = (header&0xFFC00)>>>10;		// 10 bits (10-19 bit)
-            int size =  (header&0xFFF00000)>>>20;	// 12 bits (20-31 bit)
+        while(off < bufLength) {
+            if (header.readAt(off)==false) {
+                break;
+            }
+            int tagNum = header.tagNum();
+            int level = header.level();
+            int size = header.size();
             
             if (level>0) {
-                HwpParagraph para = paraList.stream().reduce((a,b)->b).get();
-                off += parseRecurse(para, level, buf, off, version);
-            } else {
-                
-                if (size==0xFFF) {
-                    size = buf[off+7]<<24&0xFF000000 | buf[off+6]<<16&0xFF0000 | buf[off+5]<<8&0xFF00 | buf[off+4]&0xFF;
-                    off += 8;
-                } else {
-                    off += 4;
+                if (currPara == null) {
+                    log.warning("No paragraph for record(" + tagNum + ") at level " + level + ". skip");
+                    off = header.offset() + size;
+                    continue;
                 }
+                off += parseRecurse(currPara, level, buf, off, version);
+            } else {
+                off = header.offset();
                 
                 HwpTag tag = HwpTag.from(tagNum);
-                log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())+"[TAG]="+tag.toString()+" ("+size+")");
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())+"[TAG]="+tag.toString()+" ("+size+")");
+                }
                 
                 if (level==0 && tag==HwpTag.HWPTAG_PARA_HEADER) {
-                    HwpParagraph currPara = HwpParagraph.parse(tagNum, level, size, buf, off, version);
+                    currPara = HwpParagraph.parse(tagNum, level, size, buf, off, version);
                     paraList.add(currPara);
                     off += size;
                 }
             }
         }
-        
-        return true;
     }
     
     private int parseRecurse(HwpParagraph currPara, int runLevel, byte[] buf, int off, int version) throws HwpParseException {
         int offset = off;
         
-        while(offset < buf.length) {
-            int header = buf[offset+3]<<24&0xFF000000 | buf[offset+2]<<16&0xFF0000 | buf[offset+1]<<8&0xFF00 | buf[offset]&0xFF;
-            int tagNum = header&0x3FF;				// 10 bits (0 - 9 bit)
-            int level = (header&0xFFC00)>>>10;		// 10 bits (10-19 bit)
-            int size =  (header&0xFFF00000)>>>20;	// 12 bits (20-31 bit)
-            int headerOffset = 0;
-            
-            if (size==0xFFF) {
-                size = buf[offset+7]<<24&0xFF000000 | buf[offset+6]<<16&0xFF0000 | buf[offset+5]<<8&0xFF00 | buf[offset+4]&0xFF;
-                headerOffset = 8;
-            } else {
-                headerOffset = 4;
+        while(offset < bufLength) {
+            if (header.readAt(offset)==false) {
+                break;
             }
+            int tagNum = header.tagNum();
+            int level = header.level();
+            int size = header.size();
+            int headerOffset = header.headerSize();
             
             if (level < runLevel) {
                 break;
@@ -164,7 +236,9 @@ public class HwpSection {
             
             HwpTag tag = HwpTag.from(tagNum);
             if (level > runLevel) {
-                log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())+"[TAG]="+tag.toString()+" > runLevel");
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())+"[TAG]="+tag.toString()+" > runLevel");
+                }
                 
                 switch(tag) {
                 case HWPTAG_PARA_HEADER:
@@ -177,7 +251,7 @@ public class HwpSection {
                     break;
                 case HWPTAG_TABLE:
                     {
-                        Ctrl_Table table = (Ctrl_Table)currPara.p.stream().filter(c -> (c instanceof Ctrl_Table)).reduce((a,b)->b).get();
+                        Ctrl_Table table = (Ctrl_Table)lastOf(currPara.p, c -> (c instanceof Ctrl_Table)).get();
                         offset += parseCtrlRecurse(table, level, buf, offset, version);
                     }
                     break;
@@ -189,7 +263,7 @@ public class HwpSection {
                 case HWPTAG_FOOTNOTE_SHAPE:
                 case HWPTAG_PAGE_BORDER_FILL:
                     {   // dces 컨트롤에서만 처리
-                        Ctrl_SectionDef ctrlSecd = (Ctrl_SectionDef)currPara.p.stream().filter(c -> (c.ctrlId.equals("dces"))).reduce((a,b)->b).get();
+                        Ctrl_SectionDef ctrlSecd = (Ctrl_SectionDef)lastOf(currPara.p, c -> (c.ctrlId.equals("dces"))).get();
                         offset += parseCtrlRecurse(ctrlSecd, level, buf, offset, version);
                     }
                     break;
@@ -206,7 +280,7 @@ public class HwpSection {
                 case HWPTAG_SHAPE_COMPONENT_TEXTART:
                 case HWPTAG_SHAPE_COMPONENT_UNKNOWN:
                     {   // " osg" 컨트롤에서만 처리
-                        Ctrl_GeneralShape ctrlGeneral = (Ctrl_GeneralShape)currPara.p.stream().filter(c -> (c.ctrlId.equals(" osg"))).reduce((a,b)->b).get();
+                        Ctrl_GeneralShape ctrlGeneral = (Ctrl_GeneralShape)lastOf(currPara.p, c -> (c.ctrlId.equals(" osg"))).get();
                         offset += parseCtrlRecurse(ctrlGeneral, level, buf, offset, version);
                     }
                     break;
@@ -219,13 +293,15 @@ public class HwpSection {
                 default:
                     {
                         // 마지막 컨트롤을 기준으로 parseRecurse
-                        Ctrl_Common ctrlCommon = (Ctrl_Common) currPara.p.stream().filter(c -> (c instanceof Ctrl_Common)).reduce((a,b)->b).get();
+                        Ctrl_Common ctrlCommon = (Ctrl_Common) lastOf(currPara.p, c -> (c instanceof Ctrl_Common)).get();
                         offset += parseCtrlRecurse(ctrlCommon, level, buf, offset, version);
                     }
                 }
             } else if (level==runLevel) {
                 offset += headerOffset;
-                log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())+"[TAG]="+tag.toString()+" ("+size+") = runLevel");
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())+"[TAG]="+tag.toString()+" ("+size+") = runLevel");
+                }
                 
                 switch(tag) {
                 case HWPTAG_PARA_HEADER:
@@ -281,7 +357,7 @@ public class HwpSection {
                         }
                             
                         if (ctrl instanceof Ctrl_HeadFoot) {
-                            Optional<Ctrl> secd2Op = currPara.p.stream().filter(c -> (c.ctrlId.equals("dces"))).reduce((a,b)->b);
+                            Optional<Ctrl> secd2Op = lastOf(currPara.p, c -> (c.ctrlId.equals("dces")));
                             if (secd2Op.isPresent()) {
                                 Ctrl_SectionDef secd = (Ctrl_SectionDef) secd2Op.get();
                                 if (secd.headerFooter==null) secd.headerFooter = new ArrayList<Ctrl_HeadFoot>();
@@ -340,19 +416,14 @@ public class HwpSection {
         int offset = off;
         Ctrl ctrl = currCtrl;
         
-        while (offset < buf.length) {
-            int header = buf[offset + 3] << 24 & 0xFF000000 | buf[offset + 2] << 16 & 0xFF0000 | buf[offset + 1] << 8 & 0xFF00 | buf[offset] & 0xFF;
-            int tagNum = header & 0x3FF; // 10 bits (0 - 9 bit)
-            int level = (header & 0xFFC00) >>> 10; // 10 bits (10-19 bit)
-            int size = (header & 0xFFF00000) >>> 20; // 12 bits (20-31 bit)
-            int headerOffset = 0;
-            
-            if (size == 0xFFF) {
-                size = buf[off + 7] << 24 & 0xFF000000 | buf[off + 6] << 16 & 0xFF0000 | buf[off + 5] << 8 & 0xFF00 | buf[off + 4] & 0xFF;
-                headerOffset = 8;
-            } else {
-                headerOffset = 4;
+        while (offset < bufLength) {
+            if (header.readAt(offset)==false) {
+                break;
             }
+            int tagNum = header.tagNum();
+            int level = header.level();
+            int size = header.size();
+            int headerOffset = header.headerSize();
             
             if (level < runLevel) {
                 break;
@@ -360,8 +431,10 @@ public class HwpSection {
             
             HwpTag tag = HwpTag.from(tagNum);
             if (level > runLevel) {
-                log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())
-                        + "[TAG]=" + tag.toString() + " (" + size + ") > runLevel");
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())
+                            + "[TAG]=" + tag.toString() + " (" + size + ") > runLevel");
+                }
                 
                 switch (tag) {
                 case HWPTAG_PARA_HEADER:
@@ -471,8 +544,10 @@ public class HwpSection {
                 }
             } else if (level == runLevel) {
                 offset += headerOffset;
-                log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())
-                        + "[TAG]=" + tag.toString() + " (" + size + ") = runLevel");
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())
+                            + "[TAG]=" + tag.toString() + " (" + size + ") = runLevel");
+                }
                 
                 switch (tag) {
                 case HWPTAG_PARA_HEADER:
@@ -487,7 +562,8 @@ public class HwpSection {
                             offset += parseRecurse(newPara, level, buf, offset, version);
                         } else {
                             // 마지막 cell 내 para list에 PARA 추가
-                            TblCell cell = ((Ctrl_Table) ctrl).cells.stream().reduce((a, b) -> b).get();
+                            List<TblCell> cells = ((Ctrl_Table) ctrl).cells;
+                            TblCell cell = cells.get(cells.size() - 1);
                             if (cell.paras == null)
                                 cell.paras = new ArrayList<CellParagraph>();
                             CellParagraph newPara = new CellParagraph();
@@ -709,19 +785,14 @@ public class HwpSection {
             throws HwpParseException {
         int offset = off;
 
-        while (offset < buf.length) {
-            int header = buf[offset + 3] << 24 & 0xFF000000 | buf[offset + 2] << 16 & 0xFF0000 | buf[offset + 1] << 8 & 0xFF00 | buf[offset] & 0xFF;
-            int tagNum = header & 0x3FF; // 10 bits (0 - 9 bit)
-            int level = (header & 0xFFC00) >>> 10; // 10 bits (10-19 bit)
-            int size = (header & 0xFFF00000) >>> 20; // 12 bits (20-31 bit)
-            int headerOffset = 0;
-
-            if (size == 0xFFF) {
-                size = buf[off + 7] << 24 & 0xFF000000 | buf[off + 6] << 16 & 0xFF0000 | buf[off + 5] << 8 & 0xFF00 | buf[off + 4] & 0xFF;
-                headerOffset = 8;
-            } else {
-                headerOffset = 4;
+        while (offset < bufLength) {
+            if (header.readAt(offset)==false) {
+                break;
             }
+            int tagNum = header.tagNum();
+            int level = header.level();
+            int size = header.size();
+            int headerOffset = header.headerSize();
 
             if (level < runLevel) {
                 break;
@@ -730,15 +801,17 @@ public class HwpSection {
             HwpTag tag = HwpTag.from(tagNum);
             if (level > runLevel) {
                 offset += headerOffset;
-                log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())
-                        + "[TAG]=" + tag.toString() + " (" + size + ") > runLevel");
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())
+                            + "[TAG]=" + tag.toString() + " (" + size + ") > runLevel");
+                }
 
                 switch (tag) {
                 case HWPTAG_SHAPE_COMPONENT_PICTURE: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_ShapePic)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_ShapePic));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -753,8 +826,8 @@ public class HwpSection {
                 case HWPTAG_SHAPE_COMPONENT_LINE: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_ShapeLine)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_ShapeLine));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -769,8 +842,8 @@ public class HwpSection {
                 case HWPTAG_SHAPE_COMPONENT_RECTANGLE: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_ShapeRect)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_ShapeRect));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -785,8 +858,8 @@ public class HwpSection {
                 case HWPTAG_SHAPE_COMPONENT_ELLIPSE: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_ShapeEllipse)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_ShapeEllipse));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -801,8 +874,8 @@ public class HwpSection {
                 case HWPTAG_SHAPE_COMPONENT_ARC: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_ShapeArc)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_ShapeArc));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -817,8 +890,8 @@ public class HwpSection {
                 case HWPTAG_SHAPE_COMPONENT_POLYGON: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_ShapePolygon)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_ShapePolygon));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -833,8 +906,8 @@ public class HwpSection {
                 case HWPTAG_SHAPE_COMPONENT_CURVE: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_ShapeCurve)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_ShapeCurve));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -849,8 +922,8 @@ public class HwpSection {
                 case HWPTAG_SHAPE_COMPONENT_OLE: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_ShapeOle)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_ShapeOle));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -865,8 +938,8 @@ public class HwpSection {
                 case HWPTAG_EQEDIT: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_EqEdit)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_EqEdit));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -881,8 +954,8 @@ public class HwpSection {
                 case HWPTAG_SHAPE_COMPONENT_TEXTART: {
                     Ctrl_GeneralShape ctrl = null;
                     if (container.list != null) {
-                        Optional<Ctrl_GeneralShape> opCtrl = container.list.stream()
-                                .filter(c -> (c instanceof Ctrl_ShapeTextArt)).reduce((a, b) -> b);
+                        Optional<Ctrl_GeneralShape> opCtrl = lastOf(container.list,
+                                c -> (c instanceof Ctrl_ShapeTextArt));
                         if (opCtrl.isPresent()) {
                             ctrl = opCtrl.get();
                         }
@@ -895,7 +968,7 @@ public class HwpSection {
                 }
                     break;
                 case HWPTAG_LIST_HEADER: {
-                    Ctrl_Common ctrl = container.list.stream().reduce((a, b) -> b).get();
+                    Ctrl_Common ctrl = container.list.get(container.list.size() - 1);
                     int subParaCount = HwpRecord_ListHeader.getCount(tagNum, level, size, buf, offset, version);
                     offset += 6; // 문단수 2byte, 속성 4byte
 
@@ -941,8 +1014,10 @@ public class HwpSection {
                 }
             } else if (level == runLevel) {
                 offset += headerOffset;
-                log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())
-                        + "[TAG]=" + tag.toString() + " (" + size + ") = runLevel");
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine(IntStream.rangeClosed(0, level).mapToObj(i -> String.valueOf(i)).collect(Collectors.joining())
+                            + "[TAG]=" + tag.toString() + " (" + size + ") = runLevel");
+                }
 
                 switch (tag) {
                 case HWPTAG_PARA_HEADER:
@@ -990,6 +1065,21 @@ public class HwpSection {
         return offset - off;
     }
 
+    /**
+     * list의 뒤에서부터 찾아서 조건에 맞는 마지막 항목을 돌려준다.
+     * stream().filter().reduce((a,b)->b)와 같지만 앞에서부터 전체를 훑지 않는다.
+     */
+    private static <T> Optional<T> lastOf(List<T> list, Predicate<? super T> filter) {
+        ListIterator<T> it = list.listIterator(list.size());
+        while (it.hasPrevious()) {
+            T item = it.previous();
+            if (filter.test(item)) {
+                return Optional.of(item);
+            }
+        }
+        return Optional.empty();
+    }
+
     private int parseListAppend(Ctrl_Common obj, int size, byte[] buf, int off, int version) throws HwpParseException {
         int len = 0;
 
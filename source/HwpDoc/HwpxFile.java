@@ -22,16 +22,19 @@ package HwpDoc;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 import java.util.zip.DataFormatException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
@@ -45,6 +48,8 @@ import HwpDoc.paragraph.HwpParagraph;
 
 public class HwpxFile {
     private static final Logger log = Logger.getLogger(HwpxFile.class.getName());
+    private static final Metrics.Histogram docInfoPhase = Metrics.histogram("phase.docinfo", "ns");
+    private static final Metrics.Histogram sectionsPhase = Metrics.histogram("phase.sections", "ns");
     
     public	String filename;
     public	OwpmlFile owplmFile;
@@ -56,6 +61,9 @@ public class HwpxFile {
     // Let's have member that are needed for showing in LibreOffice
     public	List<DirectoryEntry> directoryBinData;
     public	List<HwpParagraph>  paraList;
+    private	BinDataCache binDataCache = new BinDataCache();
+    private	int parseThreads = SectionParser.DEFAULT_THREADS;
+    private	Runnable cancelCheck;       // section을 읽기 전마다 부른다.
     
     
     public HwpxFile(String filename) throws FileNotFoundException {
@@ -74,6 +82,17 @@ public class HwpxFile {
         sections = new ArrayList<HwpSection>();
     }
 
+    /**
+     * 파일이 아닌 channel(메모리에 읽어둔 문서 등)에서 읽는다. name은 log 등에 쓰는 이름.
+     */
+    public HwpxFile(FileChannel channel, String name) {
+        owplmFile = new OwpmlFile(channel);
+        this.filename = name;
+        fileHeader = new HwpFileHeader();
+        docInfo = new HwpDocInfo(this);
+        sections = new ArrayList<HwpSection>();
+    }
+
     public OwpmlFile getOwpmlFile() {
         return owplmFile;
     }
@@ -104,18 +123,95 @@ public class HwpxFile {
     public void open(IContext context) throws HwpDetectException, IOException, DataFormatException,  
                                 ParserConfigurationException, SAXException, OwpmlParseException, 
                                 HwpParseException, NotImplementedException {
+        openDocInfo();
+        
+        // Contents/SectionX.xml 을 읽는다.
+        long start = sectionsPhase.start();
+        List<String> sectionNames = owplmFile.getSections();
+        if (parseThreads <= 1 || sectionNames.size() <= 1) {
+            for (String section: sectionNames) {
+                readSection(section, version, context);
+            }
+            sectionsPhase.stop(start);
+            return;
+        }
+        
+        // section끼리는 서로 독립적이므로 동시에 parse하고, 순서는 그대로 유지한다.
+        List<Callable<HwpSection>> tasks = new ArrayList<Callable<HwpSection>>();
+        for (String section: sectionNames) {
+            tasks.add(() -> parseSection(section, version, context));
+        }
+        try {
+            sections.addAll(SectionParser.parseAll(tasks, parseThreads));
+            sectionsPhase.stop(start);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)                   throw (IOException)cause;
+            if (cause instanceof DataFormatException)           throw (DataFormatException)cause;
+            if (cause instanceof ParserConfigurationException)  throw (ParserConfigurationException)cause;
+            if (cause instanceof SAXException)                  throw (SAXException)cause;
+            if (cause instanceof NotImplementedException)       throw (NotImplementedException)cause;
+            if (cause instanceof RuntimeException)              throw (RuntimeException)cause;
+            if (cause instanceof Error)                         throw (Error)cause;
+            throw new HwpParseException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HwpParseException(e);
+        }
+    }
+    
+    /**
+     * version.xml과 header.xml만 읽는다. 본문은 readSections()로 section 하나씩 읽는다.
+     */
+    public void openDocInfo() throws HwpDetectException, IOException, DataFormatException,  
+                                ParserConfigurationException, SAXException, OwpmlParseException, 
+                                HwpParseException, NotImplementedException {
         if (fileHeader.version==null) {
             detect();
         }
         version = Integer.parseInt(fileHeader.version);
         
+        long start = docInfoPhase.start();
         if (getDocInfo(version)==false) 
             throw new OwpmlParseException();
+        docInfoPhase.stop(start);
         log.fine("DocInfo parsed");
-        
-        // Contents/SectionX.xml 을 읽는다.
-        for (String section: owplmFile.getSections()) {
-            readSection(section, version, context);
+    }
+    
+    /**
+     * openDocInfo() 다음에 Contents/sectionN.xml 을 순서대로 하나씩 읽어 handler에 넘긴다.
+     * 읽은 section은 getSections()에 보관하지 않으므로, 문서가 커도 section 하나만큼의 메모리만 쓴다.
+     */
+    public void readSections(IContext context, HwpSection.Handler handler) throws IOException, DataFormatException, 
+                                                                ParserConfigurationException, SAXException, NotImplementedException {
+        List<String> sectionNames = owplmFile.getSections();
+        long parseNanos = 0;    // handler에서 쓴 시간은 빼고 section을 읽은 시간만 더한다.
+        for (int i=0; i < sectionNames.size(); i++) {
+            long start = sectionsPhase.start();
+            HwpSection section = parseSection(sectionNames.get(i), version, context);
+            parseNanos += sectionsPhase.start() - start;
+            handler.handle(i, section);
+        }
+        sectionsPhase.record(parseNanos);
+    }
+    
+    /**
+     * Contents/sectionN.xml 들을 동시에 parse할 thread 수를 정한다. 1이면 순서대로 parse한다.
+     */
+    public void setParseThreads(int threads) {
+        this.parseThreads = Math.max(1, threads);
+    }
+    
+    /**
+     * section을 읽기 전마다 부를 중단 확인을 정한다. 변환을 멈추려면 RuntimeException을 던지면 된다.
+     */
+    public void setCancelCheck(Runnable cancelCheck) {
+        this.cancelCheck = cancelCheck;
+    }
+    
+    private void checkCancelled() {
+        if (cancelCheck != null) {
+            cancelCheck.run();
         }
     }
     
@@ -138,25 +234,32 @@ public class HwpxFile {
     public boolean readSection(String name, int version, IContext context) throws IOException, DataFormatException, 
                                                                 ParserConfigurationException, SAXException, NotImplementedException {
         
-        Document document = getDocument(name);
-        
-        HwpSection hwpSection = new HwpSection(this);
-        hwpSection.read(document, version, context);
-            
-        sections.add(hwpSection);
+        sections.add(parseSection(name, version, context));
         return true;
     }
     
+    private HwpSection parseSection(String name, int version, IContext context) throws IOException, DataFormatException, 
+                                                                ParserConfigurationException, SAXException, NotImplementedException {
+        checkCancelled();
+        HwpSection hwpSection = new HwpSection(this);
+        try (InputStream is = owplmFile.getInputStream(name)) {
+            // section 전체를 DOM으로 만들지 않고 문단 단위로 읽는다.
+            hwpSection.read(is, version, context);
+        } catch (XMLStreamException e) {
+            throw new SAXException(e);
+        }
+        return hwpSection;
+    }
+    
     public Document getDocument(String entryName) throws IOException, ParserConfigurationException, SAXException, DataFormatException {
         
-        InputStream is = owplmFile.getInputStream(entryName);
-        
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        return builder.parse(is);
+        try (InputStream is = owplmFile.getInputStream(entryName)) {
+            return XmlParsers.documentBuilder().parse(is);
+        }
     }
     
     public void close() throws IOException {
+        binDataCache.clear();
         owplmFile.close();
     }
     
@@ -164,13 +267,29 @@ public class HwpxFile {
         return owplmFile.getBinData(shortName);
     }
     
+    /**
+     * BinData를 읽어서 돌려준다. 같은 BinData는 한번만 읽고 압축해제하여 캐시에서 공유한다.
+     * 돌려주는 byte[]는 공유되므로 수정하면 안된다.
+     */
     public byte[] getBinDataByIDRef(String shortName) throws IOException, DataFormatException {
         String entry = owplmFile.getBinData(shortName);
-        return owplmFile.getBytes(entry);
+        return getBinDataByEntry(entry);
+    }
+    
+    /**
+     * BinData를 stream으로 돌려준다. 캐시에 있으면 캐시된 내용을 사용한다.
+     */
+    public InputStream getBinDataStreamByIDRef(String shortName) throws IOException, DataFormatException {
+        String entry = owplmFile.getBinData(shortName);
+        byte[] cached = binDataCache.peek(entry);
+        if (cached != null) {
+            return new ByteArrayInputStream(cached);
+        }
+        return owplmFile.getInputStream(entry);
     }
     
     public byte[] getBinDataByEntry(String entry) throws IOException, DataFormatException {
-        return owplmFile.getBytes(entry);
+        return binDataCache.get(entry, () -> owplmFile.getBytes(entry));
     }
     
     public List<HwpParagraph> getParaList() {
@@ -0,0 +1,184 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 메모리에 읽어둔 문서를 읽기전용 FileChannel 처럼 다룬다.
+ * 파일로 저장하지 않고 InputStream으로 받은 문서를 CompoundFile, OwpmlFile에서 그대로 읽기 위해 사용한다.
+ * 위치를 지정한 read는 여러 thread에서 동시에 사용할 수 있다.
+ */
+public class MemoryChannel extends FileChannel {
+    private final ByteBuffer buffer;
+    private long position;
+
+    public MemoryChannel(byte[] buf, int length) {
+        this(ByteBuffer.wrap(buf, 0, length).slice());
+    }
+
+    public MemoryChannel(ByteBuffer buffer) {
+        this.buffer = buffer.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * 문서 전체. 돌려받은 buffer의 position, limit은 바꿔도 된다.
+     */
+    public ByteBuffer buffer() {
+        return buffer.duplicate();
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        int count = read(dst, position);
+        if (count > 0) {
+            position += count;
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int count = read(dsts[i]);
+            if (count < 0) {
+                return total == 0 ? -1 : total;
+            }
+            total += count;
+            if (dsts[i].hasRemaining()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        ensureOpen();
+        if (position >= buffer.limit()) {
+            return -1;
+        }
+        ByteBuffer src = buffer.duplicate();
+        src.position((int)position);
+        int count = Math.min(src.remaining(), dst.remaining());
+        src.limit(src.position() + count);
+        dst.put(src);
+        return count;
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized FileChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException();
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return buffer.limit();
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        ensureOpen();
+        if (position >= buffer.limit()) {
+            return 0;
+        }
+        ByteBuffer src = buffer.duplicate();
+        src.position((int)position);
+        src.limit((int)Math.min(buffer.limit(), position + count));
+        return target.write(src);
+    }
+
+    /** 파일로 map 할 수 없으므로 buffer()를 사용한다. */
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        throw new UnsupportedOperationException("memory channel can't be mapped");
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public FileChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public void force(boolean metaData) {
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void implCloseChannel() {
+    }
+
+    private void ensureOpen() throws IOException {
+        if (isOpen() == false) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,446 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 변환 통계. Counter와 Histogram은 이름으로 한번 만들어 static final로 들고 값을 더한다.
+ * 값은 JVM 전체 합계와, begin()으로 시작한 변환(Summary)에 함께 더해진다.
+ * JVM 전체 합계는 JMX(H2Orestart:type=Metrics)로 볼 수 있다.
+ * -DH2Orestart.metrics=false 이면 아무것도 세지 않는다.
+ */
+public final class Metrics {
+    private static final Logger log = Logger.getLogger(Metrics.class.getName());
+
+    public static final boolean ENABLED = "false".equalsIgnoreCase(System.getProperty("H2Orestart.metrics")) == false;
+    // -DH2Orestart.metrics.summary=true 이면 변환이 끝날 때 Summary를 로그에 남긴다.
+    public static final boolean LOG_SUMMARY = Boolean.getBoolean("H2Orestart.metrics.summary");
+
+    public static final String OBJECT_NAME = "H2Orestart:type=Metrics";
+
+    private static final int MAX_IDS = 512;         // Summary에 담을 수 있는 counter, histogram 수
+    private static final int RECENT_SUMMARIES = 16;
+
+    private static final Map<String, Counter> counters = new TreeMap<String, Counter>();
+    private static final Map<String, Histogram> histograms = new TreeMap<String, Histogram>();
+    private static final Deque<String> recent = new ArrayDeque<String>();
+
+    // 변환 thread의 Summary. section parse thread처럼 다른 thread에서 일을 할 때는 attach()로 붙인다.
+    private static final ThreadLocal<Summary> current = new ThreadLocal<Summary>();
+
+    static {
+        if (ENABLED) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name) == false) {
+                    server.registerMBean(new MetricsBean(), name);
+                }
+            } catch (JMException | SecurityException | LinkageError e) {
+                log.fine("Metrics MBean not registered. " + e.getMessage());
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static synchronized Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter(name, counters.size());
+            counters.put(name, counter);
+        }
+        return counter;
+    }
+
+    /**
+     * @param unit "ns"이면 시간, 그 외에는 값 그대로 보여준다. (예: "bytes")
+     */
+    public static synchronized Histogram histogram(String name, String unit) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram(name, unit, histograms.size());
+            histograms.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    public static final class Counter {
+        private final String name;
+        private final int id;
+        private final LongAdder total = new LongAdder();
+
+        private Counter(String name, int id) {
+            this.name = name;
+            this.id = id < MAX_IDS ? id : -1;
+        }
+
+        public void increment() {
+            add(1);
+        }
+
+        public void add(long n) {
+            if (ENABLED) {
+                total.add(n);
+                Summary summary = current.get();
+                if (summary != null && id >= 0) {
+                    summary.counts.addAndGet(id, n);
+                }
+            }
+        }
+
+        public long get() {
+            return total.sum();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * 값의 분포. 2의 거듭제곱 구간(bucket)마다 개수를 세므로 백분위수는 구간의 상한으로 어림한다.
+     */
+    public static final class Histogram {
+        private final String name;
+        private final String unit;
+        private final int id;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] buckets = new LongAdder[64];     // buckets[i]: 2^(i-1) <= value < 2^i, buckets[0]: 0
+
+        private Histogram(String name, String unit, int id) {
+            this.name = name;
+            this.unit = unit;
+            this.id = id < MAX_IDS ? id : -1;
+            for (int i=0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long value) {
+            if (ENABLED) {
+                long v = Math.max(value, 0);
+                count.increment();
+                sum.add(v);
+                max.accumulate(v);
+                buckets[64 - Long.numberOfLeadingZeros(v)].increment();
+                Summary summary = current.get();
+                if (summary != null && id >= 0) {
+                    summary.histCounts.incrementAndGet(id);
+                    summary.histSums.addAndGet(id, v);
+                }
+            }
+        }
+
+        /**
+         * begin() 전에 record()한 값을 지금 변환의 Summary에도 더한다. (TypeDetection에서 먼저 한 detect 등)
+         * @param recordedAt record()한 때의 System.nanoTime(). begin() 뒤라면 이미 담겼으므로 더하지 않는다.
+         */
+        public void addToSummary(long value, long recordedAt) {
+            if (ENABLED) {
+                Summary summary = current.get();
+                if (summary != null && id >= 0 && recordedAt - summary.started < 0) {
+                    summary.histCounts.incrementAndGet(id);
+                    summary.histSums.addAndGet(id, Math.max(value, 0));
+                }
+            }
+        }
+
+        /**
+         * 시간을 잴 때 사용한다. long start = h.start(); ... h.stop(start);
+         */
+        public long start() {
+            return ENABLED ? System.nanoTime() : 0;
+        }
+
+        public void stop(long start) {
+            if (ENABLED) {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * @param p 0 ~ 1
+         */
+        public long getPercentile(double p) {
+            long total = 0;
+            long[] counts = new long[buckets.length];
+            for (int i=0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long rank = (long)Math.ceil(total * p);
+            long seen = 0;
+            for (int i=0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return i == 0 ? 0 : Math.min((1L << i) - 1, getMax());
+                }
+            }
+            return getMax();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        private String format(long value) {
+            return "ns".equals(unit) ? TimeUnit.NANOSECONDS.toMillis(value) + "ms" : value + unit;
+        }
+
+        private void reset() {
+            count.reset();
+            sum.reset();
+            max.reset();
+            for (LongAdder bucket: buckets) {
+                bucket.reset();
+            }
+        }
+    }
+
+    /**
+     * 변환 하나의 통계. begin()한 thread(와 attach()한 thread)에서 센 값만 담는다.
+     */
+    public static final class Summary {
+        private final String name;
+        private final long started = System.nanoTime();
+        private long elapsed = -1;
+        private final AtomicLongArray counts = new AtomicLongArray(MAX_IDS);
+        private final AtomicLongArray histCounts = new AtomicLongArray(MAX_IDS);
+        private final AtomicLongArray histSums = new AtomicLongArray(MAX_IDS);
+
+        private Summary(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 변환을 마친다. 이후 이 thread에서 센 값은 담지 않는다.
+         */
+        public Summary end() {
+            if (elapsed < 0) {
+                elapsed = System.nanoTime() - started;
+                if (current.get() == this) {
+                    current.remove();
+                }
+                String line = toString();
+                synchronized (recent) {
+                    recent.addFirst(line);
+                    while (recent.size() > RECENT_SUMMARIES) {
+                        recent.removeLast();
+                    }
+                }
+                if (LOG_SUMMARY) {
+                    log.info(line);
+                }
+            }
+            return this;
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsed < 0 ? System.nanoTime() - started : elapsed);
+        }
+
+        /** 0이 아닌 counter 값 */
+        public Map<String, Long> getCounters() {
+            Map<String, Long> map = new LinkedHashMap<String, Long>();
+            for (Counter counter: snapshotCounters()) {
+                if (counter.id >= 0 && counts.get(counter.id) != 0) {
+                    map.put(counter.name, counts.get(counter.id));
+                }
+            }
+            return map;
+        }
+
+        /** 0이 아닌 histogram 합계. 시간은 ms */
+        public Map<String, Long> getHistogramSums() {
+            Map<String, Long> map = new LinkedHashMap<String, Long>();
+            for (Histogram histogram: snapshotHistograms()) {
+                if (histogram.id >= 0 && histCounts.get(histogram.id) != 0) {
+                    long sum = histSums.get(histogram.id);
+                    map.put(histogram.name, "ns".equals(histogram.unit) ? TimeUnit.NANOSECONDS.toMillis(sum) : sum);
+                }
+            }
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("import ").append(name).append(" elapsed=").append(getElapsedMillis()).append("ms");
+            for (Histogram histogram: snapshotHistograms()) {
+                if (histogram.id >= 0 && histCounts.get(histogram.id) != 0) {
+                    sb.append(' ').append(histogram.name).append('=').append(histogram.format(histSums.get(histogram.id)))
+                      .append('/').append(histCounts.get(histogram.id));
+                }
+            }
+            for (Map.Entry<String, Long> entry: getCounters().entrySet()) {
+                sb.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 이 thread에서 변환 하나를 시작한다. 끝나면 Summary.end()를 불러야 한다.
+     */
+    public static Summary begin(String name) {
+        Summary summary = new Summary(name);
+        if (ENABLED) {
+            current.set(summary);
+        }
+        return summary;
+    }
+
+    /**
+     * 이 thread에서 진행 중인 변환의 Summary. 없으면 null
+     */
+    public static Summary currentSummary() {
+        return current.get();
+    }
+
+    /**
+     * 다른 thread(thread pool 등)에서 변환의 일부를 할 때 그 변환의 Summary에 더하도록 한다. 끝나면 detach()를 불러야 한다.
+     */
+    public static void attach(Summary summary) {
+        if (ENABLED && summary != null) {
+            current.set(summary);
+        }
+    }
+
+    public static void detach() {
+        current.remove();
+    }
+
+    private static synchronized Counter[] snapshotCounters() {
+        return counters.values().toArray(new Counter[0]);
+    }
+
+    private static synchronized Histogram[] snapshotHistograms() {
+        return histograms.values().toArray(new Histogram[0]);
+    }
+
+    private static class MetricsBean implements MetricsMXBean {
+
+        @Override
+        public Map<String, Long> getCounters() {
+            Map<String, Long> map = new TreeMap<String, Long>();
+            for (Counter counter: snapshotCounters()) {
+                map.put(counter.name, counter.get());
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getHistogramCounts() {
+            Map<String, Long> map = new TreeMap<String, Long>();
+            for (Histogram histogram: snapshotHistograms()) {
+                map.put(histogram.name, histogram.getCount());
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getHistogramSums() {
+            Map<String, Long> map = new TreeMap<String, Long>();
+            for (Histogram histogram: snapshotHistograms()) {
+                map.put(histogram.name + "(" + histogram.unit + ")", histogram.getSum());
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getHistogramMax() {
+            Map<String, Long> map = new TreeMap<String, Long>();
+            for (Histogram histogram: snapshotHistograms()) {
+                map.put(histogram.name + "(" + histogram.unit + ")", histogram.getMax());
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getHistogramP50() {
+            Map<String, Long> map = new TreeMap<String, Long>();
+            for (Histogram histogram: snapshotHistograms()) {
+                map.put(histogram.name + "(" + histogram.unit + ")", histogram.getPercentile(0.5));
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getHistogramP99() {
+            Map<String, Long> map = new TreeMap<String, Long>();
+            for (Histogram histogram: snapshotHistograms()) {
+                map.put(histogram.name + "(" + histogram.unit + ")", histogram.getPercentile(0.99));
+            }
+            return map;
+        }
+
+        @Override
+        public String[] getRecentImports() {
+            synchronized (recent) {
+                return recent.toArray(new String[0]);
+            }
+        }
+
+        @Override
+        public void reset() {
+            for (Counter counter: snapshotCounters()) {
+                counter.total.reset();
+            }
+            for (Histogram histogram: snapshotHistograms()) {
+                histogram.reset();
+            }
+            synchronized (recent) {
+                recent.clear();
+            }
+        }
+    }
+}
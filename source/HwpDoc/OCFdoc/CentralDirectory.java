@@ -0,0 +1,181 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc.OCFdoc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * ZIP 파일 끝의 End Of Central Directory와 Central Directory만 읽어서 entry 목록을 만든다.
+ * entry data를 읽거나 압축해제하지 않으므로, 파일 크기와 상관없이 끝부분의 작은 read 몇번으로 끝난다.
+ * ZIP64와 data descriptor(local header에 크기가 없는 경우)도 Central Directory의 값을 쓰므로 정확하다.
+ */
+class CentralDirectory {
+    private static final int EOCD_SIG           = 0x06054b50;
+    private static final int ZIP64_EOCD_SIG     = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG  = 0x07064b50;
+    private static final int CEN_SIG            = 0x02014b50;
+    private static final int LOC_SIG            = 0x04034b50;
+
+    private static final int EOCD_SIZE          = 22;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EOCD_SIZE    = 56;
+    private static final int CEN_SIZE           = 46;
+    static final int LOC_SIZE                   = 30;
+    private static final int MAX_COMMENT        = 0xFFFF;
+
+    /**
+     * @return entry 이름 순서대로 (Central Directory 순서) Offset 목록
+     */
+    static Map<String, OwpmlFile.Offset> read(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < EOCD_SIZE) {
+            throw new ZipException("too short for zip");
+        }
+
+        // 파일 끝 (comment 최대길이 + EOCD) 에서 EOCD signature를 뒤에서부터 찾는다.
+        int tailSize = (int)Math.min(fileSize, EOCD_SIZE + MAX_COMMENT);
+        long tailStart = fileSize - tailSize;
+        ByteBuffer tail = readFully(channel, tailStart, tailSize);
+        int eocd = -1;
+        for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIG && i + EOCD_SIZE + (tail.getShort(i+20)&0xFFFF) <= tailSize) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new ZipException("END header not found");
+        }
+        long eocdPos = tailStart + eocd;
+        long entries  = tail.getShort(eocd+10)&0xFFFF;
+        long cenSize  = tail.getInt(eocd+12)&0xFFFFFFFFL;
+        long cenOffset= tail.getInt(eocd+16)&0xFFFFFFFFL;
+        long cenEnd   = eocdPos;
+
+        if (entries == 0xFFFF || cenSize == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL) {
+            // ZIP64 End Of Central Directory Locator 가 EOCD 바로 앞에 있다.
+            if (eocdPos >= ZIP64_LOCATOR_SIZE) {
+                ByteBuffer locator = readFully(channel, eocdPos - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+                if (locator.getInt(0) == ZIP64_LOCATOR_SIG) {
+                    long zip64Pos = locator.getLong(8);
+                    ByteBuffer zip64 = readFully(channel, zip64Pos, ZIP64_EOCD_SIZE);
+                    if (zip64.getInt(0) != ZIP64_EOCD_SIG) {
+                        throw new ZipException("invalid zip64 END header");
+                    }
+                    entries   = zip64.getLong(32);
+                    cenSize   = zip64.getLong(40);
+                    cenOffset = zip64.getLong(48);
+                    cenEnd    = zip64Pos;
+                }
+            }
+        }
+        if (cenSize > cenEnd || cenSize > Integer.MAX_VALUE) {
+            throw new ZipException("invalid central directory size " + cenSize);
+        }
+        // zip 앞에 다른 data가 붙어 있으면 offset이 그만큼 밀려 있다.
+        long base = cenEnd - cenSize - cenOffset;
+        if (base < 0) {
+            throw new ZipException("invalid central directory offset " + cenOffset);
+        }
+
+        ByteBuffer cen = readFully(channel, base + cenOffset, (int)cenSize);
+        Map<String, OwpmlFile.Offset> offsets = new LinkedHashMap<>((int)Math.min(entries, 1<<16) * 4 / 3 + 1);
+        int pos = 0;
+        while (pos + CEN_SIZE <= cenSize && cen.getInt(pos) == CEN_SIG) {
+            int method     = cen.getShort(pos+10)&0xFFFF;
+            long compSize  = cen.getInt(pos+20)&0xFFFFFFFFL;
+            long size      = cen.getInt(pos+24)&0xFFFFFFFFL;
+            int nameLen    = cen.getShort(pos+28)&0xFFFF;
+            int extraLen   = cen.getShort(pos+30)&0xFFFF;
+            int commentLen = cen.getShort(pos+32)&0xFFFF;
+            long locOffset = cen.getInt(pos+42)&0xFFFFFFFFL;
+            if (pos + CEN_SIZE + nameLen + extraLen + commentLen > cenSize) {
+                throw new ZipException("invalid central directory header");
+            }
+
+            byte[] nameBytes = new byte[nameLen];
+            cen.position(pos + CEN_SIZE);
+            cen.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);    // ZipInputStream과 같이 UTF-8로 읽는다.
+
+            // ZIP64 extended information: 0xFFFFFFFF 인 값만 순서대로 들어 있다.
+            int extra = pos + CEN_SIZE + nameLen;
+            int extraEnd = extra + extraLen;
+            while (extra + 4 <= extraEnd) {
+                int id = cen.getShort(extra)&0xFFFF;
+                int len = cen.getShort(extra+2)&0xFFFF;
+                if (id == 0x0001) {
+                    int p = extra + 4;
+                    int end = Math.min(p + len, extraEnd);
+                    if (size == 0xFFFFFFFFL && p + 8 <= end) {
+                        size = cen.getLong(p);
+                        p += 8;
+                    }
+                    if (compSize == 0xFFFFFFFFL && p + 8 <= end) {
+                        compSize = cen.getLong(p);
+                        p += 8;
+                    }
+                    if (locOffset == 0xFFFFFFFFL && p + 8 <= end) {
+                        locOffset = cen.getLong(p);
+                    }
+                    break;
+                }
+                extra += 4 + len;
+            }
+
+            offsets.put(name, new OwpmlFile.Offset(base + locOffset, compSize, size, method));
+            pos += CEN_SIZE + nameLen + extraLen + commentLen;
+        }
+        return offsets;
+    }
+
+    /**
+     * local file header를 읽어서 data 시작 위치를 돌려준다.
+     * local header의 extra 길이는 Central Directory와 다를 수 있으므로 직접 읽어야 한다.
+     */
+    static long dataStart(FileChannel channel, long locOffset) throws IOException {
+        ByteBuffer loc = readFully(channel, locOffset, LOC_SIZE);
+        if (loc.getInt(0) != LOC_SIG) {
+            throw new ZipException("invalid LOC header at " + locOffset);
+        }
+        return locOffset + LOC_SIZE + (loc.getShort(26)&0xFFFF) + (loc.getShort(28)&0xFFFF);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            int count = channel.read(buf, position + buf.position());
+            if (count < 0) {
+                throw new EOFException();
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+}
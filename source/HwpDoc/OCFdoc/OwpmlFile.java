@@ -20,29 +20,39 @@
  */
 package HwpDoc.OCFdoc;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-
+import java.util.zip.ZipException;
 
+import HwpDoc.Metrics;
 
 public class OwpmlFile {
+    private static final Logger log = Logger.getLogger(OwpmlFile.class.getName());
+    private static final Metrics.Histogram streamRead = Metrics.histogram("stream.read", "bytes");
+    private static final Metrics.Histogram streamInflated = Metrics.histogram("stream.inflated", "bytes");
 
-    private HashMap<String, Offset> offsetMap = new HashMap<>();
+    private Map<String, Offset> offsetMap = new HashMap<>();
+    private Map<String, String> binDataMap = new HashMap<>();     // BinData ID (파일이름에서 확장자를 뺀 것) -> entry 이름
+    private List<String> sections = Collections.emptyList();
     private File file;
+    private FileChannel channel;    // 파일을 닫을 때까지 하나만 열어두고, 위치를 지정해서 읽는다.
 
     public OwpmlFile(String filename) throws FileNotFoundException {
         this(new File(filename));
@@ -52,47 +62,45 @@ public class OwpmlFile {
         this.file = file;
     }
     
+    /**
+     * 이미 열린 channel (메모리에 읽어둔 문서의 MemoryChannel 등)에서 읽는다. close()하면 channel도 닫는다.
+     */
+    public OwpmlFile(FileChannel channel) {
+        this.channel = channel;
+    }
+    
     public void open() {
-        
-        try (FileInputStream fileInputStream = new FileInputStream(this.file);
-             ZipInputStream zipInputStream = new ZipInputStream(fileInputStream)) {
-            
-            ZipEntry zipEntry = null;
-            long entryOffset = 0;
-            
-            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
-                entryOffset += 30 + zipEntry.getName().length() + (zipEntry.getExtra()==null ? 0 : zipEntry.getExtra().length);
-
-                long offsetStart = entryOffset;
-                entryOffset += zipEntry.getCompressedSize();
-                long offsetEnd = entryOffset;
-                int zipMethod = zipEntry.getMethod();
-                
-                offsetMap.put(zipEntry.getName(), new Offset(offsetStart, offsetEnd, zipMethod));
-                zipInputStream.closeEntry();
-            }
+        // 파일 끝의 Central Directory만 읽는다. entry data는 필요할 때 읽는다.
+        try {
+            offsetMap = CentralDirectory.read(channel());
+            buildIndex();
+        } catch (ZipException e) {
+            log.fine((file != null ? file : "stream") + " is not a zip file. " + e.getMessage());
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    public InputStream getInputStream(String entryName) throws IOException, DataFormatException {
-        Offset offset = offsetMap.get(entryName);
-        if (offset == null) {
-            throw new DataFormatException();
+    private synchronized FileChannel channel() throws IOException {
+        if (file != null && (channel == null || channel.isOpen() == false)) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
         }
-        long entrySize = (int)(offset.end - offset.start);
+        return channel;
+    }
 
-        byte[] buf = new byte[(int)entrySize];
-        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
-            raf.seek(offset.start);
-            int readLen = raf.read(buf, 0, (int)entrySize);
-            
-            if (offset.zipMethod == ZipEntry.DEFLATED) {
-                buf = unzip(buf, readLen);
-            }
+    /**
+     * entry를 stream으로 돌려준다. 파일에서 필요한 만큼씩 읽으며, 압축된 entry는 읽으면서 압축해제한다.
+     * 여러 thread에서 동시에 읽어도 된다.
+     */
+    public InputStream getInputStream(String entryName) throws IOException, DataFormatException {
+        Offset offset = getOffset(entryName);
+        FileChannel channel = channel();
+        InputStream is = new EntryInputStream(channel, dataStart(channel, offset), offset.compressedSize);
+        streamRead.record(offset.compressedSize);
+        if (offset.zipMethod == ZipEntry.DEFLATED) {
+            is = new EntryInflaterInputStream(is, (int)Math.min(Math.max(offset.compressedSize, 512), 64*1024));
         }
-        return new ByteArrayInputStream(buf);
+        return is;
     }
     
     public String findBinData(String shortName) {
@@ -100,24 +108,50 @@ public class OwpmlFile {
     }
 
     public byte[] getBytes(String entryName) throws IOException, DataFormatException {
-        Offset offset = offsetMap.get(entryName);
-        long entrySize = (int)(offset.end - offset.start);
+        Offset offset = getOffset(entryName);
+        FileChannel channel = channel();
         
-        byte[] buf = new byte[(int)entrySize];
-        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
-            raf.seek(offset.start);
-            int readLen = raf.read(buf, 0, (int)entrySize);
+        byte[] buf = new byte[(int)offset.compressedSize];
+        readFully(channel, ByteBuffer.wrap(buf), dataStart(channel, offset));
+        streamRead.record(buf.length);
+        if (offset.zipMethod == ZipEntry.DEFLATED) {
+            buf = unzip(buf, (int)offset.size);
+        }
+        return buf;
+    }
     
-            if (offset.zipMethod == ZipEntry.DEFLATED) {
-                buf = unzip(buf, readLen);
+    private Offset getOffset(String entryName) throws DataFormatException {
+        Offset offset = offsetMap.get(entryName);
+        if (offset == null) {
+            throw new DataFormatException();
+        }
+        return offset;
+    }
+    
+    private static long dataStart(FileChannel channel, Offset offset) throws IOException {
+        if (offset.start < 0) {
+            offset.start = CentralDirectory.dataStart(channel, offset.header);
+        }
+        return offset.start;
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        long pos = position;
+        while (buf.hasRemaining()) {
+            int count = channel.read(buf, pos);
+            if (count < 0) {
+                throw new EOFException();
             }
+            pos += count;
         }
-
-        return buf;
     }
     
-    public List<String> getSections() {
-        List<String> sections = offsetMap.keySet().stream().filter(s -> s.contains("section"))
+    /**
+     * entry 목록을 읽은 뒤 한번만 section 목록과 BinData 색인을 만든다.
+     */
+    private void buildIndex() {
+        sections = Collections.unmodifiableList(
+                        offsetMap.keySet().stream().filter(s -> s.contains("section"))
                                          .sorted((s1, s2) -> {
                                                 int lengthCompare = Integer.compare(s1.length(), s2.length());
                                                 if (lengthCompare != 0) {
@@ -125,46 +159,168 @@ public class OwpmlFile {
                                                 }
                                                 return s1.compareTo(s2);
                                             })
-                                         .collect(Collectors.toList());
+                                         .collect(Collectors.toList()));
+        
+        binDataMap = new HashMap<>();
+        for (String name: offsetMap.keySet()) {
+            if (name.startsWith("BinData")) {
+                int start = name.lastIndexOf('/') + 1;
+                int end = name.lastIndexOf('.');
+                if (end > start) {
+                    binDataMap.putIfAbsent(name.substring(start, end), name);
+                }
+            }
+        }
+    }
+    
+    public List<String> getSections() {
         return sections;
     }
     
     public String getBinData(String shortName) {
+        String entry = binDataMap.get(shortName);
+        if (entry != null) {
+            return entry;
+        }
+        // 색인에 없는 이름(확장자가 여러개인 경우 등)은 예전처럼 이름으로 찾는다.
         Optional<String> binData = offsetMap.keySet().stream().filter(s -> s.startsWith("BinData"))
                                                           .filter(s -> s.contains(shortName + ".")).findAny();
         return binData.orElse("");
     }
     
-    private byte[] unzip(byte[] input, int inLen) throws IOException, DataFormatException {
+    private byte[] unzip(byte[] input, int outLen) throws IOException, DataFormatException {
         Inflater decompressor = new Inflater(true);
-        decompressor.setInput(input, 0, input.length);
-        ByteArrayOutputStream bos = new ByteArrayOutputStream(inLen);
-
-        // Decompress the data
-        byte[] buf = new byte[8096];
-        while (!decompressor.finished()) {
-            int count = decompressor.inflate(buf);
-            if (count > 0) {
-                bos.write(buf, 0, count);
-            } else {
-                throw new IOException("can't decompress data");
+        try {
+            decompressor.setInput(input, 0, input.length);
+            // Central Directory의 크기만큼 한번에 받는다.
+            byte[] buf = new byte[outLen];
+            int len = 0;
+            while (len < outLen && !decompressor.finished()) {
+                int count = decompressor.inflate(buf, len, outLen - len);
+                if (count > 0) {
+                    len += count;
+                } else {
+                    throw new IOException("can't decompress data");
+                }
+            }
+            if (len < outLen) {
+                throw new IOException("entry is shorter than expected. " + len + "/" + outLen);
+            }
+            streamInflated.record(len);
+            return buf;
+        } finally {
+            decompressor.end();
+        }
+    }
+    
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            if (file != null) {
+                channel = null;
             }
         }
-        bos.close();
-        return bos.toByteArray();
     }
     
-    public void close() throws IOException {
+    /**
+     * FileChannel의 position을 쓰지 않고 위치를 지정해서 읽으므로, 하나의 channel을 여러 stream이 나눠 쓸 수 있다.
+     */
+    private static class EntryInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+        
+        EntryInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.remaining = length;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0]&0xFF;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(b, off, (int)Math.min(len, remaining)), position);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            position += count;
+            remaining -= count;
+            return count;
+        }
+        
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, remaining));
+            position += skipped;
+            remaining -= skipped;
+            return skipped;
+        }
+        
+        @Override
+        public int available() {
+            return (int)Math.min(remaining, Integer.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * 압축(raw deflate)된 entry를 읽으면서 압축해제한다. close()할 때 Inflater를 정리한다.
+     */
+    private static class EntryInflaterInputStream extends InflaterInputStream {
+        private boolean eof;
+        private boolean closed;
+        
+        EntryInflaterInputStream(InputStream in, int size) {
+            super(in, new Inflater(true), size);
+        }
+        
+        @Override
+        protected void fill() throws IOException {
+            if (eof) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                // nowrap Inflater는 입력 끝에 dummy byte가 하나 더 필요할 수 있다.
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            super.close();
+            if (!closed) {
+                closed = true;
+                streamInflated.record(inf.getBytesWritten());
+                inf.end();
+            }
+        }
     }
     
     public static class Offset {
-        long start;
-        long end;
+        long header;                // local file header 위치
+        volatile long start = -1;   // data 시작 위치. local file header를 처음 읽을 때 정해진다.
+        long compressedSize;
+        long size;
         int zipMethod;
         
-        public Offset(long start, long end, int zipMethod) {
-            this.start = start;
-            this.end = end;
+        public Offset(long header, long compressedSize, long size, int zipMethod) {
+            this.header = header;
+            this.compressedSize = compressedSize;
+            this.size = size;
             this.zipMethod = zipMethod;
         }
     }
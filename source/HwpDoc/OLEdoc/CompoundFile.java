@@ -20,31 +20,44 @@
  */
 package HwpDoc.OLEdoc;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import HwpDoc.ErrCode;
+import HwpDoc.MemoryChannel;
+import HwpDoc.Metrics;
 import HwpDoc.Exception.CompoundDetectException;
 
 
 public class CompoundFile {
 	private static final Logger log = Logger.getLogger(CompoundFile.class.getName());
+	private static final Metrics.Histogram streamRead = Metrics.histogram("stream.read", "bytes");
 
-	private RandomAccessFile raf;
+	private RandomAccessFile raf;		// channel로 문서를 넘겨받은 경우 null
+	private FileChannel channel;
+	private ByteBuffer mappedBuffer;	// open() 이후 파일 전체를 매핑 (메모리의 문서는 그 buffer). 2GB 초과 또는 매핑 실패시 null
+	private boolean useMappedBuffer = true;
 	private int minorVersion;
 	private int majorVersion;
 	private int sectorSize = 512;
@@ -59,11 +72,17 @@ public class CompoundFile {
 	private int num_MSAT;
 	private ArrayList<Sector> sectorList;
 	private ArrayList<Integer> SAT_list;	// Master SAT
-	private ArrayList<Integer> SSAT_SecID_list;
-	private ArrayList<Integer> Directory_SecID_list;
+	private int[] SSAT_SecID_list;
+	private int[] Directory_SecID_list;
+	private int[] fat;					// 전체 FAT. index=SecID, 값=다음 SecID
+	private int[] miniFat;				// 전체 MiniFAT
 	private ArrayList<Integer> SStream_SecID_list;
 	private ArrayList<Integer> SStream_list;
 	private ArrayList<DirectoryEntry> DirectoryEntry_list;
+	private Map<String, DirectoryEntry> entryIndex;	// 이름 -> entry
+	private Map<String, DirectoryEntry> pathIndex;	// 경로 -> entry
+	
+	private static final List<DirectoryEntry> EMPTY_CHILDREN = Collections.emptyList();
 	
 	
 	final static byte[] COMPOUND_SIGANTURE = { (byte)0xD0, (byte)0xCF, (byte)0x11, (byte)0xE0, (byte)0xA1, (byte)0xB1, (byte)0x1A, (byte)0xE1 };
@@ -73,71 +92,114 @@ public class CompoundFile {
 	}
 	
 	public CompoundFile(File file) throws FileNotFoundException {
-		raf = new RandomAccessFile(file, "r");
+		this(new RandomAccessFile(file, "r"));
+	}
+	
+	/**
+	 * 이미 열린 channel (메모리에 읽어둔 문서의 MemoryChannel 등)에서 읽는다. close()하면 channel도 닫는다.
+	 */
+	public CompoundFile(FileChannel channel) {
+		this((RandomAccessFile)null, channel);
+	}
+	
+	private CompoundFile(RandomAccessFile raf) {
+		this(raf, raf.getChannel());
+	}
+	
+	private CompoundFile(RandomAccessFile raf, FileChannel channel) {
+		this.raf = raf;
+		this.channel = channel;
 		sectorList = new ArrayList<Sector>();
 		SAT_list = new ArrayList<Integer>();
-		SSAT_SecID_list = new ArrayList<Integer>();
-		Directory_SecID_list = new ArrayList<Integer>();
+		SSAT_SecID_list = new int[0];
+		Directory_SecID_list = new int[0];
+		fat = new int[0];
+		miniFat = new int[0];
 		SStream_SecID_list = new ArrayList<Integer>();
 		SStream_list = new ArrayList<Integer>();
 		DirectoryEntry_list = new ArrayList<DirectoryEntry>();
+		entryIndex = new HashMap<String, DirectoryEntry>();
+		pathIndex = new HashMap<String, DirectoryEntry>();
+	}
+	
+	private void addSiblings(List<DirectoryEntry> children, int currentIndex, BitSet visited) {
+		// red-black tree를 in-order로 순회하여 이름순으로 형제들을 모은다.
+		Deque<Integer> stack = new ArrayDeque<Integer>();
+		int index = currentIndex;
+		while (isValidIndex(index, visited) || !stack.isEmpty()) {
+			while (isValidIndex(index, visited)) {
+				visited.set(index);
+				stack.push(index);
+				index = DirectoryEntry_list.get(index).leftSiblingID;
+			}
+			DirectoryEntry entry = DirectoryEntry_list.get(stack.pop());
+			children.add(entry);
+			index = entry.rightSiblingID;
+		}
+	}
+	
+	private boolean isValidIndex(int index, BitSet visited) {
+		return index >= 0 && index < DirectoryEntry_list.size() && !visited.get(index);
 	}
 	
-	private void addSiblings(List<Integer> indexList, int currentIndex) {
-		if (currentIndex==-1) 
+	private void buildEntryIndex() {
+		entryIndex.clear();
+		pathIndex.clear();
+		if (DirectoryEntry_list.isEmpty()) 
 			return;
 		
-		if (!indexList.contains(currentIndex)) {
-			indexList.add(currentIndex);
+		// 이름 검색은 기존과 같이 목록에서 처음 찾아지는 entry를 돌려준다.
+		for (DirectoryEntry entry: DirectoryEntry_list) {
+			entry.children = EMPTY_CHILDREN;
+			entryIndex.putIfAbsent(entry.getEntryName(), entry);
 		}
-		int leftSibling = DirectoryEntry_list.size()>currentIndex?DirectoryEntry_list.get(currentIndex).leftSiblingID:-1;
-		int rightSibling = DirectoryEntry_list.size()>currentIndex?DirectoryEntry_list.get(currentIndex).rightSiblingID:-1;
 		
-		if (rightSibling!=-1) {
-			int elderIndex = indexList.indexOf(currentIndex);
-			indexList.add(elderIndex+1, rightSibling);
-			if (rightSibling < DirectoryEntry_list.size()) {
-				addSiblings(indexList, rightSibling);
-			}
-		}
-		if (leftSibling!=-1) {
-			int elderIndex = indexList.indexOf(currentIndex);
-			indexList.add(elderIndex, leftSibling);
-			if (leftSibling < DirectoryEntry_list.size()) {
-				addSiblings(indexList, leftSibling);
+		DirectoryEntry root = DirectoryEntry_list.get(0);
+		root.path = "";
+		BitSet visited = new BitSet(DirectoryEntry_list.size());
+		visited.set(0);
+		Deque<DirectoryEntry> storages = new ArrayDeque<DirectoryEntry>();
+		storages.push(root);
+		while (!storages.isEmpty()) {
+			DirectoryEntry storage = storages.pop();
+			List<DirectoryEntry> children = new ArrayList<DirectoryEntry>();
+			addSiblings(children, storage.childID, visited);
+			storage.children = Collections.unmodifiableList(children);
+			for (DirectoryEntry child: children) {
+				child.path = storage.path.isEmpty() ? child.getEntryName() : storage.path + "/" + child.getEntryName();
+				pathIndex.put(child.path, child);
+				if (child.childID != -1) {
+					storages.push(child);
+				}
 			}
 		}
 	}
 	
 	public DirectoryEntry getEntry(String entryName) {
-		Optional<DirectoryEntry> op = DirectoryEntry_list.stream()
-														.filter(e -> e.directoryEntryName.trim().equals(entryName))
-														.findFirst();
-		return op.isPresent()?op.get():null;
+		return entryIndex.get(entryName);
+	}
+	
+	/**
+	 * Root Entry 기준의 경로로 entry를 찾는다. (예: "BodyText/Section0", "BinData/BIN0001.png")
+	 */
+	public DirectoryEntry getEntryByPath(String entryPath) {
+		return pathIndex.get(entryPath);
 	}
 
 	public List<DirectoryEntry> getChildEntries(DirectoryEntry baseEntry) {
-		List<Integer> entryIdx = new LinkedList<Integer>();
-		int index = 0;
 		if (baseEntry == null) {
-			index = DirectoryEntry_list.get(0).childID;
-		} else {
-			index = baseEntry.childID;
+			baseEntry = DirectoryEntry_list.isEmpty() ? null : DirectoryEntry_list.get(0);
+		}
+		if (baseEntry == null || baseEntry.children == null) {
+			return EMPTY_CHILDREN;
 		}
-		addSiblings(entryIdx, index);
-		List<DirectoryEntry> entries =  entryIdx.stream()
-												.filter(i -> (i<DirectoryEntry_list.size()))
-												.map(i -> DirectoryEntry_list.get(i))
-												.collect(Collectors.toList());
-		return entries;
+		return baseEntry.children;
 	}
 
 	public List<DirectoryEntry> getChildEntries(String baseEntryName) {
-		Optional<DirectoryEntry> op = DirectoryEntry_list.stream()
-														.filter(e -> e.directoryEntryName.trim().equals(baseEntryName))
-														.findFirst();
-		if (op.isPresent()) {
-			return getChildEntries(op.get());
+		DirectoryEntry entry = entryIndex.get(baseEntryName);
+		if (entry != null) {
+			return getChildEntries(entry);
 		} else {
 			return new ArrayList<DirectoryEntry>();
 		}
@@ -156,69 +218,143 @@ public class CompoundFile {
 		byte[] buf = new byte[(int)entry.streamSize];
 		int buff_offset = 0;
 
-		int len = 0;
-		List<Integer> streamContainerSectors = null;
-		if (entry.streamSize<miniStreamCutoffSize) { // short Stream
-			byte[] b = new byte[64];
-			int remainSize = (int)entry.streamSize;
-			streamContainerSectors = DirectoryEntry_list.get(0).secNums;
-			for (int secNum: entry.secNums) {
-				// readStream
-				int stream_Index = secNum/(sectorSize/64);
-				int stream_offset = secNum % (sectorSize/64);
-				int satID = streamContainerSectors.get(stream_Index);
-				try {
-					raf.seek((satID+1)*sectorSize + stream_offset*64);
-					int readLen = raf.read(b, 0, remainSize>=64?64:remainSize);
-					if (readLen<0) continue;
-					remainSize -= readLen;
-					
-					// writeToBuffer
-					System.arraycopy(b, 0, buf, buff_offset, readLen);
-					buff_offset += readLen;
-				} catch (IOException e1) {
-					// TODO Auto-generated catch block
-					e1.printStackTrace();
-				}
-			}
-		} else {									 // normal Stream
-			byte[] b = new byte[sectorSize];
-			int remainSize = (int)entry.streamSize;
-			streamContainerSectors = entry.secNums;
-			for (int secNum: entry.secNums) {
-				if (secNum==0xFFFFFFFE) continue;
-				// readStream
-				try {
-					raf.seek((secNum+1)*sectorSize);
-					int readLen = raf.read(b, 0, remainSize>=sectorSize?sectorSize:remainSize);
-					remainSize -= readLen;
-					
-					// writeToBuf
-					System.arraycopy(b, 0, buf, buff_offset, readLen);
-					buff_offset += readLen;
-				} catch (IOException e1) {
-					e1.printStackTrace();
-				}
+		for (SectorRun run: getSectorRuns(entry)) {
+			try {
+				buff_offset += readRun(run, buf, buff_offset);
+			} catch (IOException e1) {
+				e1.printStackTrace();
 			}
 		}
+		streamRead.record(buff_offset);
 		
 		return buf;
 	}
+	
+	/**
+	 * Stream 내용을 읽기전용 ByteBuffer로 돌려준다.
+	 * 파일이 매핑되어 있고 stream의 sector들이 연속되어 있으면 복사 없이 매핑된 영역의 slice를 돌려준다.
+	 */
+	public ByteBuffer getBuffer(DirectoryEntry entry) {
+		List<SectorRun> runs = getSectorRuns(entry);
+		if (mappedBuffer != null && runs.size() == 1) {
+			SectorRun run = runs.get(0);
+			if (run.position + run.length <= mappedBuffer.capacity()) {
+				ByteBuffer view = mappedBuffer.duplicate();
+				((Buffer)view).position((int)run.position);	// Java9 이후와 호환을 위해
+				((Buffer)view).limit((int)run.position + run.length);
+				streamRead.record(run.length);
+				return view.slice().asReadOnlyBuffer();
+			}
+		}
+		return ByteBuffer.wrap(read(entry)).asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Stream 내용을 InputStream으로 돌려준다.
+	 * 파일이 매핑되어 있으면 전체 크기의 중간 버퍼 없이 매핑된 sector들을 차례로 읽는다.
+	 */
+	public InputStream getInputStream(DirectoryEntry entry) {
+		if (mappedBuffer != null) {
+			streamRead.record(entry.streamSize);
+			return new MappedEntryInputStream(mappedBuffer, getSectorRuns(entry));
+		}
+		return new ByteArrayInputStream(read(entry));
+	}
+	
+	public void setMappedMode(boolean useMappedBuffer) {
+		this.useMappedBuffer = useMappedBuffer;
+	}
+	
+	public boolean isMapped() {
+		return mappedBuffer != null;
+	}
+	
+	/**
+	 * Stream을 구성하는 sector들의 파일내 위치를 구한다. 연속된 sector들은 하나의 run으로 합친다.
+	 */
+	private List<SectorRun> getSectorRuns(DirectoryEntry entry) {
+		List<SectorRun> runs = new ArrayList<SectorRun>();
+		if (entry.secNums == null) {
+			return runs;
+		}
+		
+		boolean shortStream = entry.streamSize<miniStreamCutoffSize;
+		int unitSize = shortStream ? shortSectorSize : sectorSize;
+		int[] streamContainerSectors = DirectoryEntry_list.get(0).secNums;
+		long remainSize = entry.streamSize;
+		SectorRun lastRun = null;
+		
+		for (int secNum: entry.secNums) {
+			if (remainSize <= 0) break;
+			
+			long position;
+			if (shortStream) {
+				int stream_Index = secNum/(sectorSize/shortSectorSize);
+				int stream_offset = secNum % (sectorSize/shortSectorSize);
+				if (streamContainerSectors==null || stream_Index >= streamContainerSectors.length) break;
+				int satID = streamContainerSectors[stream_Index];
+				position = (long)(satID+1)*sectorSize + stream_offset*shortSectorSize;
+			} else {
+				position = (long)(secNum+1)*sectorSize;
+			}
+			int len = (int)Math.min(unitSize, remainSize);
+			
+			if (lastRun != null && lastRun.position + lastRun.length == position) {
+				lastRun.length += len;
+			} else {
+				lastRun = new SectorRun(position, len);
+				runs.add(lastRun);
+			}
+			remainSize -= len;
+		}
+		return runs;
+	}
+	
+	private int readRun(SectorRun run, byte[] buf, int offset) throws IOException {
+		if (mappedBuffer != null) {
+			if (run.position >= mappedBuffer.capacity()) return 0;
+			ByteBuffer view = mappedBuffer.duplicate();
+			((Buffer)view).position((int)run.position);	// Java9 이후와 호환을 위해
+			int readLen = Math.min(run.length, view.remaining());
+			view.get(buf, offset, readLen);
+			return readLen;
+		} else {
+			ByteBuffer bb = ByteBuffer.wrap(buf, offset, run.length);
+			long position = run.position;
+			while (bb.hasRemaining()) {
+				int readLen = channel.read(bb, position);	// position 지정 read는 여러 thread에서 동시에 사용 가능
+				if (readLen < 0) break;
+				position += readLen;
+			}
+			return (int)(position - run.position);
+		}
+	}
 
 	
 	public void open() throws CompoundDetectException, IOException {
 		
 		byte[] buf = new byte[sectorSize];	// from Signature to Number of DIFAT sectors
-		if (raf.read(buf, 0, sectorSize) != sectorSize) {
+		if (readSector(0, buf) != sectorSize) {
 			throw new CompoundDetectException(ErrCode.FILE_READ_ERROR);
 		}
 		parse_Header(buf);
 		if (majorVersion == 0x0004) {
-			raf.seek(4096);
+			channel.position(4096);
 			sectorSize = 4096;
 			buf = new byte[sectorSize];
 		}
 		
+		if (channel instanceof MemoryChannel) {
+			mappedBuffer = ((MemoryChannel)channel).buffer();
+		} else if (useMappedBuffer && channel.size() <= Integer.MAX_VALUE) {
+			try {
+				mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} catch (IOException | UnsupportedOperationException e) {
+				log.fine("file mapping failed. reading sectors from file. " + e.getMessage());
+				mappedBuffer = null;
+			}
+		}
+		
 		// collect MSAT SecID 
 		int secID = first_SecID_MSAT;
 		if (secID != 0xFFFFFFFE && secID != 0xFFFFFFFF) {  // [20211103] 0xFFFFFFFF 조건 추가. (국방CBD방법론v1(1권) 읽지 못하는 이슈 수정)
@@ -229,83 +365,40 @@ public class CompoundFile {
 			log.finest("[______SAT Sector]={"+ SAT_list.stream().map(i -> i.toString()).collect(Collectors.joining(",")) + "}");
 		}
 		
+		// FAT, MiniFAT 전체를 한번씩만 읽어 배열로 가지고 있는다.
+		fat = loadFat();
+		
 		// Directory
-		secID = first_SecID_Directory;
-		Directory_SecID_list.add(secID);
-		while(secID != 0xFFFFFFFE) {
-			int satIndex = secID/(sectorSize/4);
-
-			// collect Directory SecID
-			int satID = SAT_list.get(secID/(sectorSize/4));
-			List<Integer> secID_list = get_SecIDs_from_SAT(satID, satIndex, secID);
-			secID_list.stream().filter(id -> !Directory_SecID_list.contains(id)).forEach(id -> Directory_SecID_list.add(id));
-			secID = secID_list.get(secID_list.size()-1);
-		}
+		Directory_SecID_list = resolveChain(fat, first_SecID_Directory);
 			
 		// collect Directory Entries
 		for (int secID_Directory: Directory_SecID_list) {
-			if (secID_Directory != 0xFFFFFFFE) {
-				read_Directory_sector(secID_Directory);
-			}
+			read_Directory_sector(secID_Directory);
 		}
+		buildEntryIndex();
 		if (log.isLoggable(Level.FINEST)) {
-			log.finest("[Directory Sector]={" + Directory_SecID_list.stream().map(i -> i.toString()).collect(Collectors.joining(",")) + "}");
+			log.finest("[Directory Sector]={" + Arrays.stream(Directory_SecID_list).mapToObj(i -> Integer.toString(i)).collect(Collectors.joining(",")) + "}");
 		}
 		
 		// collect SSAT SecID 
-		int lastSecID = first_SecID_SSAT;
-		SSAT_SecID_list.add(lastSecID);
-		while(lastSecID != 0xFFFFFFFE) {
-			int satIndex = lastSecID/(sectorSize/4);
-			int satID = SAT_list.get(satIndex);
-			List<Integer> secID_list = get_SecIDs_from_SAT(satID, satIndex, lastSecID);	// SAT를 읽어서 SSAT SecID 들을 구한다.
-			secID_list.stream().filter(id -> !SSAT_SecID_list.contains(id)).forEach(id -> SSAT_SecID_list.add(id));
-			lastSecID = secID_list.get(secID_list.size()-1);
-		}
+		SSAT_SecID_list = resolveChain(fat, first_SecID_SSAT);
+		miniFat = loadMiniFat(SSAT_SecID_list);
 		if (log.isLoggable(Level.FINEST)) {
-			log.finest("[Short SAT Sector]={" +SSAT_SecID_list.stream().map(i->i.toString()).collect(Collectors.joining(",")) + "}");
+			log.finest("[Short SAT Sector]={" + Arrays.stream(SSAT_SecID_list).mapToObj(i -> Integer.toString(i)).collect(Collectors.joining(",")) + "}");
 		}
 		
-		int SecID_SStream = 0;
-		
 		// collect SecID of Stream for each Directory entries 
 		for (DirectoryEntry entry: DirectoryEntry_list) {
 			if (entry.objectType == 0x05) { // Root Storage
 				// Short Stream container Stream SecID 
-				lastSecID = entry.startingSectorID;
-				entry.secNums = new ArrayList<Integer>();
-				entry.secNums.add(lastSecID);
-				while(lastSecID != 0xFFFFFFFE) {
-					int containerIndex = lastSecID/(sectorSize/4);
-					int satID = SAT_list.get(containerIndex);
-					List<Integer> secID_list = get_SecIDs_from_SAT(satID, containerIndex, lastSecID);	// SAT를 읽어서 stream container SecID 들을 구한다.
-					secID_list.stream().filter(id -> !entry.secNums.contains(id)).forEach(id -> entry.secNums.add(id));
-					lastSecID = secID_list.get(secID_list.size()-1);
-				}
-				
+				entry.secNums = resolveChain(fat, entry.startingSectorID);
 			} else if (entry.objectType == 0x02) {	// Stream
-				entry.secNums = new ArrayList<Integer>();
-				entry.secNums.add(entry.startingSectorID);
 				if (entry.streamSize<miniStreamCutoffSize) {
 					// ShortStream
-					int lastSSecID = entry.startingSectorID;
-					while(lastSSecID != 0xFFFFFFFE) {
-						int ssatIndex = lastSSecID/(sectorSize/4);
-						int ssatID = SSAT_SecID_list.get(ssatIndex);
-						List<Integer> secID_list = get_SecIDs_from_SAT(ssatID, ssatIndex, lastSSecID);
-						secID_list.stream().filter(id -> !entry.secNums.contains(id)).forEach(id -> entry.secNums.add(id));
-						lastSSecID = entry.secNums.get(entry.secNums.size()-1);
-					}
+					entry.secNums = resolveChain(miniFat, entry.startingSectorID);
 				} else {
 					// Stream
-					int last_SecID = entry.startingSectorID;
-					while(last_SecID != 0xFFFFFFFE) {
-						int satIndex = last_SecID/(sectorSize/4);
-						int satID = SAT_list.get(satIndex);
-						List<Integer> secID_list = get_SecIDs_from_SAT(satID, satIndex, last_SecID);
-						secID_list.stream().filter(id -> !entry.secNums.contains(id)).forEach(id -> entry.secNums.add(id));
-						last_SecID = entry.secNums.get(entry.secNums.size()-1);
-					}
+					entry.secNums = resolveChain(fat, entry.startingSectorID);
 				}
 			} else {
 				continue;
@@ -326,7 +419,7 @@ public class CompoundFile {
 												e.startingSectorID,
 												e.streamSize,
 												e.streamSize<miniStreamCutoffSize?"s":"N",
-												e.secNums==null?"null":e.secNums.stream().map(i -> i.toString()).collect(Collectors.joining(",")))
+												e.secNums==null?"null":Arrays.stream(e.secNums).mapToObj(i -> Integer.toString(i)).collect(Collectors.joining(",")))
 									);
 			}
 		}
@@ -335,25 +428,57 @@ public class CompoundFile {
 	}
 
 
-	private List<Integer> get_SecIDs_from_SAT(int secID, int satIndex, int secID_SSAT) throws IOException {
+	private int[] loadFat() throws IOException {
+		int entriesPerSector = sectorSize/4;
+		int[] table = new int[SAT_list.size()*entriesPerSector];
 		byte[] buf = new byte[sectorSize];
-		raf.seek((secID+1) * sectorSize);
-		raf.read(buf, 0, sectorSize);
-		
-		int currSecID = secID_SSAT;
-		int iBuf = currSecID%(sectorSize/4) * 4; 
-		List<Integer> secIdList = new ArrayList<Integer>();
-		
-		while((sectorSize/4)*(satIndex) <= currSecID && currSecID < (sectorSize/4)*(satIndex+1)) {
-			currSecID = buf[iBuf+3]<<24&0xFF000000 | buf[iBuf+2]<<16&0xFF0000 | buf[iBuf+1]<<8&0xFF00 | buf[iBuf]&0xFF;
-			if (currSecID == 0xFFFFFFFE) {
-				secIdList.add(currSecID);
-				break;
+		for (int i=0; i<SAT_list.size(); i++) {
+			readTableSector(SAT_list.get(i), buf, table, i*entriesPerSector);
+		}
+		return table;
+	}
+	
+	private int[] loadMiniFat(int[] ssatSecIDs) throws IOException {
+		int entriesPerSector = sectorSize/4;
+		int[] table = new int[ssatSecIDs.length*entriesPerSector];
+		byte[] buf = new byte[sectorSize];
+		for (int i=0; i<ssatSecIDs.length; i++) {
+			readTableSector(ssatSecIDs[i], buf, table, i*entriesPerSector);
+		}
+		return table;
+	}
+	
+	private void readTableSector(int secID, byte[] buf, int[] table, int tableOffset) throws IOException {
+		int readLen = readRun(new SectorRun((long)(secID+1)*sectorSize, sectorSize), buf, 0);
+		for (int iBuf=0, i=tableOffset; iBuf+4 <= sectorSize; iBuf+=4, i++) {
+			if (iBuf+4 <= readLen) {
+				table[i] = buf[iBuf+3]<<24&0xFF000000 | buf[iBuf+2]<<16&0xFF0000 | buf[iBuf+1]<<8&0xFF00 | buf[iBuf]&0xFF;
+			} else {
+				table[i] = 0xFFFFFFFF;	// 파일이 잘려서 읽지 못한 영역은 unallocated로 본다.
 			}
-			secIdList.add(currSecID);
-			iBuf = currSecID%(sectorSize/4) * 4;
 		}
-		return secIdList;
+	}
+	
+	/**
+	 * FAT(또는 MiniFAT) 배열을 따라가며 chain을 구한다. ENDOFCHAIN이나 범위를 벗어난 값, 이미 지나간 sector를 만나면 멈춘다.
+	 */
+	private int[] resolveChain(int[] table, int startSecID) {
+		int[] chain = new int[16];
+		int count = 0;
+		BitSet visited = new BitSet();
+		int secID = startSecID;
+		while (secID >= 0 && secID < table.length && !visited.get(secID)) {
+			visited.set(secID);
+			if (count == chain.length) {
+				chain = Arrays.copyOf(chain, count*2);
+			}
+			chain[count++] = secID;
+			secID = table[secID];
+		}
+		if (secID != 0xFFFFFFFE && count > 0) {
+			log.fine("chain starting at " + startSecID + " ended with " + secID);
+		}
+		return Arrays.copyOf(chain, count);
 	}
 
 	
@@ -428,8 +553,7 @@ public class CompoundFile {
 	
 	private void read_Directory_sector(int secID) throws IOException {
 		byte[] buf = new byte[sectorSize];
-		raf.seek((secID+1) * sectorSize);
-		if (raf.read(buf, 0, sectorSize) == sectorSize) {
+		if (readSector((long)(secID+1) * sectorSize, buf) == sectorSize) {
 			parse_Directory_sector(buf);
 		}
 	}
@@ -468,8 +592,7 @@ public class CompoundFile {
 
 	private void read_SSAT_sector(int secID) throws IOException {
 		byte[] buf = new byte[sectorSize];
-		raf.seek((secID+1) * sectorSize);
-		if (raf.read(buf, 0, sectorSize) == sectorSize) {
+		if (readSector((long)(secID+1) * sectorSize, buf) == sectorSize) {
 			parse_SSAT_sector(buf);
 		}
 	}
@@ -486,8 +609,7 @@ public class CompoundFile {
 	
 	private void read_MSAT_sector(int secID) throws IOException {
 		byte[] buf = new byte[sectorSize];
-		raf.seek((secID+1) * sectorSize);
-		if (raf.read(buf, 0, sectorSize) == sectorSize) {
+		if (readSector((long)(secID+1) * sectorSize, buf) == sectorSize) {
 			parse_MSAT_sector(buf);
 		}
 	}
@@ -583,12 +705,84 @@ public class CompoundFile {
 	
 	public byte[] read(int len) throws IOException {
 		byte[] buf = new byte[len];
-		raf.read(buf, 0, len);
+		channel.read(ByteBuffer.wrap(buf, 0, len));
 		return buf;
 	}
 	
+	private int readSector(long position, byte[] buf) throws IOException {
+		return readRun(new SectorRun(position, buf.length), buf, 0);
+	}
+	
+	/**
+	 * 파일을 닫는다. 매핑(MappedByteBuffer)은 Java에서 바로 해제할 수 없어 GC가 정리할 때까지 남으므로,
+	 * Windows에서는 그동안 파일을 지울 수 없다. 닫은 뒤 파일을 지우는 쪽은 지우기 실패를 처리해야 한다.
+	 */
 	public void close() throws IOException {
-		raf.close();
+		mappedBuffer = null;
+		if (raf != null) {
+			raf.close();
+		} else {
+			channel.close();
+		}
+	}
+	
+	private static class SectorRun {
+		long position;
+		int length;
+		
+		SectorRun(long position, int length) {
+			this.position = position;
+			this.length = length;
+		}
+	}
+	
+	private static class MappedEntryInputStream extends InputStream {
+		private final ByteBuffer view;
+		private final List<SectorRun> runs;
+		private int runIndex = -1;
+		private int runRemain = 0;
+		
+		MappedEntryInputStream(ByteBuffer mappedBuffer, List<SectorRun> runs) {
+			this.view = mappedBuffer.duplicate();
+			this.runs = runs;
+		}
+		
+		private boolean nextRun() {
+			while (runRemain <= 0) {
+				if (++runIndex >= runs.size()) return false;
+				SectorRun run = runs.get(runIndex);
+				if (run.position >= view.capacity()) return false;
+				((Buffer)view).position((int)run.position);	// Java9 이후와 호환을 위해
+				runRemain = (int)Math.min(run.length, view.capacity() - run.position);
+			}
+			return true;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			if (!nextRun()) return -1;
+			runRemain--;
+			return view.get() & 0xFF;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) return 0;
+			if (!nextRun()) return -1;
+			int readLen = Math.min(len, runRemain);
+			view.get(b, off, readLen);
+			runRemain -= readLen;
+			return readLen;
+		}
+		
+		@Override
+		public int available() throws IOException {
+			int avail = Math.max(runRemain, 0);
+			for (int i=runIndex+1; i<runs.size(); i++) {
+				avail += runs.get(i).length;
+			}
+			return avail;
+		}
 	}
 
 }
@@ -36,11 +36,15 @@ public class DirectoryEntry {
 	long modifiedTime;
 	int startingSectorID;
 	long streamSize;
-	List<Integer> secNums;
+	int[] secNums;
+	String entryName;					// 끝의 NULL 문자를 제거한 이름
+	String path;						// Root Entry 기준 경로
+	List<DirectoryEntry> children;		// 이름순으로 정렬된 하위 entry
 	
 	public DirectoryEntry(String directoryEntryName, int objectType, int colorFlag, int leftSiblingID, int rightSiblingID, int childID, 
 							long clsID1, long clsID2, int stateBit, long creationTime, long modifiedTime, int startingSectorID, long streamSize) { 
 		this.directoryEntryName = directoryEntryName;
+		this.entryName = directoryEntryName.trim();
 		this.objectType = objectType;
 		this.colorFlag = colorFlag;
 		this.leftSiblingID = leftSiblingID;
@@ -62,4 +66,16 @@ public class DirectoryEntry {
 	public String getDirectoryEntryName() {
 		return directoryEntryName;
 	}
+	
+	public long getStreamSize() {
+		return streamSize;
+	}
+
+	public String getEntryName() {
+		return entryName;
+	}
+	
+	public String getPath() {
+		return path;
+	}
 }
@@ -0,0 +1,116 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * 서로 독립적인 section들을 여러 thread에서 동시에 parse한다.
+ * 결과는 넘겨받은 순서대로 돌려주고, 먼저 실패한 section의 예외를 ExecutionException으로 던진다.
+ * thread pool은 처음 쓸 때 CPU 수만큼 만들어 모든 문서가 같이 쓴다. 그래서 thread별 XmlParsers 캐시가 문서가 바뀌어도 남는다.
+ */
+class SectionParser {
+    private static final Logger log = Logger.getLogger(SectionParser.class.getName());
+
+    // -DH2Orestart.parseThreads=N 으로 기본값을 바꿀 수 있다. 1이면 순서대로 parse한다.
+    static final int DEFAULT_THREADS = Math.max(1, Integer.getInteger("H2Orestart.parseThreads", 1));
+
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private static ExecutorService executor;
+
+    static <T> List<T> parseAll(List<Callable<T>> tasks, int threads) throws ExecutionException, InterruptedException {
+        // 공유 pool이므로 한 문서가 쓰는 thread 수는 worker 수로 제한한다. worker는 남은 section을 차례로 가져간다.
+        int workers = Math.max(1, Math.min(Math.min(threads, tasks.size()), POOL_SIZE));
+        log.fine("parse " + tasks.size() + " sections with " + workers + " threads");
+
+        Object[] results = new Object[tasks.size()];
+        ExecutionException[] errors = new ExecutionException[tasks.size()];
+        AtomicInteger next = new AtomicInteger();
+        // pool의 thread는 여러 변환이 같이 쓰므로, 이 변환의 Summary를 일하는 동안만 붙인다.
+        Metrics.Summary summary = Metrics.currentSummary();
+        ExecutorService pool = executor();
+        List<Future<?>> futures = new ArrayList<Future<?>>(workers);
+        try {
+            for (int w = 0; w < workers; w++) {
+                futures.add(pool.submit(() -> {
+                    Metrics.attach(summary);
+                    try {
+                        int i;
+                        while ((i = next.getAndIncrement()) < tasks.size()) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                return;
+                            }
+                            try {
+                                results[i] = tasks.get(i).call();
+                            } catch (Exception e) {
+                                errors[i] = new ExecutionException(e);
+                                // 실패했으면 아직 남은 section은 parse하지 않는다.
+                                next.set(tasks.size());
+                                return;
+                            }
+                        }
+                    } finally {
+                        Metrics.detach();
+                    }
+                }));
+            }
+            for (Future<?> future: futures) {
+                future.get();
+            }
+        } finally {
+            for (Future<?> future: futures) {
+                future.cancel(true);
+            }
+        }
+
+        List<T> list = new ArrayList<T>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            if (errors[i] != null) {
+                throw errors[i];
+            }
+            @SuppressWarnings("unchecked")
+            T result = (T) results[i];
+            list.add(result);
+        }
+        return list;
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(POOL_SIZE, r -> {
+                Thread t = new Thread(r, "H2Orestart-section-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,112 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc;
+
+import java.io.InputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Contents/sectionN.xml 을 XMLStreamReader로 읽으면서, 최상위 hp:p 문단을 하나씩 DOM Element로 만들어 돌려준다.
+ * section 전체를 Document로 만들지 않으므로 메모리에는 현재 문단만 남는다.
+ * 만들어지는 Element는 namespace를 처리하지 않는 DocumentBuilder 결과와 같은 이름(hp:p 등)을 갖는다.
+ */
+class SectionXmlReader implements AutoCloseable {
+    private final XMLStreamReader reader;
+    private final Document document;
+    private int depth;
+
+    SectionXmlReader(InputStream is) throws XMLStreamException, ParserConfigurationException {
+        reader = XmlParsers.inputFactory().createXMLStreamReader(is);
+        document = XmlParsers.documentBuilder().newDocument();
+    }
+
+    /**
+     * 다음 최상위 hp:p 문단을 돌려준다.
+     * @return 더 이상 문단이 없으면 null
+     */
+    Element nextParagraph() throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                if (depth == 1 && "hp:p".equals(getName())) {
+                    return readElement();
+                }
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            }
+        }
+        return null;
+    }
+
+    // START_ELEMENT 에서 불려서, 짝이 되는 END_ELEMENT 까지 읽는다.
+    private Element readElement() throws XMLStreamException {
+        Element element = document.createElement(getName());
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            element.setAttribute(prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix, reader.getNamespaceURI(i));
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String prefix = reader.getAttributePrefix(i);
+            String name = reader.getAttributeLocalName(i);
+            element.setAttribute(prefix == null || prefix.isEmpty() ? name : prefix + ":" + name, reader.getAttributeValue(i));
+        }
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                element.appendChild(readElement());
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                element.appendChild(document.createTextNode(reader.getText()));
+                break;
+            case XMLStreamConstants.COMMENT:
+                element.appendChild(document.createComment(reader.getText()));
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                return element;
+            }
+        }
+        return element;
+    }
+
+    private String getName() {
+        String prefix = reader.getPrefix();
+        String name = reader.getLocalName();
+        return prefix == null || prefix.isEmpty() ? name : prefix + ":" + name;
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        reader.close();
+    }
+}
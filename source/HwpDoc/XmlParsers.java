@@ -0,0 +1,84 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package HwpDoc;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * HWPX의 XML(version.xml, content.hpf, header.xml, sectionN.xml 등)을 읽을 parser를 thread마다 하나씩 만들어 재사용한다.
+ * DocumentBuilder와 XMLInputFactory는 thread-safe 하지 않으므로 thread 사이에 공유하지 않는다.
+ */
+final class XmlParsers {
+    private static final DocumentBuilderFactory documentFactory = newDocumentFactory();
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<>();
+    private static final ThreadLocal<XMLInputFactory> inputFactory = ThreadLocal.withInitial(XmlParsers::newInputFactory);
+
+    private XmlParsers() {
+    }
+
+    /**
+     * 현재 thread의 DocumentBuilder. namespace를 처리하지 않으므로 node 이름은 "hp:p" 처럼 prefix를 포함한다.
+     */
+    static DocumentBuilder documentBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = documentBuilder.get();
+        if (builder == null) {
+            synchronized (documentFactory) {
+                builder = documentFactory.newDocumentBuilder();
+            }
+            documentBuilder.set(builder);
+        } else {
+            builder.reset();
+        }
+        return builder;
+    }
+
+    /**
+     * 현재 thread의 XMLInputFactory. DTD와 외부 entity를 읽지 않는다.
+     */
+    static XMLInputFactory inputFactory() {
+        return inputFactory.get();
+    }
+
+    private static DocumentBuilderFactory newDocumentFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(false);
+        factory.setValidating(false);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        } catch (ParserConfigurationException e) {
+            // 지원하지 않는 parser이면 기본 설정으로 읽는다.
+        }
+        return factory;
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
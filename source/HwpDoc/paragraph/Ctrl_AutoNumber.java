@@ -54,7 +54,9 @@ public class Ctrl_AutoNumber extends Ctrl {
 		numShape	= NumberShape2.from(attr>>4&0xFF);
 		superscript = (attr>>12&0x1)==0x1?true:false;
 		
-		log.fine("                                                  " + toString());
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  " + toString());
+		}
 		this.size = offset-off;
 		this.fullfilled = true;
 	}
@@ -21,6 +21,7 @@
 package HwpDoc.paragraph;
 
 import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class Ctrl_Click extends Ctrl {
@@ -47,7 +48,9 @@ public class Ctrl_Click extends Ctrl {
 		
 		this.size = offset-off;
 
-		log.fine("                                                  " + toString());
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  " + toString());
+		}
 	}
 	
 	public String toString() {
@@ -88,7 +88,9 @@ public class Ctrl_ColumnDef extends Ctrl {
 		offset += 4;
 		attr 				= attrHighBits<<16 | attrLowBits;
 		
-		log.fine("                                                  " + toString());
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  " + toString());
+		}
 
 		this.size = offset-off;
 		this.fullfilled = true;
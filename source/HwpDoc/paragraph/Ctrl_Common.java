@@ -131,7 +131,9 @@ public class Ctrl_Common extends Ctrl {
             }
         }
         
-        log.fine("                                                  " + toString());
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  " + toString());
+        }
         
         this.size = offset-off;
     }
@@ -463,7 +465,9 @@ public class Ctrl_Common extends Ctrl {
         case "noc$":    // 묶음 개체
         case "div$":    // 비디오
         case "tat$":    // 글맵시
-            log.finer("[개체 공통 속성]을 더 읽지 않습니다. [개체 공통 속성] 영역에서  CtrlID="+ctrlId+" 가 나왔습니다.");
+            if (log.isLoggable(Level.FINER)) {
+                log.finer("[개체 공통 속성]을 더 읽지 않습니다. [개체 공통 속성] 영역에서  CtrlID="+ctrlId+" 가 나왔습니다.");
+            }
             return 4;
         default:
             unknownCtrlID = true;
@@ -53,7 +53,9 @@ public class Ctrl_EqEdit extends Ctrl_GeneralShape {
         super(ctrlId, size, buf, off, version);
         this.size = offset-off;
         
-        log.fine("                                                  " + toString());
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  " + toString());
+        }
     }
     
     public Ctrl_EqEdit(Ctrl_GeneralShape shape) {
@@ -181,7 +183,9 @@ public class Ctrl_EqEdit extends Ctrl_GeneralShape {
             offset += 8;
         }
         
-        log.fine("                                                  ctrlID="+obj.ctrlId+", 캡션 parsing이지만, 정확한 parsing은 어떻게 해야 하는지 알 수 없음.");
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  ctrlID="+obj.ctrlId+", 캡션 parsing이지만, 정확한 parsing은 어떻게 해야 하는지 알 수 없음.");
+        }
         
         if (offset-off-size!=0) {
             log.severe("[CtrlID]=" + obj.ctrlId + ", size=" + size + ", but currentSize=" + (offset-off));
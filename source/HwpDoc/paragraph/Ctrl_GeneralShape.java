@@ -79,7 +79,9 @@ public class Ctrl_GeneralShape extends Ctrl_ObjElement {
         super(ctrlId, size, buf, off, version);
         this.size = offset-off;
         
-        log.fine("                                                  " + toString());
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  " + toString());
+        }
     }
     
     public Ctrl_GeneralShape(Ctrl_GeneralShape shape) {
@@ -425,7 +427,9 @@ public class Ctrl_GeneralShape extends Ctrl_ObjElement {
         offset += 4;
         Ctrl_GeneralShape shape = null;
         
-        log.fine("                                                  ctrlID="+ctrlId);
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  ctrlID="+ctrlId);
+        }
         // ctrlId를 거꾸로 읽어 비교한다.
         switch(ctrlId) {
         case "cip$":    // 그림       ShapePic obj = new ShapePic(shape);
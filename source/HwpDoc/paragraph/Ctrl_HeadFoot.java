@@ -70,7 +70,9 @@ public class Ctrl_HeadFoot extends Ctrl {
         serialInSec     =  buf[offset+3]<<24&0xFF000000 | buf[offset+2]<<16&0x00FF0000 | buf[offset+1]<<8&0x0000FF00 | buf[offset]&0x000000FF;
         offset += 4;
         
-        log.fine("                                                  " + toString());
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  " + toString());
+        }
         
         this.size = offset-off;
     }
@@ -91,7 +93,9 @@ public class Ctrl_HeadFoot extends Ctrl {
         obj.refLevelNum     = buf[offset++];
         
         if (size-(offset-off)>0) {
-            log.fine("                                                  [CtrlId]=" + obj.ctrlId + "," + size + " bytes를 해석하지 못함.");
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("                                                  [CtrlId]=" + obj.ctrlId + "," + size + " bytes를 해석하지 못함.");
+            }
             offset += (size-(offset-off));
         }
         obj.fullfilled = true;
@@ -54,7 +54,9 @@ public class Ctrl_NewNumber extends Ctrl {
 		numShape	= NumberShape2.from(attr>>4&0xF);
 		num			= (short) (buf[offset+1]<<8&0x0000FF00 | buf[offset]&0x000000FF);
 		
-		log.fine("                                                  " + toString());
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  " + toString());
+		}
 		this.size = offset-off;
 		this.fullfilled = true;
 	}
@@ -66,7 +66,9 @@ public class Ctrl_ObjElement extends Ctrl_Common {
         super(ctrlId, size, buf, off, version);
         this.size = offset-off;
         
-        log.fine("                                                  " + toString());
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  " + toString());
+        }
     }
     
     public Ctrl_ObjElement(Ctrl_ObjElement element) {
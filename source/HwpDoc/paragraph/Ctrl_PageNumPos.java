@@ -21,6 +21,7 @@
 package HwpDoc.paragraph;
 
 import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.w3c.dom.NamedNodeMap;
@@ -63,7 +64,9 @@ public class Ctrl_PageNumPos extends Ctrl {
 		constantDash 	= new String(buf, offset, 2, StandardCharsets.UTF_16LE);
 		offset += 2;
 		
-		log.fine("                                                  " + toString());
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  " + toString());
+		}
 		this.size = offset-off;
 	}
 	
@@ -134,7 +134,9 @@ public class Ctrl_SectionDef extends Ctrl {
 			offset += 2;
 		}
 
-		log.fine("                                                  " + toString(attr));
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  " + toString(attr));
+		}
 		
 		if (offset-off < size) {
 			
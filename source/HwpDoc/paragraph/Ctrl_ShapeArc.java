@@ -49,7 +49,9 @@ public class Ctrl_ShapeArc extends Ctrl_GeneralShape {
 		super(ctrlId, size, buf, off, version);
 		this.size = offset-off;
 
-		log.fine("                                                  " + toString());
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  " + toString());
+		}
 	}
 
 	public Ctrl_ShapeArc(Ctrl_GeneralShape shape) {
@@ -45,7 +45,9 @@ public class Ctrl_ShapePolygon extends Ctrl_GeneralShape {
         super(ctrlId, size, buf, off, version);
         this.size = offset-off;
         
-        log.fine("                                                  " + toString());
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  " + toString());
+        }
     }
     
     public Ctrl_ShapePolygon(Ctrl_GeneralShape shape) {
@@ -154,7 +156,9 @@ public class Ctrl_ShapePolygon extends Ctrl_GeneralShape {
             offset += 2;
             String fieldName= new String(buf, offset, strLen*2, StandardCharsets.UTF_16LE);
             offset += (strLen*2);
-            log.fine("                                                  [CtrlId]=" + obj.ctrlId + ", fieldName=" + fieldName);
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("                                                  [CtrlId]=" + obj.ctrlId + ", fieldName=" + fieldName);
+            }
             
             offset += (size-(offset-off));
         }
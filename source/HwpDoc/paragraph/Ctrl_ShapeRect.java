@@ -46,7 +46,9 @@ public class Ctrl_ShapeRect extends Ctrl_GeneralShape {
         super(ctrlId, size, buf, off, version);
         this.size = offset-off;
         
-        log.fine("                                                  " + toString());
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  " + toString());
+        }
     }
     
     public Ctrl_ShapeRect(Ctrl_GeneralShape shape) {
@@ -203,7 +205,9 @@ public class Ctrl_ShapeRect extends Ctrl_GeneralShape {
             offset += 2;
             String fieldName= new String(buf, offset, strLen*2, StandardCharsets.UTF_16LE);
             offset += (strLen*2);
-            log.fine("                                                  [CtrlId]=" + obj.ctrlId + ", fieldName=" + fieldName);
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("                                                  [CtrlId]=" + obj.ctrlId + ", fieldName=" + fieldName);
+            }
             
             offset += (size-(offset-off));
         }
@@ -62,7 +62,9 @@ public class Ctrl_Table extends Ctrl_Common {
         super(ctrlId, size, buf, off, version);
         this.size = offset-off;
         
-        log.fine("                                                  " + toString());
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  " + toString());
+        }
     }
     
     public Ctrl_Table(String ctrlId, Node node, int version, IContext context) throws NotImplementedException {
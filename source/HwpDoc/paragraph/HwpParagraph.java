@@ -335,18 +335,20 @@ public class HwpParagraph {
             short changeTrackingMerge= (short) (buf[offset+1]<<8&0xFF00 | buf[offset]&0x00FF);
             offset += 2;
         }
-        log.fine("                                                  "
-                +"instance="+String.format("0x%X", paraInstanceID)
-                +",문단모양ID="+para.paraShapeID
-                +",스타일ID="+para.paraStyleID
-                +",단나누기종류="+para.breakType
-                +",nchars="+nchars
-                +",nLineSeg="+nLineSeg
-                +",controlMask="+controlMask
-                +",nCharShapeInfo="+nCharShapeInfo
-                +",nRangeTags="+nRangeTags
-                +",paraInstanceID="+paraInstanceID
-                );
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  "
+                    +"instance="+String.format("0x%X", paraInstanceID)
+                    +",문단모양ID="+para.paraShapeID
+                    +",스타일ID="+para.paraStyleID
+                    +",단나누기종류="+para.breakType
+                    +",nchars="+nchars
+                    +",nLineSeg="+nLineSeg
+                    +",controlMask="+controlMask
+                    +",nCharShapeInfo="+nCharShapeInfo
+                    +",nRangeTags="+nRangeTags
+                    +",paraInstanceID="+paraInstanceID
+                    );
+        }
         
         if (offset-off-size != 0 && offset-off!=24) {
             log.severe("[TAG]=" + tagNum + ", size=" + size + ", but currentSize=" + (offset-off));
@@ -382,18 +384,20 @@ public class HwpParagraph {
             short changeTrackingMerge= (short) (buf[offset+1]<<8&0xFF00 | buf[offset]&0x00FF);
             offset += 2;
         }
-        log.fine("                                                  "
-                +"instance="+String.format("0x%X", paraInstanceID)
-                +",문단모양ID="+para.paraShapeID
-                +",스타일ID="+para.paraStyleID
-                +",단나누기종류="+para.breakType
-                +",nchars="+nchars
-                +",nLineSeg="+nLineSegs
-                +",controlMask="+controlMask
-                +",nCharShapeInfo="+nCharShapeInfo
-                +",nRangeTags="+nRangeTags
-                +",paraInstanceID="+paraInstanceID
-                );
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("                                                  "
+                    +"instance="+String.format("0x%X", paraInstanceID)
+                    +",문단모양ID="+para.paraShapeID
+                    +",스타일ID="+para.paraStyleID
+                    +",단나누기종류="+para.breakType
+                    +",nchars="+nchars
+                    +",nLineSeg="+nLineSegs
+                    +",controlMask="+controlMask
+                    +",nCharShapeInfo="+nCharShapeInfo
+                    +",nRangeTags="+nRangeTags
+                    +",paraInstanceID="+paraInstanceID
+                    );
+        }
         
         if (offset-off-size != 0 && offset-off!=24) {
             log.severe("[PARA] size=" + size + ", but currentSize=" + (offset-off));
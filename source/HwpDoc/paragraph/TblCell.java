@@ -80,7 +80,9 @@ public class TblCell {
 		borderFill	= (short) (buf[offset+1]<<8&0xFF00 | buf[offset]&0x00FF);
 		offset += 2;
 		
-		log.fine("                                                  " + "[CELL]" + toString());
+		if (log.isLoggable(Level.FINE)) {
+			log.fine("                                                  " + "[CELL]" + toString());
+		}
 		
 		// 41byte중 28byte만 해석 가능.  내용을 모르므로 41byte 모두 읽은것 처럼 size 조작한다.
 		this.size = size;
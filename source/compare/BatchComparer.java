@@ -0,0 +1,256 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package compare;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 여러 문서 쌍을 worker thread 여러 개로 비교하고, 쌍마다 결과를 JSON 한 줄(JSON Lines)로 끝나는 순서대로 내보낸다.
+ * 문서 쌍은 manifest 파일(한 줄에 "control<TAB>test")이나, 두 폴더에서 상대경로가 같은 .hwp/.hwpx 파일로 정한다.
+ * 쌍마다 새 HwpComparer를 쓰므로 worker끼리 번호, 구역 상태를 나누지 않는다.
+ */
+public class BatchComparer {
+    private static final Logger log = Logger.getLogger(BatchComparer.class.getName());
+
+    private final int threads;
+    private final PrintStream out;
+
+    private final AtomicInteger okCount = new AtomicInteger();
+    private final AtomicInteger failCount = new AtomicInteger();
+
+    public static class Pair {
+        public final String control;        // 없으면 null
+        public final String test;           // 없으면 null
+
+        public Pair(String control, String test) {
+            this.control = control;
+            this.test = test;
+        }
+    }
+
+    public BatchComparer(int threads, PrintStream out) {
+        this.threads = Math.max(1, threads);
+        this.out = out;
+    }
+
+    /**
+     * manifest를 읽는다. 빈 줄과 '#'로 시작하는 줄은 건너뛰고, 상대경로는 manifest가 있는 폴더 기준이다.
+     */
+    public static List<Pair> readManifest(String manifestFile) throws IOException {
+        Path manifest = Paths.get(manifestFile).toAbsolutePath();
+        Path baseDir = manifest.getParent();
+        List<Pair> pairs = new ArrayList<Pair>();
+        int lineNo = 0;
+        for (String line: Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            lineNo++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] cols = line.split("\t");
+            if (cols.length != 2) {
+                throw new IOException(manifestFile + ":" + lineNo + ": expected \"control<TAB>test\"");
+            }
+            pairs.add(new Pair(baseDir.resolve(cols[0].trim()).toString(), baseDir.resolve(cols[1].trim()).toString()));
+        }
+        return pairs;
+    }
+
+    /**
+     * 두 폴더 아래의 .hwp/.hwpx 파일을 상대경로로 짝짓는다. 한쪽에만 있는 파일은 다른 쪽을 null로 둔다.
+     */
+    public static List<Pair> matchDirectories(String controlDir, String testDir) throws IOException {
+        Path controlRoot = Paths.get(controlDir);
+        Path testRoot = Paths.get(testDir);
+        TreeSet<String> names = new TreeSet<String>(listHancomFiles(controlRoot));
+        names.addAll(listHancomFiles(testRoot));
+
+        List<Pair> pairs = new ArrayList<Pair>();
+        for (String name: names) {
+            Path control = controlRoot.resolve(name);
+            Path test = testRoot.resolve(name);
+            pairs.add(new Pair(Files.isRegularFile(control) ? control.toString() : null,
+                               Files.isRegularFile(test) ? test.toString() : null));
+        }
+        return pairs;
+    }
+
+    static List<String> listHancomFiles(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile)
+                        .filter(p -> {
+                            String name = p.getFileName().toString().toLowerCase(Locale.ROOT);
+                            return name.endsWith(".hwp") || name.endsWith(".hwpx");
+                        })
+                        .map(p -> root.relativize(p).toString())
+                        .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 모든 쌍을 비교한다. 대기열이 차면 호출한 thread가 직접 비교하므로 대기 중인 작업은 threads*2개를 넘지 않는다.
+     * @return 실패한 쌍의 수
+     */
+    public int run(List<Pair> pairs) throws InterruptedException {
+        long started = System.nanoTime();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                                             new ArrayBlockingQueue<Runnable>(threads*2),
+                                                             new ThreadPoolExecutor.CallerRunsPolicy());
+        for (Pair pair: pairs) {
+            executor.execute(() -> emit(compare(pair)));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+        log.info("pairs=" + pairs.size() + ", ok=" + okCount.get() + ", failed=" + failCount.get()
+                 + ", threads=" + threads + ", elapsed=" + toMillis(System.nanoTime() - started) + "ms");
+        return failCount.get();
+    }
+
+    private synchronized void emit(String json) {
+        out.println(json);
+        out.flush();
+    }
+
+    /**
+     * 한 쌍을 비교하여 JSON 한 줄을 만든다. 실패해도 다른 쌍은 계속 비교하도록 예외는 결과에 담는다.
+     */
+    String compare(Pair pair) {
+        long started = System.nanoTime();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"control\":").append(quote(pair.control))
+          .append(",\"test\":").append(quote(pair.test));
+
+        if (pair.control == null || pair.test == null) {
+            failCount.incrementAndGet();
+            sb.append(",\"status\":\"missing\"}");
+            return sb.toString();
+        }
+
+        HwpComparer comp = new HwpComparer();
+        try {
+            long t0 = System.nanoTime();
+            List<ParaNode> controlList = comp.loadHwp(pair.control);
+            long t1 = System.nanoTime();
+            List<ParaNode> testList = comp.loadHwp(pair.test);
+            long t2 = System.nanoTime();
+            List<ParaDiff.Hunk> hunks = comp.diff(controlList, testList);
+            long t3 = System.nanoTime();
+
+            int equal = 0, deleted = 0, inserted = 0;
+            StringBuilder hunkJson = new StringBuilder();
+            for (ParaDiff.Hunk hunk: hunks) {
+                switch (hunk.type) {
+                case EQUAL:
+                    equal += hunk.paras.size();
+                    continue;
+                case DELETE:
+                    deleted += hunk.paras.size();
+                    break;
+                case INSERT:
+                    inserted += hunk.paras.size();
+                    break;
+                }
+                if (hunkJson.length() > 0) {
+                    hunkJson.append(',');
+                }
+                hunkJson.append("{\"type\":\"").append(hunk.type)
+                        .append("\",\"control\":[").append(hunk.controlStart+1).append(',').append(hunk.controlEnd-hunk.controlStart)
+                        .append("],\"test\":[").append(hunk.testStart+1).append(',').append(hunk.testEnd-hunk.testStart)
+                        .append("],\"paras\":[");
+                for (int i=0; i < hunk.paras.size(); i++) {
+                    ParaNode node = hunk.paras.get(i);
+                    if (i > 0) {
+                        hunkJson.append(',');
+                    }
+                    hunkJson.append(quote((node.showNumberingHead?node.numberingHead+" ":"") + node.content));
+                }
+                hunkJson.append("]}");
+            }
+
+            okCount.incrementAndGet();
+            sb.append(",\"status\":\"").append(deleted+inserted==0 ? "same" : "changed").append('"')
+              .append(",\"equal\":").append(equal)
+              .append(",\"deleted\":").append(deleted)
+              .append(",\"inserted\":").append(inserted)
+              .append(",\"controlLoadMs\":").append(toMillis(t1-t0))
+              .append(",\"testLoadMs\":").append(toMillis(t2-t1))
+              .append(",\"diffMs\":").append(toMillis(t3-t2))
+              .append(",\"totalMs\":").append(toMillis(System.nanoTime()-started))
+              .append(",\"hunks\":[").append(hunkJson).append("]}");
+        } catch (Exception e) {
+            log.severe(pair.control + " <> " + pair.test + ": " + e);
+            failCount.incrementAndGet();
+            sb.append(",\"status\":\"error\"")
+              .append(",\"error\":").append(quote(e.getClass().getSimpleName() + (e.getMessage()==null ? "" : ": " + e.getMessage())))
+              .append(",\"totalMs\":").append(toMillis(System.nanoTime()-started))
+              .append('}');
+        } finally {
+            comp.close();
+        }
+        return sb.toString();
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length()+2);
+        sb.append('"');
+        for (int i=0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '"':   sb.append("\\\""); break;
+            case '\\':  sb.append("\\\\"); break;
+            case '\n':  sb.append("\\n"); break;
+            case '\r':  sb.append("\\r"); break;
+            case '\t':  sb.append("\\t"); break;
+            default:
+                if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int)c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
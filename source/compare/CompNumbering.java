@@ -31,20 +31,29 @@ import HwpDoc.HwpElement.HwpRecord_Numbering;
 import HwpDoc.HwpElement.HwpRecord_Numbering.Numbering;
 import HwpDoc.paragraph.Ctrl_SectionDef;
 
+/**
+ * 문서 하나의 번호/글머리표 style과 현재 번호. 문서마다 새로 만들어 쓴다.
+ */
 public class CompNumbering {
 	private static final Logger log = Logger.getLogger(CompNumbering.class.getName());
 
-	public static Map<Integer, String> numberingStyleNameMap = new HashMap<Integer, String>();
-	public static Map<Integer, String> bulletStyleNameMap = new HashMap<Integer, String>();
+	private final CompPage page;
+
+	public Map<Integer, String> numberingStyleNameMap = new HashMap<Integer, String>();
+	public Map<Integer, String> bulletStyleNameMap = new HashMap<Integer, String>();
 	private static final String NUMBERING_STYLE_PREFIX = "HWP numbering ";
 	private static final String BULLET_STYLE_PREFIX = "HWP bullet ";
 	
 	// UNOAPI를 사용하지 않는 경우, 현재 numbering 값을 가져오기 위해 사용
-	private static Map<String, Integer[]> numberingNumbersMap = new HashMap<String, Integer[]>();
-	private static Map<String, Integer> prevNumberingLevelMap = new HashMap<String, Integer>();
-	private static Map<String, Integer[]> bulletNumbersMap = new HashMap<String, Integer[]>();
+	private Map<String, Integer[]> numberingNumbersMap = new HashMap<String, Integer[]>();
+	private Map<String, Integer> prevNumberingLevelMap = new HashMap<String, Integer>();
+	private Map<String, Integer[]> bulletNumbersMap = new HashMap<String, Integer[]>();
+
+	public CompNumbering(CompPage page) {
+		this.page = page;
+	}
 	
-	public static String getNumberingHead(String hwpStyleName, HwpRecord_Numbering numbering, int headingLevel) {
+	public String getNumberingHead(String hwpStyleName, HwpRecord_Numbering numbering, int headingLevel) {
         
 	    Integer[] curNumbers = numberingNumbersMap.get(hwpStyleName);
 	    Integer prevLevel = prevNumberingLevelMap.get(hwpStyleName);
@@ -99,7 +108,7 @@ public class CompNumbering {
         return sb.toString();
 	}
 	
-	public static void makeCustomNumberingStyle(int id, HwpRecord_Numbering numbering) {
+	public void makeCustomNumberingStyle(int id, HwpRecord_Numbering numbering) {
         String hwpStyleName = NUMBERING_STYLE_PREFIX + id;
         numberingStyleNameMap.put(id, hwpStyleName);
 
@@ -110,7 +119,7 @@ public class CompNumbering {
         numberingNumbersMap.put(hwpStyleName, curNumbers);
     }
 	
-	public static void makeCustomBulletStyle(int id, HwpRecord_Bullet bullet) {
+	public void makeCustomBulletStyle(int id, HwpRecord_Bullet bullet) {
         String hwpStyleName = BULLET_STYLE_PREFIX + id;
         bulletStyleNameMap.put(id, hwpStyleName);
         Integer[] curNumbers = new Integer[10];
@@ -120,8 +129,8 @@ public class CompNumbering {
         bulletNumbersMap.put(hwpStyleName, curNumbers);
     }
 	   
-	public static String getOutlineStyleName() {
-		Ctrl_SectionDef secd = CompPage.getCurrentPage();
+	public String getOutlineStyleName() {
+		Ctrl_SectionDef secd = page.getCurrentPage();
 		return numberingStyleNameMap.get(secd.outlineNumberingID);
 	}
 }
@@ -26,28 +26,31 @@ import java.util.logging.Logger;
 
 import HwpDoc.paragraph.Ctrl_SectionDef;
 
+/**
+ * 문서 하나의 구역(section) 정의와 현재 구역 index. 문서마다 새로 만들어 쓴다.
+ */
 public class CompPage {
     private static final Logger log = Logger.getLogger(CompPage.class.getName());
 
-    private static Map<Integer, String> pageStyleNameMap = new HashMap<Integer, String>();
-    private static Map<Integer, Ctrl_SectionDef> pageMap = new HashMap<Integer, Ctrl_SectionDef>();
-    private static int customIndex = 0;
-    private static int secdIndex = 0;
+    private Map<Integer, String> pageStyleNameMap = new HashMap<Integer, String>();
+    private Map<Integer, Ctrl_SectionDef> pageMap = new HashMap<Integer, Ctrl_SectionDef>();
+    private int customIndex = 0;
+    private int secdIndex = 0;
     private static final String PAGE_STYLE_PREFIX = "HWP ";
 
-    public static int getSectionIndex() {
+    public int getSectionIndex() {
         return secdIndex;
     }
 
-    public static void setSectionIndex(int index) {
+    public void setSectionIndex(int index) {
         secdIndex = index;
     }
 
-    public static Ctrl_SectionDef getCurrentPage() {
+    public Ctrl_SectionDef getCurrentPage() {
         return pageMap.get(secdIndex);
     }
 
-    public static String makeCustomPageStyle(Ctrl_SectionDef secd) {
+    public String makeCustomPageStyle(Ctrl_SectionDef secd) {
         String styleName = PAGE_STYLE_PREFIX + customIndex;
         pageStyleNameMap.put(customIndex, styleName);
         pageMap.put(customIndex, secd);
@@ -1,20 +1,22 @@
 package compare;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.zip.DataFormatException;
 
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.xml.sax.SAXException;
 
+import HwpDoc.HancomDetector;
 import HwpDoc.HwpDetectException;
 import HwpDoc.HwpDocInfo;
 import HwpDoc.HwpFile;
@@ -26,10 +28,6 @@ import HwpDoc.Exception.CompoundParseException;
 import HwpDoc.Exception.HwpParseException;
 import HwpDoc.Exception.NotImplementedException;
 import HwpDoc.Exception.OwpmlParseException;
-import HwpDoc.HwpElement.HwpRecord_Bullet;
-import HwpDoc.HwpElement.HwpRecord_Numbering;
-import HwpDoc.HwpElement.HwpRecord_ParaShape;
-import HwpDoc.paragraph.Ctrl_SectionDef;
 import HwpDoc.paragraph.HwpParagraph;
 
 public class HwpComparer implements IContext {
@@ -37,9 +35,13 @@ public class HwpComparer implements IContext {
     private static final String PATTERN_STRING = "[\\u0000\\u000a\\u000d\\u0018-\\u001f]|[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017].{6}[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017]";
     public static Pattern pattern = Pattern.compile(PATTERN_STRING);
 
-    private static HwpFile hwp = null;
-    private static HwpxFile hwpx = null;
+    // 읽고 있는 문서. HwpComparer 하나는 한 thread에서만 사용한다.
+    private HwpFile hwp = null;
+    private HwpxFile hwpx = null;
     
+    /**
+     * 문서를 읽어 문단 목록을 돌려준다. 번호, 구역 상태는 문서마다 새로 만들고, 앞서 읽은 문서는 닫는다.
+     */
     public List<ParaNode> loadHwp(String inputFile) throws HwpDetectException, CompoundDetectException, NotImplementedException, 
                                                          IOException, CompoundParseException, DataFormatException, 
                                                          HwpParseException, ParserConfigurationException, SAXException, OwpmlParseException {
@@ -48,93 +50,34 @@ public class HwpComparer implements IContext {
         if (detectingType==null) {
             throw new HwpDetectException();
         }
+        close();
         
         List<HwpSection> sections = null;
         HwpDocInfo docInfo = null;
         switch(detectingType) {
         case "HWP":
-            hwp = new HwpFile(inputFile);
+            hwp = HancomDetector.takeHwp(new File(inputFile));
             hwp.open();
             sections = hwp.getSections();
             docInfo = hwp.getDocInfo();
             break;
         case "HWPX":
-            hwpx = new HwpxFile(inputFile);
+            hwpx = HancomDetector.takeHwpx(new File(inputFile));
             hwpx.open(this);
             sections = hwpx.getSections();
             docInfo = hwpx.getDocInfo();
             break;
         }
         
-        for (int i=0; i < docInfo.bulletList.size(); i++) {
-            // Bullet ID는 1부터 시작한다.
-            CompNumbering.makeCustomBulletStyle(i+1, (HwpRecord_Bullet)docInfo.bulletList.get(i));
-        }
-        for (int i=0; i < docInfo.numberingList.size(); i++) {
-            // Numbering ID는 1부터 시작한다.
-            CompNumbering.makeCustomNumberingStyle(i+1, (HwpRecord_Numbering)docInfo.numberingList.get(i));
-        }
-        
-        for (HwpSection section: sections) {
-            // 커스톰 PageStyle 생성
-            Ctrl_SectionDef secd =  (Ctrl_SectionDef)section.paraList.stream()
-                                                            .filter(p -> p.p!=null && p.p.size()>0)
-                                                            .flatMap(p -> p.p.stream())
-                                                            .filter(c -> (c instanceof Ctrl_SectionDef)).findAny().get();
-            CompPage.makeCustomPageStyle(secd);
-        }
-
         // 리턴 자료구조
         List<ParaNode> paraList = new ArrayList<ParaNode>();
         
-        int secIndex = 0;
+        ParaNodeBuilder builder = new ParaNodeBuilder(docInfo);
         for (int i=0; i<sections.size(); i++) {
             HwpSection section = sections.get(i);
-            CompPage.setSectionIndex(secIndex++);
-            String numberingPrefix = "";
-            
+            builder.startSection(i, section);
             for (HwpParagraph para: section.paraList) {
-                HwpRecord_ParaShape paraShape = (HwpRecord_ParaShape) docInfo.paraShapeList.get(para.paraShapeID);
-                
-                boolean showNumberingPrefix = false;
-                String numberingStyleName = "";
-                HwpRecord_Numbering numberingStyle = null;
-                switch(paraShape.headingType) {
-                case NONE:
-                    break;
-                case OUTLINE:
-                    numberingStyleName = CompNumbering.getOutlineStyleName();
-                    Ctrl_SectionDef secd = CompPage.getCurrentPage();
-                    if (secd.outlineNumberingID!=0 && docInfo.numberingList.size() > secd.outlineNumberingID-1) {
-                        numberingStyle = (HwpRecord_Numbering)docInfo.numberingList.get(secd.outlineNumberingID-1);
-                        numberingPrefix = CompNumbering.getNumberingHead(numberingStyleName, numberingStyle, paraShape.headingLevel);
-                        showNumberingPrefix = true;
-                    }
-                    break;
-                case NUMBER:
-                    log.finest("번호문단ID="+paraShape.headingIdRef + ",문단수준="+paraShape.headingLevel);
-                    if (paraShape.headingIdRef!=0) {
-                        numberingStyleName = CompNumbering.numberingStyleNameMap.get((int)paraShape.headingIdRef);
-                        if (numberingStyleName!=null) {
-                            numberingStyle = (HwpRecord_Numbering)docInfo.numberingList.get((int)paraShape.headingIdRef-1);
-                            numberingPrefix = CompNumbering.getNumberingHead(numberingStyleName, numberingStyle, paraShape.headingLevel);
-                            showNumberingPrefix = true;
-                        }
-                    }
-                    break;
-                case BULLET:
-                    log.finest("글머리표문단ID="+paraShape.headingIdRef + ",문단수준="+paraShape.headingLevel);
-                    if (paraShape.headingIdRef!=0 && docInfo.bulletList.size() > paraShape.headingIdRef-1) {
-                        numberingStyleName = CompNumbering.bulletStyleNameMap.get((int)paraShape.headingIdRef);
-                        HwpRecord_Bullet bulletStyle = (HwpRecord_Bullet)docInfo.bulletList.get((int)paraShape.headingIdRef-1);
-                        numberingPrefix = Character.toString((char)bulletStyle.bulletChar);
-                        showNumberingPrefix = true;
-                    }
-                    break;
-                }
-                String paragraph = CompRecurs.getParaString(para);
-                
-                paraList.add(new ParaNode(numberingPrefix, showNumberingPrefix, paragraph));
+                paraList.add(builder.build(para));
             }
         }
         
@@ -149,123 +92,58 @@ public class HwpComparer implements IContext {
                 hwpx.close();
         } catch(IOException e) {
             e.printStackTrace();
+        } finally {
+            hwp = null;
+            hwpx = null;
         }
     }
 
     private static String detectHancom(String inputFile) {
         String detectingType = null;
         
-        HwpxFile hwpxTemp = null;
-        try {
-            hwpxTemp = new HwpxFile(inputFile);
-            hwpxTemp.detect();
+        switch (HancomDetector.detect(new File(inputFile))) {
+        case HWP:
+            detectingType = "HWP";
+            break;
+        case HWPX:
             detectingType = "HWPX";
-            hwpxTemp.close();
-        } catch (IOException | HwpDetectException e1) {
-            try {
-                hwpxTemp.close();
-            } catch (IOException e) {
-                log.severe(e.getMessage());
-            }
-            
-            HwpFile hwpTemp = null;
-            try {
-                hwpTemp = new HwpFile(inputFile);
-                hwpTemp.detect();
-                detectingType = "HWP";
-                hwpTemp.close();
-            } catch (IOException | HwpDetectException e2) {
-                log.info("file detected neither HWPX nor HWP");
-                try {
-                    hwpTemp.close();
-                } catch (IOException e) {
-                    log.severe(e.getMessage());
-                }
-            }
+            break;
+        case NONE:
+            log.info("file detected neither HWPX nor HWP");
+            break;
         }
         return detectingType;
     }
     
-    private LinkedList<Pair<ParaNode, ParaNode>> getMatched(List<ParaNode> controlList, List<ParaNode> testList) {
-        LinkedList<Pair<ParaNode, ParaNode>> matches = new LinkedList<>();
-        
-        for (int i=0; i< controlList.size(); i++) {
-            ParaNode control = controlList.get(i);
-            
-            if (control.content.equals("")) {
-                continue;
-            }
-            
-            if (testList.contains(control)) {   // 동일값이 여러개 있다면 가장 처음에 있는것이 찾아진다.
-                matches.add(new Pair<>(control, control));
-            }
-        }
-        return matches;
-    }
-    
+    /**
+     * 빈 문단을 뺀 두 문단 목록을 비교한다. 결과는 "@@ -control위치,개수 +test위치,개수 @@" 머리줄 뒤에
+     * 문단마다 "[=] ", "[-] "(control에만 있음), "[+] "(test에만 있음)을 붙인 줄이다. 위치는 빈 문단을 뺀 순서로 1부터 센다.
+     */
     public List<String> compare(List<ParaNode> controlList, List<ParaNode> testList) {
         List<String> ret = new ArrayList<String>();
-        
-        LinkedList<Pair<ParaNode, ParaNode>> matched = getMatched(controlList, testList);
 
-        int lastIdxA = 0, lastIdxB = 0;
-        for (Pair<ParaNode, ParaNode> pair: matched) {
-            ParaNode control = pair.left;
-            ParaNode test = pair.right;
-            
-            int indexA = controlList.indexOf(control);
-            if (indexA < lastIdxA) {
-                for (int i=lastIdxA+1; i<=controlList.lastIndexOf(control); i++) {
-                    if (controlList.get(i).equals(control)) {
-                        indexA = i;
-                        break;
-                    }
-                }
+        for (ParaDiff.Hunk hunk: diff(controlList, testList)) {
+            ret.add("@@ -" + (hunk.controlStart+1) + "," + (hunk.controlEnd-hunk.controlStart)
+                    + " +" + (hunk.testStart+1) + "," + (hunk.testEnd-hunk.testStart) + " @@");
+            String mark = hunk.type==ParaDiff.Type.EQUAL ? "[=] " : hunk.type==ParaDiff.Type.DELETE ? "[-] " : "[+] ";
+            for (ParaNode node: hunk.paras) {
+                ret.add(mark + (node.showNumberingHead?node.numberingHead:"") + " " + node.content);
             }
-            // controlList 에서 unmatched List또는 Map을 구성한다.
-            for (int i=lastIdxA+1; i< indexA; i++) {
-                ParaNode node = controlList.get(i);
-                if (node.content.equals("")==false) {
-                    System.out.println("[+] "+ (control.showNumberingHead?control.numberingHead:"") + " " + node.content);
-                }
-            }
-            
-            int indexB = testList.indexOf(test);
-            if (indexB < lastIdxB) {
-                for (int i=lastIdxB+1; i<=testList.lastIndexOf(control); i++) {
-                    if (testList.get(i).equals(test)) {
-                        indexB = i;
-                        break;
-                    }
-                }
-            }
-            // testList에서 unmatched List 또는 Map을 구성한다.
-            for (int i=lastIdxB+1; i < indexB; i++) {
-                ParaNode node = testList.get(i);
-                if (node.content.equals("")==false) {
-                    System.out.println("[-] "+ (control.showNumberingHead?control.numberingHead:"") + " " + node.content);
-                }
-            }
-            
-            System.out.println("[=] "+ (control.showNumberingHead?control.numberingHead:"") + " " + control.content);
-            
-            lastIdxA = indexA;
-            lastIdxB = indexB;
         }
-        
         return ret;
     }
-    
-    private class Pair<L, R>{
-        L left;
-        R right;
-        
-        private Pair(L left, R right){
-            this.left = left;
-            this.right = right;
-        }
+
+    /**
+     * 빈 문단을 뺀 두 문단 목록의 차이를 EQUAL, DELETE, INSERT 묶음으로 돌려준다.
+     */
+    public List<ParaDiff.Hunk> diff(List<ParaNode> controlList, List<ParaNode> testList) {
+        return ParaDiff.diff(nonEmpty(controlList), nonEmpty(testList));
     }
-    
+
+    private static List<ParaNode> nonEmpty(List<ParaNode> list) {
+        return list.stream().filter(node -> node.content.equals("")==false).collect(Collectors.toList());
+    }
+
     public static void main(String[] args) {
         
         Logger root = LogManager.getLogManager().getLogger("");
@@ -274,6 +152,10 @@ public class HwpComparer implements IContext {
             h.setLevel(Level.OFF);
         }
         
+        if (args.length>=2 && args[0].equals("-batch")) {                // 여러 쌍을 병렬로 비교
+            System.exit(batch(args));
+        }
+        
         HwpComparer comp = new HwpComparer();
         
         if (args.length==2 && args[0].equals("-print")) {               // Hwp 내용 출력
@@ -311,10 +193,55 @@ public class HwpComparer implements IContext {
             System.out.println("Hwp File compare tool ver 0.1  created by heesu.ban@k2web.co.kr");
             System.out.println("Usage #1 (compare hwp files) : java -jar HwpComparer.jar -diff hwpfile1 hwpfile2");
             System.out.println("Usage #2 (print hwp content) : java -jar HwpComparer.jar -print hwpfile");
+            System.out.println("Usage #3 (compare in batch)  : java -jar HwpComparer.jar -batch manifest [-threads N]");
+            System.out.println("                               java -jar HwpComparer.jar -batch controlDir testDir [-threads N]");
+            System.out.println("      manifest has one \"controlfile<TAB>testfile\" per line. results are printed as JSON Lines.");
         }
         comp.close();
     }
 
+    /**
+     * -batch manifest [-threads N] 또는 -batch controlDir testDir [-threads N]
+     * @return 모두 비교했으면 0, 실패한 쌍이 있으면 1, 인자가 틀렸으면 2
+     */
+    private static int batch(String[] args) {
+        List<String> inputs = new ArrayList<String>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i=1; i < args.length; i++) {
+            if (args[i].equals("-threads") && i+1 < args.length) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("invalid thread count: " + args[i]);
+                    return 2;
+                }
+            } else {
+                inputs.add(args[i]);
+            }
+        }
+
+        try {
+            List<BatchComparer.Pair> pairs;
+            if (inputs.size()==1) {
+                pairs = BatchComparer.readManifest(inputs.get(0));
+            } else if (inputs.size()==2) {
+                pairs = BatchComparer.matchDirectories(inputs.get(0), inputs.get(1));
+            } else {
+                System.err.println("Usage : java -jar HwpComparer.jar -batch (manifest | controlDir testDir) [-threads N]");
+                return 2;
+            }
+            int failed = new BatchComparer(threads, System.out).run(pairs);
+            System.err.println("pairs=" + pairs.size() + ", failed=" + failed);
+            return failed==0 ? 0 : 1;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 2;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 2;
+        }
+    }
+
 	@Override
 	public HwpxFile getHwpx() {
 		return hwpx;
@@ -0,0 +1,348 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package compare;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+import HwpDoc.HancomDetector;
+import HwpDoc.HwpDetectException;
+import HwpDoc.HwpFile;
+import HwpDoc.HwpSection;
+import HwpDoc.HwpxFile;
+import HwpDoc.IContext;
+import HwpDoc.Exception.CompoundDetectException;
+import HwpDoc.Exception.CompoundParseException;
+import HwpDoc.Exception.HwpParseException;
+import HwpDoc.Exception.NotImplementedException;
+import HwpDoc.Exception.OwpmlParseException;
+import HwpDoc.HwpElement.HwpRecord_ParaShape;
+import HwpDoc.HwpElement.HwpRecord_ParaShape.HeadingType;
+import HwpDoc.paragraph.HwpParagraph;
+
+/**
+ * LibreOffice 없이 HWP/HWPX 문서의 내용을 plain text나 Markdown으로 꺼낸다.
+ * section을 하나씩 읽어 바로 Writer에 쓰고 버리므로, 문서 크기와 관계없이 section 하나만큼의 메모리만 쓴다.
+ * HwpExtractor 하나는 한 thread에서만 사용한다. 여러 문서는 문서마다 HwpExtractor를 만들어 동시에 처리한다.
+ */
+public class HwpExtractor implements IContext {
+    private static final Logger log = Logger.getLogger(HwpExtractor.class.getName());
+
+    public enum Format { TEXT, MARKDOWN }
+
+    private final Format format;
+    private HwpxFile hwpx = null;
+
+    public HwpExtractor(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * 문서를 읽어 out에 쓴다. 빈 문단은 쓰지 않고, out은 닫지 않는다.
+     * @return 쓴 문단 수
+     */
+    public int extract(String inputFile, Writer out) throws HwpDetectException, CompoundDetectException, NotImplementedException,
+                                                            IOException, CompoundParseException, DataFormatException,
+                                                            HwpParseException, ParserConfigurationException, SAXException, OwpmlParseException {
+        File file = new File(inputFile);
+        switch (HancomDetector.detect(file)) {
+        case HWP:
+            {
+                HwpFile hwp = HancomDetector.takeHwp(file);
+                try {
+                    hwp.openDocInfo();
+                    SectionWriter writer = new SectionWriter(new ParaNodeBuilder(hwp.getDocInfo()), out);
+                    hwp.readSections(writer);
+                    return writer.count;
+                } finally {
+                    hwp.close();
+                }
+            }
+        case HWPX:
+            {
+                hwpx = HancomDetector.takeHwpx(file);
+                try {
+                    hwpx.openDocInfo();
+                    SectionWriter writer = new SectionWriter(new ParaNodeBuilder(hwpx.getDocInfo()), out);
+                    hwpx.readSections(this, writer);
+                    return writer.count;
+                } finally {
+                    hwpx.close();
+                    hwpx = null;
+                }
+            }
+        default:
+            throw new HwpDetectException();
+        }
+    }
+
+    @Override
+    public HwpxFile getHwpx() {
+        return hwpx;
+    }
+
+    /**
+     * section 하나의 문단을 차례로 쓴다. 번호는 ParaNodeBuilder가 문서 처음부터 이어서 매긴다.
+     */
+    private class SectionWriter implements HwpSection.Handler {
+        private final ParaNodeBuilder builder;
+        private final Writer out;
+        private boolean inList = false;     // Markdown 목록을 쓰는 중
+        int count = 0;
+
+        SectionWriter(ParaNodeBuilder builder, Writer out) {
+            this.builder = builder;
+            this.out = out;
+        }
+
+        @Override
+        public void handle(int index, HwpSection section) throws IOException {
+            builder.startSection(index, section);
+            for (HwpParagraph para: section.paraList) {
+                ParaNode node = builder.build(para);
+                if (node.content.equals("")) {
+                    continue;
+                }
+                if (format == Format.MARKDOWN) {
+                    writeMarkdown(builder.getParaShape(para), node);
+                } else {
+                    out.write(node.showNumberingHead ? node.numberingHead + " " + node.content : node.content);
+                    out.write('\n');
+                }
+                count++;
+            }
+            out.flush();
+        }
+
+        private void writeMarkdown(HwpRecord_ParaShape paraShape, ParaNode node) throws IOException {
+            String head = node.showNumberingHead ? escape(node.numberingHead) + " " : "";
+            String oneLine = node.content.replace('\n', ' ');
+
+            if (paraShape.headingType == HeadingType.OUTLINE) {
+                endList();
+                out.write("#".repeat(Math.min(paraShape.headingLevel+1, 6)) + " " + head + oneLine + "\n\n");
+            } else if (node.showNumberingHead && paraShape.headingType == HeadingType.BULLET) {
+                out.write("  ".repeat(paraShape.headingLevel) + "- " + oneLine + "\n");
+                inList = true;
+            } else if (node.showNumberingHead && paraShape.headingType == HeadingType.NUMBER) {
+                // "가.", "(1)" 같은 번호도 있으므로 번호는 글자 그대로 두고 목록으로 쓴다.
+                out.write("  ".repeat(paraShape.headingLevel) + "- " + head + oneLine + "\n");
+                inList = true;
+            } else {
+                endList();
+                String[] lines = node.content.split("\n", -1);
+                for (int i=0; i < lines.length; i++) {
+                    out.write(escape(lines[i]));
+                    out.write(i < lines.length-1 ? "  \n" : "\n\n");
+                }
+            }
+        }
+
+        private void endList() throws IOException {
+            if (inList) {
+                out.write('\n');
+                inList = false;
+            }
+        }
+    }
+
+    /**
+     * 줄 맨 앞에서 Markdown 문법으로 읽힐 글자(#, >, -, 1. 등) 앞에 '\'를 붙인다.
+     */
+    static String escape(String line) {
+        if (line.isEmpty()) {
+            return line;
+        }
+        char c = line.charAt(0);
+        if (c == '#' || c == '>' || c == '-' || c == '+' || c == '*' || c == '=' || c == '|' || c == '\\') {
+            return "\\" + line;
+        }
+        int i = 0;
+        while (i < line.length() && i < 9 && Character.isDigit(line.charAt(i))) {
+            i++;
+        }
+        if (i > 0 && i < line.length() && (line.charAt(i) == '.' || line.charAt(i) == ')')) {
+            return line.substring(0, i) + "\\" + line.substring(i);
+        }
+        return line;
+    }
+
+    public static void main(String[] args) {
+
+        Logger root = LogManager.getLogManager().getLogger("");
+        root.setLevel(Level.OFF);
+        for (Handler h : root.getHandlers()) {
+            h.setLevel(Level.OFF);
+        }
+
+        Format format = Format.TEXT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String outDir = null;
+        List<String> inputs = new ArrayList<String>();
+        try {
+            for (int i=0; i < args.length; i++) {
+                if (args[i].equals("-md")) {
+                    format = Format.MARKDOWN;
+                } else if (args[i].equals("-threads") && i+1 < args.length) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-o") && i+1 < args.length) {
+                    outDir = args[++i];
+                } else {
+                    inputs.add(args[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            inputs.clear();
+        }
+        if (inputs.isEmpty()) {
+            System.out.println("Hwp text extractor ver 0.1");
+            System.out.println("Usage #1 (print to stdout)   : java -cp HwpComparer.jar compare.HwpExtractor [-md] hwpfile...");
+            System.out.println("Usage #2 (extract in batch)  : java -cp HwpComparer.jar compare.HwpExtractor [-md] [-threads N] -o outDir (hwpfile | dir)...");
+            System.out.println("      -md writes Markdown (.md) instead of plain text (.txt). directories are searched for .hwp/.hwpx files.");
+            System.exit(2);
+        }
+
+        int failed;
+        try {
+            if (outDir == null) {
+                failed = extractToStdout(inputs, format);
+            } else {
+                failed = extractAll(inputs, format, threads, Paths.get(outDir));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            failed = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed = -1;
+        }
+        System.exit(failed == 0 ? 0 : failed < 0 ? 2 : 1);
+    }
+
+    private static int extractToStdout(List<String> inputs, Format format) throws IOException {
+        int failed = 0;
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        for (String input: inputs) {
+            try {
+                new HwpExtractor(format).extract(input, out);
+            } catch (Exception e) {
+                System.err.println(input + ": " + e);
+                failed++;
+            }
+        }
+        out.flush();
+        return failed;
+    }
+
+    /**
+     * inputs의 문서를 threads개의 thread로 outDir 아래에 하나씩 쓴다. 폴더 안의 문서는 그 폴더 기준 상대경로를 유지한다.
+     * 출력 경로가 겹치면(다른 폴더의 같은 이름 등) 뒤의 것에 "~2", "~3" 을 붙인다.
+     * @return 실패한 문서 수
+     */
+    private static int extractAll(List<String> inputs, Format format, int threads, Path outDir) throws IOException, InterruptedException {
+        String ext = format == Format.MARKDOWN ? ".md" : ".txt";
+        List<String[]> jobs = new ArrayList<String[]>();     // {입력 파일, 출력 상대경로}
+        Set<String> targets = new HashSet<String>();         // 이미 정한 출력 경로 (대소문자 구분 없는 파일시스템도 고려)
+        for (String input: inputs) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                for (String name: BatchComparer.listHancomFiles(path)) {
+                    jobs.add(new String[] { path.resolve(name).toString(), uniqueTarget(targets, outDir, name, ext) });
+                }
+            } else {
+                jobs.add(new String[] { input, uniqueTarget(targets, outDir, path.getFileName().toString(), ext) });
+            }
+        }
+
+        long started = System.nanoTime();
+        AtomicInteger failed = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                                                             new ArrayBlockingQueue<Runnable>(poolSize*2),
+                                                             new ThreadPoolExecutor.CallerRunsPolicy());
+        for (String[] job: jobs) {
+            executor.execute(() -> {
+                Path target = outDir.resolve(job[1]);
+                try {
+                    Files.createDirectories(target.getParent());
+                    try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                        new HwpExtractor(format).extract(job[0], out);
+                    }
+                } catch (Exception e) {
+                    log.severe(job[0] + ": " + e);
+                    System.err.println(job[0] + ": " + e);
+                    failed.incrementAndGet();
+                    try {
+                        Files.deleteIfExists(target);
+                    } catch (IOException e1) {
+                        e1.printStackTrace();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        System.err.println("files=" + jobs.size() + ", failed=" + failed.get() + ", threads=" + poolSize
+                           + ", elapsed=" + elapsed + "ms, " + (jobs.size()*60000L/Math.max(1, elapsed)) + " files/min");
+        return failed.get();
+    }
+
+    /**
+     * name + ext 가 이미 쓰인 출력 경로면 name~2 + ext, name~3 + ext ... 중 비어 있는 것을 돌려준다.
+     */
+    private static String uniqueTarget(Set<String> targets, Path outDir, String name, String ext) {
+        String target = name + ext;
+        for (int n = 2; targets.add(outDir.resolve(target).normalize().toString().toLowerCase(Locale.ROOT)) == false; n++) {
+            target = name + "~" + n + ext;
+        }
+        if (target.equals(name + ext) == false) {
+            System.err.println(name + ext + " is used by another input. writing " + target);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,233 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package compare;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 두 문단 목록의 차이를 구한다. Myers O(ND) 알고리즘을 middle snake로 나누어 선형 공간에서 구한다.
+ * 문단은 같은 ParaNode(번호+내용)끼리 같은 정수로 바꾸어(interning) 비교하므로, 같은 문단이 여러 번 있어도 순서대로 맞춘다.
+ */
+public class ParaDiff {
+
+    public enum Type { EQUAL, DELETE, INSERT }
+
+    /**
+     * 같은 종류로 이어진 문단 묶음. DELETE는 control에만, INSERT는 test에만 있는 문단이다.
+     * 위치는 diff()에 넘긴 목록의 index이고, end는 포함하지 않는다.
+     */
+    public static class Hunk {
+        public final Type type;
+        public final int controlStart;
+        public final int controlEnd;
+        public final int testStart;
+        public final int testEnd;
+        public final List<ParaNode> paras;
+
+        Hunk(Type type, int controlStart, int controlEnd, int testStart, int testEnd, List<ParaNode> paras) {
+            this.type = type;
+            this.controlStart = controlStart;
+            this.controlEnd = controlEnd;
+            this.testStart = testStart;
+            this.testEnd = testEnd;
+            this.paras = paras;
+        }
+    }
+
+    private final int[] a;
+    private final int[] b;
+    private final boolean[] deleted;
+    private final boolean[] inserted;
+
+    private ParaDiff(int[] a, int[] b) {
+        this.a = a;
+        this.b = b;
+        this.deleted = new boolean[a.length];
+        this.inserted = new boolean[b.length];
+    }
+
+    public static List<Hunk> diff(List<ParaNode> controlList, List<ParaNode> testList) {
+        Map<ParaNode, Integer> ids = new HashMap<ParaNode, Integer>();
+        int[] a = intern(controlList, ids);
+        int[] b = intern(testList, ids);
+
+        ParaDiff diff = new ParaDiff(a, b);
+        diff.compare(0, a.length, 0, b.length);
+        return diff.toHunks(controlList, testList);
+    }
+
+    private static int[] intern(List<ParaNode> list, Map<ParaNode, Integer> ids) {
+        int[] seq = new int[list.size()];
+        int i = 0;
+        for (ParaNode node: list) {
+            Integer id = ids.get(node);
+            if (id == null) {
+                id = ids.size();
+                ids.put(node, id);
+            }
+            seq[i++] = id;
+        }
+        return seq;
+    }
+
+    /**
+     * a[aLo,aHi)와 b[bLo,bHi)를 비교하여 deleted, inserted에 표시한다.
+     */
+    private void compare(int aLo, int aHi, int bLo, int bHi) {
+        // 앞뒤의 같은 부분은 건너뛴다.
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            aLo++;
+            bLo++;
+        }
+        while (aLo < aHi && bLo < bHi && a[aHi-1] == b[bHi-1]) {
+            aHi--;
+            bHi--;
+        }
+
+        if (aLo == aHi) {
+            Arrays.fill(inserted, bLo, bHi, true);
+        } else if (bLo == bHi) {
+            Arrays.fill(deleted, aLo, aHi, true);
+        } else {
+            int[] split = middleSnake(aLo, aHi, bLo, bHi);
+            if (split == null) {
+                Arrays.fill(deleted, aLo, aHi, true);
+                Arrays.fill(inserted, bLo, bHi, true);
+            } else {
+                compare(aLo, split[0], bLo, split[1]);
+                compare(split[0], aHi, split[1], bHi);
+            }
+        }
+    }
+
+    /**
+     * 앞과 뒤에서 동시에 D-path를 늘려가다 겹치는 지점을 찾는다.
+     * @return 나눌 위치 {x, y}. 겹치는 지점이 없으면 null
+     */
+    private int[] middleSnake(int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int length = 2 * maxD + 2;
+        int[] vf = new int[length];
+        int[] vb = new int[length];
+        Arrays.fill(vf, -1);
+        Arrays.fill(vb, -1);
+        vf[offset + 1] = 0;
+        vb[offset + 1] = 0;
+        int delta = n - m;
+        boolean front = (delta & 1) != 0;   // delta가 홀수이면 앞쪽 path에서 겹침을 확인한다.
+        int kfStart = 0, kfEnd = 0, kbStart = 0, kbEnd = 0;
+
+        for (int d = 0; d < maxD; d++) {
+            for (int k = -d + kfStart; k <= d - kfEnd; k += 2) {
+                int kOffset = offset + k;
+                int x;
+                if (k == -d || (k != d && vf[kOffset - 1] < vf[kOffset + 1])) {
+                    x = vf[kOffset + 1];
+                } else {
+                    x = vf[kOffset - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x++;
+                    y++;
+                }
+                vf[kOffset] = x;
+                if (x > n) {
+                    kfEnd += 2;         // 오른쪽 밖으로 나갔다.
+                } else if (y > m) {
+                    kfStart += 2;       // 아래쪽 밖으로 나갔다.
+                } else if (front) {
+                    int kbOffset = offset + delta - k;
+                    if (kbOffset >= 0 && kbOffset < length && vb[kbOffset] != -1) {
+                        if (x >= n - vb[kbOffset]) {
+                            return new int[] { aLo + x, bLo + y };
+                        }
+                    }
+                }
+            }
+
+            for (int k = -d + kbStart; k <= d - kbEnd; k += 2) {
+                int kOffset = offset + k;
+                int x;
+                if (k == -d || (k != d && vb[kOffset - 1] < vb[kOffset + 1])) {
+                    x = vb[kOffset + 1];
+                } else {
+                    x = vb[kOffset - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[aHi - x - 1] == b[bHi - y - 1]) {
+                    x++;
+                    y++;
+                }
+                vb[kOffset] = x;
+                if (x > n) {
+                    kbEnd += 2;
+                } else if (y > m) {
+                    kbStart += 2;
+                } else if (front == false) {
+                    int kfOffset = offset + delta - k;
+                    if (kfOffset >= 0 && kfOffset < length && vf[kfOffset] != -1) {
+                        int xf = vf[kfOffset];
+                        int yf = offset + xf - kfOffset;
+                        if (xf >= n - x) {
+                            return new int[] { aLo + xf, bLo + yf };
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<Hunk> toHunks(List<ParaNode> controlList, List<ParaNode> testList) {
+        List<Hunk> hunks = new ArrayList<Hunk>();
+        int i = 0, j = 0;
+        while (i < a.length || j < b.length) {
+            int i0 = i, j0 = j;
+            if (i < a.length && deleted[i]) {
+                while (i < a.length && deleted[i]) {
+                    i++;
+                }
+                hunks.add(new Hunk(Type.DELETE, i0, i, j, j, Collections.unmodifiableList(controlList.subList(i0, i))));
+            } else if (j < b.length && inserted[j]) {
+                while (j < b.length && inserted[j]) {
+                    j++;
+                }
+                hunks.add(new Hunk(Type.INSERT, i, i, j0, j, Collections.unmodifiableList(testList.subList(j0, j))));
+            } else {
+                while (i < a.length && j < b.length && deleted[i] == false && inserted[j] == false) {
+                    i++;
+                    j++;
+                }
+                hunks.add(new Hunk(Type.EQUAL, i0, i, j0, j, Collections.unmodifiableList(controlList.subList(i0, i))));
+            }
+        }
+        return hunks;
+    }
+}
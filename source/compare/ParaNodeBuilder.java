@@ -0,0 +1,115 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package compare;
+
+import java.util.logging.Logger;
+
+import HwpDoc.HwpDocInfo;
+import HwpDoc.HwpSection;
+import HwpDoc.HwpElement.HwpRecord_Bullet;
+import HwpDoc.HwpElement.HwpRecord_Numbering;
+import HwpDoc.HwpElement.HwpRecord_ParaShape;
+import HwpDoc.paragraph.Ctrl_SectionDef;
+import HwpDoc.paragraph.HwpParagraph;
+
+/**
+ * 문서 하나의 문단을 번호 머리와 내용(ParaNode)으로 바꾼다. 번호는 읽은 순서대로 매기므로
+ * section은 startSection()으로 순서대로 넘기고, 그 section의 문단을 build()한다.
+ */
+class ParaNodeBuilder {
+    private static final Logger log = Logger.getLogger(ParaNodeBuilder.class.getName());
+
+    private final HwpDocInfo docInfo;
+    private final CompPage page = new CompPage();
+    private final CompNumbering compNumbering = new CompNumbering(page);
+    private String numberingPrefix = "";
+
+    ParaNodeBuilder(HwpDocInfo docInfo) {
+        this.docInfo = docInfo;
+        for (int i=0; i < docInfo.bulletList.size(); i++) {
+            // Bullet ID는 1부터 시작한다.
+            compNumbering.makeCustomBulletStyle(i+1, (HwpRecord_Bullet)docInfo.bulletList.get(i));
+        }
+        for (int i=0; i < docInfo.numberingList.size(); i++) {
+            // Numbering ID는 1부터 시작한다.
+            compNumbering.makeCustomNumberingStyle(i+1, (HwpRecord_Numbering)docInfo.numberingList.get(i));
+        }
+    }
+
+    void startSection(int index, HwpSection section) {
+        // 커스톰 PageStyle 생성
+        Ctrl_SectionDef secd =  (Ctrl_SectionDef)section.paraList.stream()
+                                                        .filter(p -> p.p!=null && p.p.size()>0)
+                                                        .flatMap(p -> p.p.stream())
+                                                        .filter(c -> (c instanceof Ctrl_SectionDef)).findAny().get();
+        page.makeCustomPageStyle(secd);
+        page.setSectionIndex(index);
+        numberingPrefix = "";
+    }
+
+    HwpRecord_ParaShape getParaShape(HwpParagraph para) {
+        return (HwpRecord_ParaShape) docInfo.paraShapeList.get(para.paraShapeID);
+    }
+
+    ParaNode build(HwpParagraph para) {
+        HwpRecord_ParaShape paraShape = getParaShape(para);
+
+        boolean showNumberingPrefix = false;
+        String numberingStyleName = "";
+        HwpRecord_Numbering numberingStyle = null;
+        switch(paraShape.headingType) {
+        case NONE:
+            break;
+        case OUTLINE:
+            numberingStyleName = compNumbering.getOutlineStyleName();
+            Ctrl_SectionDef secd = page.getCurrentPage();
+            if (secd.outlineNumberingID!=0 && docInfo.numberingList.size() > secd.outlineNumberingID-1) {
+                numberingStyle = (HwpRecord_Numbering)docInfo.numberingList.get(secd.outlineNumberingID-1);
+                numberingPrefix = compNumbering.getNumberingHead(numberingStyleName, numberingStyle, paraShape.headingLevel);
+                showNumberingPrefix = true;
+            }
+            break;
+        case NUMBER:
+            log.finest("번호문단ID="+paraShape.headingIdRef + ",문단수준="+paraShape.headingLevel);
+            if (paraShape.headingIdRef!=0) {
+                numberingStyleName = compNumbering.numberingStyleNameMap.get((int)paraShape.headingIdRef);
+                if (numberingStyleName!=null) {
+                    numberingStyle = (HwpRecord_Numbering)docInfo.numberingList.get((int)paraShape.headingIdRef-1);
+                    numberingPrefix = compNumbering.getNumberingHead(numberingStyleName, numberingStyle, paraShape.headingLevel);
+                    showNumberingPrefix = true;
+                }
+            }
+            break;
+        case BULLET:
+            log.finest("글머리표문단ID="+paraShape.headingIdRef + ",문단수준="+paraShape.headingLevel);
+            if (paraShape.headingIdRef!=0 && docInfo.bulletList.size() > paraShape.headingIdRef-1) {
+                numberingStyleName = compNumbering.bulletStyleNameMap.get((int)paraShape.headingIdRef);
+                HwpRecord_Bullet bulletStyle = (HwpRecord_Bullet)docInfo.bulletList.get((int)paraShape.headingIdRef-1);
+                numberingPrefix = Character.toString((char)bulletStyle.bulletChar);
+                showNumberingPrefix = true;
+            }
+            break;
+        }
+        String paragraph = CompRecurs.getParaString(para);
+
+        return new ParaNode(numberingPrefix, showNumberingPrefix, paragraph);
+    }
+}
@@ -26,18 +26,19 @@ import com.sun.star.uno.XComponentContext;
 import com.sun.star.util.CloseVetoException;
 import com.sun.star.util.XCloseable;
 
+import HwpDoc.AsyncLogHandler;
 import HwpDoc.CustomLogFormatter;
+import HwpDoc.HancomDetector;
 import HwpDoc.HwpDetectException;
 import HwpDoc.HwpSection;
+import HwpDoc.Metrics;
 import HwpDoc.Exception.CompoundDetectException;
 import HwpDoc.Exception.CompoundParseException;
 import HwpDoc.Exception.HwpParseException;
 import HwpDoc.Exception.NotImplementedException;
 import HwpDoc.Exception.OwpmlParseException;
 import HwpDoc.HwpElement.HwpRecord_Bullet;
-import HwpDoc.HwpElement.HwpRecord_CharShape;
 import HwpDoc.HwpElement.HwpRecord_Numbering;
-import HwpDoc.HwpElement.HwpRecord_Style;
 import HwpDoc.paragraph.Ctrl_SectionDef;
 import HwpDoc.paragraph.HwpParagraph;
 import soffice.ConvEquation;
@@ -50,6 +51,7 @@ import soffice.ConvTable;
 import soffice.ConvUtil;
 import soffice.HwpCallback;
 import soffice.HwpRecurs;
+import soffice.ImportCancelledException;
 import soffice.WriterContext;
 
 import com.sun.star.lib.uno.helper.Factory;
@@ -57,6 +59,8 @@ import com.sun.star.lib.uno.helper.Factory;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -64,9 +68,12 @@ import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
@@ -81,12 +88,14 @@ import org.xml.sax.SAXException;
 
 import com.sun.star.beans.PropertyValue;
 import com.sun.star.io.XInputStream;
+import com.sun.star.io.XSeekable;
 import com.sun.star.lang.EventObject;
 import com.sun.star.lang.IllegalArgumentException;
 import com.sun.star.lang.XComponent;
 import com.sun.star.lang.XMultiServiceFactory;
 import com.sun.star.lang.XSingleComponentFactory;
 import com.sun.star.registry.XRegistryKey;
+import com.sun.star.task.XStatusIndicator;
 import com.sun.star.text.XTextDocument;
 import com.sun.star.lib.uno.helper.WeakBase;
 import com.sun.star.lib.uno.adapter.XInputStreamToInputStreamAdapter;
@@ -99,15 +108,46 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
                                                             com.sun.star.document.XExtendedFilterDetection,
                                                             com.sun.star.util.XCloseListener {
     private static final Logger log = Logger.getLogger(H2OrestartImpl.class.getName());
+    private static final Metrics.Histogram stylesPhase = Metrics.histogram("phase.styles", "ns");
+    private static final Metrics.Histogram bodyPhase = Metrics.histogram("phase.body", "ns");
 
     private static final String m_implementationName = H2OrestartImpl.class.getName();
     /** Service name for the component */
     public static final String __serviceName = "ebandal.libreoffice.H2Orestart";
     private static final String[] m_serviceNames = { "ebandal.libreoffice.H2Orestart" };
-    private static WriterContext writerContext;
-    private static String detectedFileExt;
     private static Logger rootLogger;
-    private static String tmpFilePath;
+    // detect()와 filter()는 다른 instance에서 불릴 수 있으므로, detect()에서 읽어둔 InputStream은 넘겨준다.
+    // stream으로 읽는 문서는 URL이 모두 같을 수 있으므로(private:stream) InputStream 객체(OID)로 구분한다.
+    private static final Map<String, DetectedInput> detectedInputs = new ConcurrentHashMap<String, DetectedInput>();
+    // filter()가 불리지 않은 채 남은 것은 이 시간이 지나면 지운다.
+    private static final long DETECTED_MAX_AGE_MILLIS = 60 * 1000;
+    // 문서마다 instance가 따로 만들어지므로, 변환 상태는 instance에 둔다.
+    private final WriterContext writerContext;
+    private String detectedFileExt;
+    private String tmpFilePath;
+    private ByteBuffer inputBuffer;             // InputStream으로 받아 메모리에 둔 문서
+    // 이 크기까지는 InputStream을 메모리에 읽고, 넘으면 임시 파일로 저장한다.
+    private static final int MEMORY_IMPORT_LIMIT = Integer.getInteger("H2Orestart.memoryImportLimit", 64 * 1024 * 1024);
+
+    private static class DetectedInput {
+        final ByteBuffer buffer;
+        final String tmpFilePath;
+        final long created = System.currentTimeMillis();
+
+        DetectedInput(ByteBuffer buffer, String tmpFilePath) {
+            this.buffer = buffer;
+            this.tmpFilePath = tmpFilePath;
+        }
+
+        void dispose() {
+            if (buffer!=null) {
+                HancomDetector.evict(buffer);
+            }
+            if (tmpFilePath!=null) {
+                deleteTmpFile(tmpFilePath);
+            }
+        }
+    }
 
     public H2OrestartImpl( XComponentContext context ) {
         writerContext = new WriterContext();
@@ -139,6 +179,8 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
     @Override
     public void cancel() {
         log.fine("cancel called");
+        // 변환 중인 thread가 다음 문단, 표, 그림에서 멈춘다.
+        writerContext.mMonitor.cancel();
     }
 
     @Override
@@ -149,15 +191,18 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
         writerContext.mMSF = UnoRuntime.queryInterface(XMultiServiceFactory.class, writerContext.mMyDocument);
         writerContext.mText = writerContext.mMyDocument.getText();
         writerContext.mTextCursor = writerContext.mText.createTextCursor();
-        WriterContext.version = ConvUtil.getVersion(writerContext);
+        writerContext.mSession.version = ConvUtil.getVersion(writerContext);
     }
 
     @Override
     public boolean filter(PropertyValue[] lDescriptor) {
         log.fine("filter called");
+        // InputStream을 읽는 동안 온 cancel()도 지우지 않도록 가장 먼저 초기화한다.
+        writerContext.mMonitor.reset(null);
         File file = null;
         String filePath = null;
         Object inputStream = null;
+        XStatusIndicator statusIndicator = null;
 
         for (int i=0; i<lDescriptor.length; i++) {
             switch(lDescriptor[i].Name) {
@@ -167,9 +212,11 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
             case "InputStream":
                 inputStream = lDescriptor[i].Value;
                 break;
+            case "StatusIndicator":
+                statusIndicator = UnoRuntime.queryInterface(XStatusIndicator.class, lDescriptor[i].Value);
+                break;
             case "FilterName":
             case "Referer":
-            case "StatusIndicator":
             case "InteractionHandler":
             case "Stream":
             case "FrameName":
@@ -182,17 +229,51 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
             }
         }
 
-        if (filePath!=null && filePath.startsWith("file:///")) {
-            String systemPath = ConvUtil.convertToSystemPath(writerContext, filePath);
-            file = new File(systemPath);
-        } else {
-            if (tmpFilePath==null) {
-                tmpFilePath = copyToTmpFile(inputStream);
+        // 변환 하나의 통계. -DH2Orestart.metrics.summary=true 이면 끝날 때 log로 남긴다.
+        Metrics.Summary summary = Metrics.begin(filePath!=null ? filePath : "InputStream");
+        try {
+            if (filePath!=null && filePath.startsWith("file:///")) {
+                String systemPath = ConvUtil.convertToSystemPath(writerContext, filePath);
+                file = new File(systemPath);
+                if (detectedFileExt==null) {
+                    // 다른 instance에서 detect 했으면 HancomDetector에 남은 결과를 쓴다.
+                    detectedFileExt = WriterContext.detectHancom(file);
+                }
+            } else {
+                DetectedInput detected = takeDetectedInput(detectedInputKey(filePath, inputStream));
+                if (detected!=null) {
+                    inputBuffer = detected.buffer;
+                    tmpFilePath = detected.tmpFilePath;
+                }
+                if (tmpFilePath==null && inputBuffer==null) {
+                    readInputStream(inputStream);
+                    if (writerContext.mMonitor.isCancelled()) {
+                        log.info("Import cancelled while reading InputStream");
+                        return false;
+                    }
+                }
+                if (tmpFilePath!=null) {
+                    file = new File(tmpFilePath);
+                }
+                if (detectedFileExt==null) {
+                    detectedFileExt = file!=null ? WriterContext.detectHancom(file)
+                                                 : inputBuffer!=null ? WriterContext.detectHancom(inputBuffer) : null;
+                }
             }
-            file = new File(tmpFilePath);
-        }
 
-        return impl_import(file);
+            writerContext.mMonitor.setStatusIndicator(statusIndicator);
+            return impl_import(file, file==null ? inputBuffer : null);
+        } finally {
+            summary.end();
+            // 변환이 끝나면(실패, 중단 포함) 문서가 열려 있는 동안 파일과 BinData 캐시를 잡고 있지 않도록 닫는다.
+            try {
+                writerContext.close();
+            } catch (IOException | HwpDetectException e) {
+                log.severe(e.getMessage());
+            }
+            // 파일을 닫은 뒤에 메모리의 문서와 임시 파일을 정리한다.
+            disposing(null);
+        }
     }
 
     @Override
@@ -244,16 +325,31 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
             String systemPath = ConvUtil.convertToSystemPath(writerContext, url);
             detectedFileExt = WriterContext.detectHancom(new File(systemPath));
         } else if (inputStream!=null) {
-            log.info("copying InputStream to temp File");
-            tmpFilePath = copyToTmpFile(inputStream);
-            detectedFileExt = WriterContext.detectHancom(new File(tmpFilePath));
+            log.info("reading InputStream");
+            readInputStream(inputStream);
+            if (inputBuffer!=null) {
+                detectedFileExt = WriterContext.detectHancom(inputBuffer);
+            } else if (tmpFilePath!=null) {
+                detectedFileExt = WriterContext.detectHancom(new File(tmpFilePath));
+            }
         }
 
         if (detectedFileExt==null) {
             log.info("File is not Hancomm document.");
             typeName.setLength(0);
+            disposing(null);
         } else {
             log.info("File is Hancomm document.");
+            String key = detectedInputKey(url, inputStream);
+            if (key!=null && (inputBuffer!=null || tmpFilePath!=null)) {
+                // filter()를 부르는 instance에서 가져간다.
+                putDetectedInput(key, new DetectedInput(inputBuffer, tmpFilePath));
+                inputBuffer = null;
+                tmpFilePath = null;
+            } else {
+                // 넘겨줄 수 없으면 filter()에서 다시 읽는다.
+                disposing(null);
+            }
         }
 
         try {
@@ -267,17 +363,65 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
 
     @Override
     public void disposing(EventObject arg0) {
+        if (inputBuffer!=null) {
+            HancomDetector.evict(inputBuffer);
+            inputBuffer=null;
+        }
         if (tmpFilePath!=null) {
             log.info("Disposing tmp file");
-            try {
-                Files.deleteIfExists(new File(tmpFilePath).toPath());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            deleteTmpFile(tmpFilePath);
             tmpFilePath=null;
         }
     }
 
+    private static void deleteTmpFile(String path) {
+        File tmpFile = new File(path);
+        HancomDetector.evict(tmpFile);
+        try {
+            Files.deleteIfExists(tmpFile.toPath());
+        } catch (IOException e) {
+            // Windows에서는 CompoundFile의 매핑이 GC로 해제되기 전까지 지울 수 없다.
+            // JVM이 끝날 때 다시 지우고, 그래도 남으면 다음 실행의 cleanTmpFolder()가 지운다.
+            log.info("tmp file can't be deleted now. will be deleted on exit. " + e.getMessage());
+            tmpFile.deleteOnExit();
+        }
+    }
+
+    /**
+     * detect()와 filter()에 넘어온 같은 InputStream을 가리키는 key. InputStream이 없으면 null
+     */
+    private static String detectedInputKey(String url, Object inputStream) {
+        if (inputStream==null) {
+            return null;
+        }
+        String oid = UnoRuntime.generateOid(inputStream);
+        return oid==null ? null : url + "#" + oid;
+    }
+
+    private static void putDetectedInput(String key, DetectedInput detected) {
+        expireDetectedInputs();
+        DetectedInput replaced = detectedInputs.put(key, detected);
+        if (replaced!=null) {
+            replaced.dispose();
+        }
+    }
+
+    private static DetectedInput takeDetectedInput(String key) {
+        expireDetectedInputs();
+        return key==null ? null : detectedInputs.remove(key);
+    }
+
+    private static void expireDetectedInputs() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, DetectedInput> entry: detectedInputs.entrySet()) {
+            DetectedInput detected = entry.getValue();
+            if (now - detected.created > DETECTED_MAX_AGE_MILLIS && detectedInputs.remove(entry.getKey(), detected)) {
+                log.fine("filter() was not called. disposing detected input");
+                detected.dispose();
+            }
+        }
+    }
+
     @Override
     public void notifyClosing(EventObject arg0) {
     }
@@ -286,26 +430,32 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
     public void queryClosing(EventObject arg0, boolean arg1) throws CloseVetoException {
     }
 
-    private boolean impl_import(File file) {
+    private boolean impl_import(File file, ByteBuffer data) {
         try {
-            writerContext.open(file, detectedFileExt);
+            if (data!=null) {
+                writerContext.open(data, detectedFileExt);
+            } else {
+                writerContext.open(file, detectedFileExt);
+            }
         } catch (HwpDetectException | IOException | CompoundDetectException | NotImplementedException | CompoundParseException | DataFormatException | HwpParseException  e) {
             log.severe(e.getMessage());
             e.printStackTrace();
         } catch (OwpmlParseException | ParserConfigurationException | SAXException e) {
             e.printStackTrace();
+        } catch (ImportCancelledException e) {
+            // section을 읽다가 중단했다. 아래의 checkCancelled()에서 중단으로 처리한다.
         }
 
         // 화면 갱신 suspend
         // writerContext.mMyDocument.lockControllers();
+        boolean cancelled = false;
         try {
+            writerContext.mMonitor.checkCancelled();
             List<HwpSection> sections = writerContext.getSections();
 
+            long start = stylesPhase.start();
             ConvPage.adjustFontIfNotExists(writerContext);    // 별 효과 없음.  차라리 미리 font 들을  OS에 설치하는 게 좋겠음.
-            for (int i=0; i < writerContext.getDocInfo().charShapeList.size(); i++) {
-                // Bullet ID는 1부터 시작한다.
-                ConvPara.makeCustomCharacterStyle(writerContext, i+1, (HwpRecord_CharShape)writerContext.getDocInfo().charShapeList.get(i));
-            }
+            ConvPara.makeCustomCharacterStyles(writerContext);
             for (int i=0; i < writerContext.getDocInfo().bulletList.size(); i++) {
                 // Bullet ID는 1부터 시작한다.
                 ConvNumbering.makeCustomBulletStyle(writerContext, i+1, (HwpRecord_Bullet)writerContext.getDocInfo().bulletList.get(i));
@@ -323,34 +473,44 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
                                                                .filter(c -> (c instanceof Ctrl_SectionDef)).findAny().get();
                 ConvPage.makeCustomPageStyle(writerContext, secd);
             }
-            for (int i=0; i<writerContext.getDocInfo().styleList.size();i++) {
-                ConvPara.makeCustomParagraphStyle(writerContext, i, (HwpRecord_Style)writerContext.getDocInfo().styleList.get(i));
-            }
+            ConvPara.makeCustomParagraphStyles(writerContext);
+            stylesPhase.stop(start);
 
+            // 진행상황은 최상위 문단 수로 알린다.
+            writerContext.mMonitor.start("", sections.stream().mapToInt(s -> s.paraList.size()).sum());
+            start = bodyPhase.start();
             int secIndex = 0;
             for (int i=0; i<sections.size(); i++) {
                 // context.mMyDocument.lockControllers();
                 HwpSection section = sections.get(i);
-                ConvPage.setSectionIndex(secIndex++);
+                ConvPage.setSectionIndex(writerContext, secIndex++);
+                writerContext.mMonitor.checkCancelled();
                 
             	HwpCallback callback = new HwpCallback();
 
                 for (HwpParagraph para: section.paraList) {
                     HwpRecurs.printParaRecurs(writerContext, writerContext, para, callback, 1);
+                    writerContext.mMonitor.advance(1);
                 }
                 // context.mMyDocument.unlockControllers();
             }
+            bodyPhase.stop(start);
 
             // 화면 갱신 resume
             // writerContext.mMyDocument.unlockControllers();
         } catch (HwpDetectException e) {
             e.printStackTrace();
+        } catch (ImportCancelledException e) {
+            log.info("Import cancelled");
+            cancelled = true;
+        } finally {
+            writerContext.mMonitor.end();
         }
 
         XCloseable xCloseable = (XCloseable) UnoRuntime.queryInterface(XCloseable.class, writerContext.mMyDocument);
         xCloseable.addCloseListener(this);
 
-        return true;
+        return cancelled == false;
     }
 
     private void initialLogger() {
@@ -360,6 +520,10 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
         for (Handler handler: handlers) {
             if (handler instanceof ConsoleHandler || handler instanceof FileHandler) {
                 rootLogger.removeHandler(handler);
+            } else if (handler instanceof AsyncLogHandler) {
+                // 전에 만든 handler의 logging thread와 log 파일을 정리한다.
+                rootLogger.removeHandler(handler);
+                handler.close();
             }
         }
         try {
@@ -381,7 +545,8 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
             fileHandler.setLevel(Level.INFO);
             CustomLogFormatter sformatter = new CustomLogFormatter();
             fileHandler.setFormatter(sformatter);
-            rootLogger.addHandler(fileHandler);
+            // 파일 쓰기는 logging thread에서 한다.
+            rootLogger.addHandler(new AsyncLogHandler(fileHandler, 8192));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -442,10 +607,50 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
         }
     }
     
-    private String copyToTmpFile(Object inputStream) {
-        String ret = null;
-        byte[] buf = new byte[4096];
+    /**
+     * InputStream으로 받은 문서를 읽는다. MEMORY_IMPORT_LIMIT 이하이면 inputBuffer에 두고,
+     * 넘으면 읽은 데까지와 나머지를 임시 파일로 저장하고 tmpFilePath에 둔다.
+     */
+    private void readInputStream(Object inputStream) {
+        inputBuffer = null;
         XInputStream xinput = UnoRuntime.queryInterface(XInputStream.class, inputStream);
+        XSeekable xseekable = UnoRuntime.queryInterface(XSeekable.class, inputStream);
+        if (xseekable!=null) {
+            // detect()에서 이미 읽었을 수 있으므로 처음부터 읽는다.
+            try {
+                xseekable.seek(0);
+            } catch (Exception e) {
+                log.fine("InputStream can't seek. " + e.getMessage());
+            }
+        }
+        try (XInputStreamToInputStreamAdapter adapter = new XInputStreamToInputStreamAdapter(xinput)) {
+            byte[] buf = new byte[Math.max(1, Math.min(64 * 1024, MEMORY_IMPORT_LIMIT))];
+            int len = 0;
+            int readLen;
+            // 한번에 다 채워지지 않아도 stream 끝(-1)까지 읽는다.
+            while ((readLen = adapter.read(buf, len, buf.length - len)) > 0) {
+                if (writerContext.mMonitor.isCancelled()) {
+                    return;
+                }
+                len += readLen;
+                if (len == buf.length) {
+                    if (buf.length >= MEMORY_IMPORT_LIMIT) {
+                        log.info("InputStream is larger than " + MEMORY_IMPORT_LIMIT + " bytes. copying to temp File");
+                        tmpFilePath = copyToTmpFile(buf, len, adapter);
+                        return;
+                    }
+                    buf = Arrays.copyOf(buf, (int)Math.min((long)buf.length * 2, MEMORY_IMPORT_LIMIT));
+                }
+            }
+            inputBuffer = ByteBuffer.wrap(buf, 0, len);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private String copyToTmpFile(byte[] head, int headLen, InputStream rest) {
+        String ret = null;
+        byte[] buf = new byte[1024 * 1024];
         try {
             Path baseDir = getAppCachePath();
             Set<String> attrViews = baseDir.getFileSystem().supportedFileAttributeViews();
@@ -459,18 +664,22 @@ public final class H2OrestartImpl extends WeakBase implements ebandal.libreoffic
                                .toFile();
             }
             ret = tmpFile.toString();
-            try (FileOutputStream fos = new FileOutputStream(tmpFile);
-                 XInputStreamToInputStreamAdapter adapter = new XInputStreamToInputStreamAdapter(xinput)) {
-                while(true) {
-                    int readLen = adapter.read(buf, 0, buf.length);
-                    fos.write(buf, 0, readLen);
-                    if (readLen != buf.length) {
+            try (FileOutputStream fos = new FileOutputStream(tmpFile)) {
+                fos.write(head, 0, headLen);
+                int readLen;
+                while ((readLen = rest.read(buf, 0, buf.length)) > 0) {
+                    if (writerContext.mMonitor.isCancelled()) {
                         break;
                     }
+                    fos.write(buf, 0, readLen);
                 }
             }
-            xinput.closeInput();
-        } catch (IOException | com.sun.star.io.IOException e) {
+            if (writerContext.mMonitor.isCancelled()) {
+                // 다 쓰지 못한 임시 파일은 남기지 않는다.
+                deleteTmpFile(ret);
+                ret = null;
+            }
+        } catch (IOException e) {
             e.printStackTrace();
         }
 
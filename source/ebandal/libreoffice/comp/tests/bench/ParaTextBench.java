@@ -0,0 +1,136 @@
+package ebandal.libreoffice.comp.tests.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import HwpDoc.HwpElement.HwpRecord_ParaText;
+import HwpDoc.paragraph.Ctrl;
+import HwpDoc.paragraph.Ctrl_Character;
+import HwpDoc.paragraph.Ctrl_Character.CtrlCharType;
+import HwpDoc.paragraph.ParaText;
+
+/**
+ * HwpRecord_ParaText.parse()와 전에 쓰던 정규식 방식을 비교한다.
+ * 글자, 탭(인라인 컨트롤), 하이픈(문자 컨트롤)이 섞인 2k wchar 정도의 PARA_TEXT record 하나를 반복해서 parse한다.
+ * <pre>
+ * java -cp bin ebandal.libreoffice.comp.tests.bench.ParaTextBench [반복수]
+ * </pre>
+ */
+public class ParaTextBench {
+
+	private static final int HWPTAG_PARA_TEXT = 0x010 + 51;
+	private static final int VERSION = 5000;
+	private static final int RECORD_CHARS = 2000;
+	private static final int ROUNDS = 5;
+	private static final int WARMUP_ROUNDS = 2;
+
+	// 전에 HwpRecord_ParaText에서 쓰던 정규식
+	private static final Pattern PATTERN = Pattern.compile(
+			"[\\u0000\\u000a\\u000d\\u0018-\\u001f]|[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017].{6}[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017]");
+
+	public static void main(String[] args) throws Exception {
+		Logger.getLogger("").setLevel(Level.SEVERE);
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		byte[] buf = makeRecord(RECORD_CHARS);
+
+		int scanned = HwpRecord_ParaText.parse(HWPTAG_PARA_TEXT, 1, buf.length, buf, 0, VERSION).size();
+		int matched = parseWithRegex(buf, 0, buf.length).size();
+		System.out.println(String.format("record: %,d wchars, controls: scanner=%d regex=%d",
+										 buf.length / 2, scanned, matched));
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				HwpRecord_ParaText.parse(HWPTAG_PARA_TEXT, 1, buf.length, buf, 0, VERSION);
+			}
+			long scanner = (System.nanoTime() - start) / 1000000;
+
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				parseWithRegex(buf, 0, buf.length);
+			}
+			long regex = (System.nanoTime() - start) / 1000000;
+
+			if (round >= WARMUP_ROUNDS) {
+				System.out.println(String.format("%,d records: scanner %,d ms, regex %,d ms", iterations, scanner, regex));
+			}
+		}
+	}
+
+	static byte[] makeRecord(int chars) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String text = "한글 문서 Hello, world 0123 ";
+		int n = 0;
+		while (n < chars) {
+			for (int i = 0; i < text.length(); i++, n++) {
+				writeChar(out, text.charAt(i));
+			}
+			writeChar(out, 0x0009);				// 탭. 인라인 컨트롤은 8 wchar
+			for (int i = 0; i < 6; i++) {
+				writeChar(out, 0);
+			}
+			writeChar(out, 0x0009);
+			n += 8;
+			writeChar(out, 0x0018);				// 하이픈. 문자 컨트롤
+			n++;
+		}
+		writeChar(out, 0x000d);					// 문단 끝
+		return out.toByteArray();
+	}
+
+	private static void writeChar(ByteArrayOutputStream out, int c) {
+		out.write(c);
+		out.write(c >>> 8);
+	}
+
+	/**
+	 * 전의 HwpRecord_ParaText.parse() 중 글자와 컨트롤을 나누는 부분. 이 record에 있는 컨트롤만 만든다.
+	 */
+	static List<Ctrl> parseWithRegex(byte[] buf, int off, int size) {
+		List<Ctrl> paras = new ArrayList<>();
+		String text = new String(buf, off, size, StandardCharsets.UTF_16LE);
+		Matcher m = PATTERN.matcher(text);
+		int prevIndex = 0;
+		while (m.find()) {
+			if (m.start() > prevIndex) {
+				paras.add(new ParaText("____", text.substring(prevIndex, m.start()), prevIndex));
+			}
+			byte controlByte = m.group().getBytes(StandardCharsets.UTF_16LE)[0];
+			if (m.start() + 1 == m.end()) {
+				switch (controlByte) {
+				case 0x0a:
+					paras.add(new Ctrl_Character("   _", CtrlCharType.LINE_BREAK));
+					break;
+				case 0x0d:
+					paras.add(new Ctrl_Character("   _", CtrlCharType.PARAGRAPH_BREAK));
+					break;
+				case 0x18:
+					paras.add(new Ctrl_Character("   _", CtrlCharType.HARD_HYPHEN));
+					break;
+				case 0x1e:
+				case 0x1f:
+					paras.add(new Ctrl_Character("   _", CtrlCharType.HARD_SPACE));
+					break;
+				}
+			} else if (m.start() + 8 == m.end()) {
+				// 탭 외의 컨트롤(머리말, 각주, 표 등)은 info로 Ctrl을 만들었다. 이 record에는 없다.
+				String info = new String(m.group().getBytes(StandardCharsets.UTF_16LE), 2, 12, StandardCharsets.US_ASCII)
+										.replaceAll("[\\x00-\\x20]+$", "");
+				if (controlByte == 0x09) {
+					paras.add(new ParaText("____", "\t", 0));
+				}
+			}
+			prevIndex = m.end();
+		}
+		if (prevIndex < text.length()) {
+			paras.add(new ParaText("____", text.substring(prevIndex), prevIndex));
+		}
+		return paras;
+	}
+}
@@ -0,0 +1,83 @@
+package ebandal.libreoffice.comp.tests.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import HwpDoc.HwpFile;
+import HwpDoc.HwpSection;
+
+/**
+ * HwpSection.parse()가 문단 수에 비례하는 시간으로 끝나는지 본다.
+ * 문단마다 PARA_HEADER, PARA_TEXT, PARA_CHAR_SHAPE 를 가진 section을 만들어 parse한다.
+ * <pre>
+ * java -cp bin ebandal.libreoffice.comp.tests.bench.SectionParseBench [문단수...]
+ * </pre>
+ */
+public class SectionParseBench {
+
+	// HwpTag의 tagNum (HWPTAG_BEGIN + 50, 51, 52)
+	private static final int HWPTAG_PARA_HEADER = 0x010 + 50;
+	private static final int HWPTAG_PARA_TEXT = 0x010 + 51;
+	private static final int HWPTAG_PARA_CHAR_SHAPE = 0x010 + 52;
+
+	private static final int VERSION = 5000;
+	private static final int WARMUP_ROUNDS = 2;
+
+	public static void main(String[] args) throws Exception {
+		Logger.getLogger("").setLevel(Level.SEVERE);
+
+		int[] sizes = { 25000, 50000, 100000 };
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+			for (int paras : sizes) {
+				byte[] buf = makeSection(paras);
+				long start = System.nanoTime();
+				HwpSection section = new HwpSection((HwpFile) null);
+				section.parse(buf, VERSION);
+				long millis = (System.nanoTime() - start) / 1000000;
+				if (round == WARMUP_ROUNDS) {
+					System.out.println(String.format("%,8d paragraphs: %,6d ms (%,d bytes, %d paragraphs parsed)",
+													 paras, millis, buf.length, section.paraList.size()));
+				}
+			}
+		}
+	}
+
+	static byte[] makeSection(int paras) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		String text = "Hello world\r";
+		byte[] header = new byte[22];
+		header[0] = (byte) text.length();	// nchars
+		header[12] = 1;						// nCharShapeInfo
+		byte[] textBody = new byte[text.length() * 2];
+		for (int i = 0; i < text.length(); i++) {
+			textBody[i * 2] = (byte) text.charAt(i);
+			textBody[i * 2 + 1] = (byte) (text.charAt(i) >>> 8);
+		}
+		byte[] charShape = new byte[8];
+
+		for (int i = 0; i < paras; i++) {
+			writeRecord(out, HWPTAG_PARA_HEADER, 0, header);
+			writeRecord(out, HWPTAG_PARA_TEXT, 1, textBody);
+			writeRecord(out, HWPTAG_PARA_CHAR_SHAPE, 1, charShape);
+		}
+		return out.toByteArray();
+	}
+
+	static void writeRecord(ByteArrayOutputStream out, int tagNum, int level, byte[] body) {
+		int header = tagNum | (level << 10) | (body.length << 20);
+		out.write(header);
+		out.write(header >>> 8);
+		out.write(header >>> 16);
+		out.write(header >>> 24);
+		out.write(body, 0, body.length);
+	}
+}
@@ -39,18 +39,20 @@ import com.sun.star.text.XTextFrame;
 import com.sun.star.uno.Exception;
 import com.sun.star.uno.UnoRuntime;
 
+import HwpDoc.Metrics;
 import HwpDoc.paragraph.Ctrl_EqEdit;
 
 
 public class ConvEquation {
 	private static final Logger log = Logger.getLogger(ConvEquation.class.getName());
-	private static int autoNum = 0;
+	private static final Metrics.Counter equations = Metrics.counter("emit.equations");
 
 	public static void reset(WriterContext wContext) {
-		autoNum = 0;
+		wContext.mSession.equationAutoNum = 0;
 	}
 	
 	public static void addFormula(WriterContext wContext, Ctrl_EqEdit eq, int step) {
+		equations.increment();
 		String formula = convertEquation(eq.eqn);
     	boolean hasCaption = eq.caption==null?false:eq.caption.size()==0?false:true;
     	XTextFrame xFrame = null;
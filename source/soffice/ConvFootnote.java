@@ -21,6 +21,7 @@
 package soffice;
 
 import java.util.Optional;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.sun.star.container.XIndexAccess;
@@ -45,18 +46,16 @@ import HwpDoc.paragraph.ParaText;
 public class ConvFootnote {
     private static final Logger log = Logger.getLogger(ConvFootnote.class.getName());
 
-    private static int footnoteIndex = 0;
-
-    public static int getFootnoteIndex() {
-        return footnoteIndex;
+    public static int getFootnoteIndex(WriterContext wContext) {
+        return wContext.mSession.footnoteIndex;
     }
 
-    public static void setFootnoteIndex(int index) {
-        footnoteIndex = index;
+    public static void setFootnoteIndex(WriterContext wContext, int index) {
+        wContext.mSession.footnoteIndex = index;
     }
 
     public static void reset(WriterContext wContext) {
-        footnoteIndex = 0;
+        wContext.mSession.footnoteIndex = 0;
     }
 
     protected static void insertFootnote(WriterContext wContext, Ctrl_Note note, int step) {
@@ -67,7 +66,7 @@ public class ConvFootnote {
 
             XFootnotesSupplier xFootnoteSupplier = UnoRuntime.queryInterface(XFootnotesSupplier.class, wContext.mMyDocument);
             XIndexAccess xFootnotes = UnoRuntime.queryInterface(XIndexAccess.class, xFootnoteSupplier.getFootnotes());
-            XFootnote xNumbers = UnoRuntime.queryInterface(XFootnote.class, xFootnotes.getByIndex(getFootnoteIndex()));
+            XFootnote xNumbers = UnoRuntime.queryInterface(XFootnote.class, xFootnotes.getByIndex(getFootnoteIndex(wContext)));
             XText xSimple = UnoRuntime.queryInterface(XText.class, xNumbers);
             
             XTextCursor xRange = UnoRuntime.queryInterface(XTextCursor.class, xSimple.createTextCursor());
@@ -76,6 +75,8 @@ public class ConvFootnote {
             context2.mContext = wContext.mContext;
             context2.mDesktop = wContext.mDesktop;
             context2.mMCF = wContext.mMCF;
+            context2.mMonitor = wContext.mMonitor;
+            context2.mSession = wContext.mSession;
             context2.mMSF = wContext.mMSF;
             context2.mMyDocument = wContext.mMyDocument;
             context2.userHomeDir = wContext.userHomeDir;
@@ -90,8 +91,10 @@ public class ConvFootnote {
 
                     boolean isLastPara = (paraIndex == note.paras.size() - 1) ? true : false;
 
-                    String styleName = ConvPara.getStyleName((int) para.paraStyleID);
-                    log.finer("StyleID=" + para.paraStyleID + ", StyleName=" + styleName);
+                    String styleName = ConvPara.getStyleName(wContext, (int) para.paraStyleID);
+                    if (log.isLoggable(Level.FINER)) {
+                        log.finer("StyleID=" + para.paraStyleID + ", StyleName=" + styleName);
+                    }
                     if (styleName == null || styleName.isEmpty()) {
                         log.fine("Style Name is empty");
                     }
@@ -112,14 +115,14 @@ public class ConvFootnote {
                         @Override
                         public void onNewNumber(int paraStyleID, int paraShapeID) {
                             reset(context2);
-                            String label = Integer.valueOf(getFootnoteIndex() + 1).toString() + ")"; // index 보다 1많은 값으로
+                            String label = Integer.valueOf(getFootnoteIndex(wContext) + 1).toString() + ")"; // index 보다 1많은 값으로
                                                                                                      // 표현.
                             xFootnote.setLabel(label);
                         };
 
                         @Override
                         public void onAutoNumber(Ctrl_AutoNumber autoNumber, int paraStyleID, int paraShapeID) {
-                            String label = Integer.valueOf(getFootnoteIndex() + 1).toString() + ")"; // index 보다 1많은 값으로
+                            String label = Integer.valueOf(getFootnoteIndex(wContext) + 1).toString() + ")"; // index 보다 1많은 값으로
                                                                                                      // 표현.
                             xFootnote.setLabel(label);
                         };
@@ -158,7 +161,7 @@ public class ConvFootnote {
         } catch (Exception e) {
             e.printStackTrace();
         }
-        setFootnoteIndex(getFootnoteIndex() + 1);
+        setFootnoteIndex(wContext, getFootnoteIndex(wContext) + 1);
     }
 
 }
@@ -25,11 +25,13 @@ import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -63,6 +65,7 @@ import com.sun.star.graphic.XGraphicProvider;
 import com.sun.star.lang.IllegalArgumentException;
 import com.sun.star.lang.WrappedTargetException;
 import com.sun.star.lib.uno.adapter.ByteArrayToXInputStreamAdapter;
+import com.sun.star.lib.uno.adapter.InputStreamToXInputStreamAdapter;
 import com.sun.star.style.ParagraphAdjust;
 import com.sun.star.table.BorderLine2;
 import com.sun.star.table.BorderLineStyle;
@@ -83,6 +86,7 @@ import com.sun.star.text.XTextFrame;
 import com.sun.star.uno.Exception;
 import com.sun.star.uno.UnoRuntime;
 
+import HwpDoc.Metrics;
 import HwpDoc.HwpElement.HwpRecordTypes.LineArrowSize;
 import HwpDoc.HwpElement.HwpRecordTypes.LineArrowStyle;
 import HwpDoc.HwpElement.HwpRecord_BorderFill;
@@ -112,17 +116,18 @@ import soffice.HwpCallback.TableFrame;
 
 public class ConvGraphics {
     private static final Logger log = Logger.getLogger(ConvGraphics.class.getName());
-    private static int autoNum = 0;
-
+    private static final Metrics.Counter shapes = Metrics.counter("emit.shapes");
     public static void reset(WriterContext wContext) {
-        autoNum = 0;
+        wContext.mSession.graphicsAutoNum = 0;
     }
 
     public static void insertGraphic(WriterContext wContext, Ctrl_GeneralShape obj, short paraShapeID, int step) {
+        wContext.mMonitor.checkCancelled();
+        shapes.increment();
         HwpRecord_ParaShape paraShape = wContext.getParaShape((short) paraShapeID);
         XParagraphCursor paraCursor = UnoRuntime.queryInterface(XParagraphCursor.class, wContext.mTextCursor);
         XPropertySet paraProps = UnoRuntime.queryInterface(XPropertySet.class, paraCursor);
-        ConvPara.setParagraphProperties(paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
+        ConvPara.setParagraphProperties(wContext, paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
 
         switch (obj.ctrlId) {
         case "cip$":
@@ -206,13 +211,14 @@ public class ConvGraphics {
             XGraphicProvider xGraphicProvider = UnoRuntime.queryInterface(XGraphicProvider.class,
                     graphicProviderObject);
 
-            byte[] imageAsByteArray = null;
             String imageType = "";
 
-            imageAsByteArray = wContext.getBinBytes(pic.binDataID);
+            // 그림 전체를 byte[]로 만들지 않고 stream으로 GraphicProvider에 넘긴다.
+            InputStream imageStream = wContext.getBinStream(pic.binDataID);
             imageType = wContext.getBinFormat(pic.binDataID);
 
-            if (imageAsByteArray == null || imageAsByteArray.length == 0) {
+            // 없거나 비어 있는 BinData는 null이다.
+            if (imageStream == null) {
                 log.severe("Something Wrong!!!. skip drawing");
                 return;
             }
@@ -220,7 +226,7 @@ public class ConvGraphics {
             PropertyValue[] v = new PropertyValue[2];
             v[0] = new PropertyValue();
             v[0].Name = "InputStream";
-            v[0].Value = new ByteArrayToXInputStreamAdapter(imageAsByteArray);
+            v[0].Value = new InputStreamToXInputStreamAdapter(imageStream);
             v[1] = new PropertyValue();
             v[1].Name = "MimeType";
             switch (imageType.toLowerCase()) {
@@ -247,7 +253,16 @@ public class ConvGraphics {
                 break;
             }
 
-            XGraphic graphic = xGraphicProvider.queryGraphic(v);
+            XGraphic graphic = null;
+            try {
+                graphic = xGraphicProvider.queryGraphic(v);
+            } finally {
+                try {
+                    imageStream.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
             if (graphic == null) {
                 log.severe("Error loading the image");
             } else {
@@ -299,7 +314,7 @@ public class ConvGraphics {
                         
                         try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
                             ImageIO.write(subImgage, "png", baos);
-                            imageAsByteArray = baos.toByteArray();
+                            byte[] imageAsByteArray = baos.toByteArray();
                             imageType = "png";
                             pv[0] = new PropertyValue();
                             pv[0].Name = "InputStream";
@@ -330,7 +345,7 @@ public class ConvGraphics {
             } else {
                 double xScale = pic.matrixSeq == null ? 1.0 : pic.matrixSeq[0];
                 double yScale = pic.matrixSeq == null ? 1.0 : pic.matrixSeq[4];
-                setPosition(xPropSet, pic,
+                setPosition(wContext, xPropSet, pic,
                             (int) (pic.nGrp>0 ? (pic.vertRelTo==null?0:pic.xGrpOffset*xScale) : 0),
                             (int) (pic.nGrp>0 ? (pic.horzRelTo==null?0:pic.yGrpOffset*yScale) : 0));
             }
@@ -355,7 +370,7 @@ public class ConvGraphics {
                 xFrameText.insertControlCharacter(xFrameCursor, ControlCharacter.PARAGRAPH_BREAK, false);
             } else {
                 wContext.mText.insertTextContent(wContext.mTextCursor, xTextContent, true);
-                if (wContext.version >= 72) {
+                if (wContext.mSession.version >= 72) {
                     TextContentAnchorType anchorType = (TextContentAnchorType) xPropSet.getPropertyValue("AnchorType");
                     if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                         wContext.mText.insertString(wContext.mTextCursor, " ", false);
@@ -364,7 +379,7 @@ public class ConvGraphics {
             }
             
             if (pic.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
 
             // 캡션 쓰기
@@ -479,7 +494,7 @@ public class ConvGraphics {
             } else {
                 double xScale = vid.matrixSeq == null ? 1.0 : vid.matrixSeq[0];
                 double yScale = vid.matrixSeq == null ? 1.0 : vid.matrixSeq[4];
-                setPosition(xPropSet, vid, (int) (vid.nGrp > 0 ? vid.xGrpOffset * xScale : 0),
+                setPosition(wContext, xPropSet, vid, (int) (vid.nGrp > 0 ? vid.xGrpOffset * xScale : 0),
                         (int) (vid.nGrp > 0 ? vid.yGrpOffset * yScale : 0));
             }
             setWrapStyle(xPropSet, vid);
@@ -493,7 +508,7 @@ public class ConvGraphics {
                 xFrameText.insertControlCharacter(xFrameCursor, ControlCharacter.PARAGRAPH_BREAK, false);
             } else {
                 wContext.mText.insertTextContent(wContext.mTextCursor, xTextContent, true);
-                if (wContext.version >= 72) {
+                if (wContext.mSession.version >= 72) {
                     TextContentAnchorType anchorType = (TextContentAnchorType) xPropSet.getPropertyValue("AnchorType");
                     if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                         wContext.mText.insertString(wContext.mTextCursor, " ", false);
@@ -501,7 +516,7 @@ public class ConvGraphics {
                 }
             }
             if (vid.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
 
             // 캡션 쓰기
@@ -534,6 +549,8 @@ public class ConvGraphics {
             frameContext.mContext = wContext.mContext;
             frameContext.mDesktop = wContext.mDesktop;
             frameContext.mMCF = wContext.mMCF;
+            frameContext.mMonitor = wContext.mMonitor;
+            frameContext.mSession = wContext.mSession;
             frameContext.mMSF = wContext.mMSF;
             frameContext.mMyDocument = wContext.mMyDocument;
             frameContext.userHomeDir = wContext.userHomeDir;
@@ -624,7 +641,7 @@ public class ConvGraphics {
                 }
             }
             if (container.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
 
             // 캡션 쓰기
@@ -656,7 +673,7 @@ public class ConvGraphics {
 
             XPropertySet frameProps = UnoRuntime.queryInterface(XPropertySet.class, xFrame);
 
-            setPosition(frameProps, shape, 0, 0);
+            setPosition(wContext, frameProps, shape, 0, 0);
             setWrapStyle(frameProps, shape);
 
             // dummy에서는 점선, 가는 회색 테두리로 그리고, 내부에는 "Not Supported Object" 회색 글씨를 넣도록 한다.
@@ -674,7 +691,7 @@ public class ConvGraphics {
 
             XText xText = wContext.mTextCursor.getText();
             xText.insertTextContent(wContext.mTextCursor, xFrame, false);
-            if (wContext.version >= 72) {
+            if (wContext.mSession.version >= 72) {
                 TextContentAnchorType anchorType = (TextContentAnchorType) frameProps.getPropertyValue("AnchorType");
                 if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                     xText.insertString(wContext.mTextCursor, " ", false);
@@ -694,7 +711,7 @@ public class ConvGraphics {
 
             xFrameText.insertString(xFrameCursor, "Not Supported Object", false);
             if (shape.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
 
         } catch (com.sun.star.uno.Exception e) {
@@ -751,9 +768,9 @@ public class ConvGraphics {
             if (shape.nGrp > 0) {
                 HomogenMatrix3 aHomogenMatrix3 = getTransformedMatrix(shape);
 
-                setPositionLO(frameProps, shape, (int)aHomogenMatrix3.Line1.Column3, (int)aHomogenMatrix3.Line2.Column3);
+                setPositionLO(wOuterContext, frameProps, shape, (int)aHomogenMatrix3.Line1.Column3, (int)aHomogenMatrix3.Line2.Column3);
             } else {
-                setPosition(frameProps, shape, 0, 0);
+                setPosition(wOuterContext, frameProps, shape, 0, 0);
             }
             setWrapStyle(frameProps, shape);
 
@@ -785,7 +802,7 @@ public class ConvGraphics {
             // insert text frame into document (order is important here)
             XText xText = wOuterContext.mTextCursor.getText();
             xText.insertTextContent(wOuterContext.mTextCursor, xInternalFrame, false);
-            if (wOuterContext.version >= 72) {
+            if (wOuterContext.mSession.version >= 72) {
                 TextContentAnchorType anchorType = (TextContentAnchorType) frameProps.getPropertyValue("AnchorType");
                 if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                     xText.insertString(wOuterContext.mTextCursor, " ", false);
@@ -802,10 +819,11 @@ public class ConvGraphics {
 
             if (shape.paras != null) {
                 WriterContext innerContext = new WriterContext();
-                innerContext.hwp = wOuterContext.hwp;
                 innerContext.mContext = wOuterContext.mContext;
                 innerContext.mDesktop = wOuterContext.mDesktop;
                 innerContext.mMCF = wOuterContext.mMCF;
+                innerContext.mMonitor = wOuterContext.mMonitor;
+                innerContext.mSession = wOuterContext.mSession;
                 innerContext.mMSF = wOuterContext.mMSF;
                 innerContext.mMyDocument = wOuterContext.mMyDocument;
                 innerContext.userHomeDir = wOuterContext.userHomeDir;
@@ -836,7 +854,7 @@ public class ConvGraphics {
                 }
                 HwpRecurs.removeLastParaBreak(innerContext.mTextCursor);
                 if (shape.nGrp == 0) {
-                    ++autoNum;
+                    ++wContext.mSession.graphicsAutoNum;
                 }
             }
         } catch (com.sun.star.uno.Exception e) {
@@ -890,7 +908,7 @@ public class ConvGraphics {
                 xPropsSet.setPropertyValue("AnchorType", TextContentAnchorType.AT_PARAGRAPH);
             } else {
                 xPropsSet.setPropertyValue("AnchorType", TextContentAnchorType.AT_PARAGRAPH);
-                setPosition(xPropsSet, shape, 0, 0);
+                setPosition(wOuterContext, xPropsSet, shape, 0, 0);
             }
 
             xText.insertTextContent(wOuterContext.mTextCursor, xTextContentShape, false);
@@ -911,7 +929,7 @@ public class ConvGraphics {
             setFillStyle(wOuterContext, xPropsSet, shape.fill);
             setLineStyle(xPropsSet, shape);
 
-            if (wOuterContext.version >= 72) {
+            if (wOuterContext.mSession.version >= 72) {
                 TextContentAnchorType anchorType = (TextContentAnchorType) xPropsSet.getPropertyValue("AnchorType");
                 if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                     xText.insertString(wOuterContext.mTextCursor, " ", false);
@@ -926,10 +944,11 @@ public class ConvGraphics {
                 xPropsSet.setPropertyValue("TextHorizontalAdjust", TextHorizontalAdjust.CENTER);
 
                 WriterContext innerContext = new WriterContext();
-                innerContext.hwp = wOuterContext.hwp;
                 innerContext.mContext = wOuterContext.mContext;
                 innerContext.mDesktop = wOuterContext.mDesktop;
                 innerContext.mMCF = wOuterContext.mMCF;
+                innerContext.mMonitor = wOuterContext.mMonitor;
+                innerContext.mSession = wOuterContext.mSession;
                 innerContext.mMSF = wOuterContext.mMSF;
                 innerContext.mMyDocument = wOuterContext.mMyDocument;
                 innerContext.userHomeDir = wOuterContext.userHomeDir;
@@ -975,7 +994,7 @@ public class ConvGraphics {
                     }
                 }
                 if (shape.nGrp == 0) {
-                    ++autoNum;
+                    ++wContext.mSession.graphicsAutoNum;
                 }
             }
         } catch (com.sun.star.uno.Exception e) {
@@ -1048,7 +1067,7 @@ public class ConvGraphics {
                     xPropsSet.setPropertyValue("AnchorType", TextContentAnchorType.AT_PARAGRAPH);
                 } else {
                     xPropsSet.setPropertyValue("AnchorType", TextContentAnchorType.AT_PARAGRAPH);
-                    setPosition(xPropsSet, pic, 0, 0);
+                    setPosition(wOuterContext, xPropsSet, pic, 0, 0);
                 }
             }
             setLineStyle(xPropsSet, pic);
@@ -1059,7 +1078,7 @@ public class ConvGraphics {
                 xFrameText.insertControlCharacter(xFrameCursor, ControlCharacter.PARAGRAPH_BREAK, false);
             } else {
                 wOuterContext.mText.insertTextContent(wOuterContext.mTextCursor, xTextContent, true);
-                if (wOuterContext.version >= 72) {
+                if (wOuterContext.mSession.version >= 72) {
                     TextContentAnchorType anchorType = (TextContentAnchorType) xPropsSet.getPropertyValue("AnchorType");
                     if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                     	wOuterContext.mText.insertString(wOuterContext.mTextCursor, " ", false);
@@ -1080,7 +1099,7 @@ public class ConvGraphics {
             setFillStyle(wOuterContext, xPropsSet, imageFill);
             
             if (pic.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
 
             // 캡션 쓰기
@@ -1123,8 +1142,10 @@ public class ConvGraphics {
                     for (int i = 0; i < shape.matCnt; i++) {
                         xScale *= shape.matrixSeq[i * 12 + 0];
                         yScale *= shape.matrixSeq[i * 12 + 4];
-                        log.finest("[LINE] matCnt=" + i + ",matCnt=" + shape.matCnt + ",xSclae=" + xScale + ",yScale="
-                                + yScale);
+                        if (log.isLoggable(Level.FINEST)) {
+                            log.finest("[LINE] matCnt=" + i + ",matCnt=" + shape.matCnt + ",xSclae=" + xScale + ",yScale="
+                                    + yScale);
+                        }
                     }
 
                     double xSize = (shape.endX - shape.startX) * xScale;
@@ -1167,7 +1188,7 @@ public class ConvGraphics {
             } else {
                 if (shape.nGrp == 0) {
                     xPropsSet.setPropertyValue("AnchorType", TextContentAnchorType.AT_PARAGRAPH);
-                    setPosition(xPropsSet, shape, 0, 0);
+                    setPosition(wContext, xPropsSet, shape, 0, 0);
                 } else {
                     xPropsSet.setPropertyValue("AnchorType", TextContentAnchorType.AT_PARAGRAPH);
                 }
@@ -1209,7 +1230,7 @@ public class ConvGraphics {
                     // workaround-LineShape-transform END
                 }
 
-                if (step == 2 && wContext.version >= 72) {
+                if (step == 2 && wContext.mSession.version >= 72) {
                     TextContentAnchorType anchorType = (TextContentAnchorType) xPropsSet.getPropertyValue("AnchorType");
                     if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                         wContext.mText.insertString(wContext.mTextCursor, " ", false);
@@ -1220,7 +1241,7 @@ public class ConvGraphics {
             setArrowStyle(xPropsSet, shape.lineHead, shape.lineHeadSz, true);
             setArrowStyle(xPropsSet, shape.lineTail, shape.lineTailSz, false);
             if (shape.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
 
             // 캡션 쓰기
@@ -1291,7 +1312,7 @@ public class ConvGraphics {
                 xPropSet.setPropertyValue("FillStyle", FillStyle.NONE);
                 xPropSet.setPropertyValue("FillTransparence", 100);
             } else {
-                setPosition(xPropSet, ell, ell.nGrp > 0 ? ell.xGrpOffset : 0, ell.nGrp > 0 ? ell.yGrpOffset : 0);
+                setPosition(wContext, xPropSet, ell, ell.nGrp > 0 ? ell.xGrpOffset : 0, ell.nGrp > 0 ? ell.yGrpOffset : 0);
             }
             setWrapStyle(xPropSet, ell);
             setLineStyle(xPropSet, ell);
@@ -1308,7 +1329,7 @@ public class ConvGraphics {
             } else {
                 wContext.mText.insertTextContent(wContext.mTextCursor, xTextContentShape, false);
                 // workaround-LibreOffice7.2 START
-                if (step == 2 && wContext.version >= 72) {
+                if (step == 2 && wContext.mSession.version >= 72) {
                     TextContentAnchorType anchorType = (TextContentAnchorType) xPropSet.getPropertyValue("AnchorType");
                     if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                         wContext.mText.insertString(wContext.mTextCursor, " ", false);
@@ -1319,7 +1340,7 @@ public class ConvGraphics {
             setFillStyle(wContext, xPropSet, ell.fill);
             
             if (ell.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
             if (hasParas) {
                 XPropertySet xShapeProps = (XPropertySet)UnoRuntime.queryInterface(XPropertySet.class, shapeObj);
@@ -1423,7 +1444,7 @@ public class ConvGraphics {
                 xPropSet.setPropertyValue("FillStyle", FillStyle.NONE);
                 xPropSet.setPropertyValue("FillTransparence", 100);
             } else {
-                setPosition(xPropSet, pol, pol.nGrp > 0 ? pol.xGrpOffset : 0, pol.nGrp > 0 ? pol.yGrpOffset : 0);
+                setPosition(wContext, xPropSet, pol, pol.nGrp > 0 ? pol.xGrpOffset : 0, pol.nGrp > 0 ? pol.yGrpOffset : 0);
             }
             setWrapStyle(xPropSet, pol);
             setLineStyle(xPropSet, pol);
@@ -1452,7 +1473,7 @@ public class ConvGraphics {
             	frameProps.setPropertyValue("FillTransparence", 100);
             }
 
-            if (wContext.version >= 72) {
+            if (wContext.mSession.version >= 72) {
                 TextContentAnchorType anchorType = (TextContentAnchorType) xPropSet.getPropertyValue("AnchorType");
                 if (((hasParas || hasCaption) && anchorType == TextContentAnchorType.AS_CHARACTER)
                         || anchorType == TextContentAnchorType.AT_PARAGRAPH) {
@@ -1466,6 +1487,8 @@ public class ConvGraphics {
                 context2.mContext = wContext.mContext;
                 context2.mDesktop = wContext.mDesktop;
                 context2.mMCF = wContext.mMCF;
+                context2.mMonitor = wContext.mMonitor;
+                context2.mSession = wContext.mSession;
                 context2.mMSF = wContext.mMSF;
                 context2.mMyDocument = wContext.mMyDocument;
                 context2.userHomeDir = wContext.userHomeDir;
@@ -1480,7 +1503,7 @@ public class ConvGraphics {
                 HwpRecurs.removeLastParaBreak(context2.mTextCursor);
             }
             if (pol.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
 
             // 캡션 쓰기. 글속성으로 처리하니 캡션을 없을듯 하나, 코드는 남겨놓음
@@ -1499,7 +1522,7 @@ public class ConvGraphics {
 
     private static void insertCURVE(WriterContext wContext, Ctrl_ShapeCurve cur, int step) {
         String shapeString = "com.sun.star.drawing.OpenBezierShape";
-        if (cur.fill != null && cur.fill.fillType > 0) {
+        if (cur.fill != null && cur.fill.fillType > 0) {
             shapeString = "com.sun.star.drawing.ClosedBezierShape";
         }
 
@@ -1552,7 +1575,7 @@ public class ConvGraphics {
                 xPropSet.setPropertyValue("FillStyle", FillStyle.NONE);
                 xPropSet.setPropertyValue("FillTransparence", 100);
             } else {
-                setPosition(xPropSet, cur, cur.nGrp > 0 ? cur.xGrpOffset : 0, cur.nGrp > 0 ? cur.yGrpOffset : 0);
+                setPosition(wContext, xPropSet, cur, cur.nGrp > 0 ? cur.xGrpOffset : 0, cur.nGrp > 0 ? cur.yGrpOffset : 0);
             }
             setWrapStyle(xPropSet, cur);
             setLineStyle(xPropSet, cur);
@@ -1656,7 +1679,7 @@ public class ConvGraphics {
 
             setFillStyle(wContext, xPropSet, cur.fill);
             if (cur.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
 
             if (hasCaption) {
@@ -1669,7 +1692,7 @@ public class ConvGraphics {
             } else {
                 wContext.mText.insertTextContent(wContext.mTextCursor, xTextContentShape, false);
                 // workaround-LibreOffice7.2 START
-                if (step == 2 && wContext.version >= 72) {
+                if (step == 2 && wContext.mSession.version >= 72) {
                     TextContentAnchorType anchorType = (TextContentAnchorType) xPropSet.getPropertyValue("AnchorType");
                     if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                         wContext.mText.insertString(wContext.mTextCursor, " ", false);
@@ -1810,7 +1833,7 @@ public class ConvGraphics {
                 xPropSet.setPropertyValue("FillStyle", FillStyle.NONE);
                 xPropSet.setPropertyValue("FillTransparence", 100);
             } else {
-                setPosition(xPropSet, arc, xOffset, yOffset);
+                setPosition(wOuterContext, xPropSet, arc, xOffset, yOffset);
                 // 호는 추가적으로 그리는 위치를 shift 해야 한다.
                 xPropSet.setPropertyValue("VertOrientPosition",
                         Transform.translateHwp2Office(((int) (arc.yGrpOffset * arc.matrixSeq[4]))) + yOffset);
@@ -1846,7 +1869,7 @@ public class ConvGraphics {
                         false);
             } else {
                 wOuterContext.mText.insertTextContent(wOuterContext.mTextCursor, xTextContentShape, false);
-                if (step == 2 && wOuterContext.version >= 72) {
+                if (step == 2 && wOuterContext.mSession.version >= 72) {
                     TextContentAnchorType anchorType = (TextContentAnchorType) xPropSet.getPropertyValue("AnchorType");
                     if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                         wOuterContext.mText.insertString(wOuterContext.mTextCursor, " ", false);
@@ -1854,7 +1877,7 @@ public class ConvGraphics {
                 }
             }
             if (arc.nGrp == 0) {
-                ++autoNum;
+                ++wContext.mSession.graphicsAutoNum;
             }
 
             // 캡션 쓰기
@@ -1885,7 +1908,7 @@ public class ConvGraphics {
                 new Size(Transform.translateHwp2Office(shape.width), Transform.translateHwp2Office(shape.height)));
         XPropertySet frameProps = UnoRuntime.queryInterface(XPropertySet.class, xFrame);
 
-        setPosition(frameProps, shape, 0, 0);
+        setPosition(wContext, frameProps, shape, 0, 0);
         setWrapStyle(frameProps, shape);
 
         BorderLine2 frameBorder = new BorderLine2();
@@ -1913,7 +1936,7 @@ public class ConvGraphics {
 
         XText xText = wContext.mTextCursor.getText();
         xText.insertTextContent(wContext.mTextCursor, xFrame, false);
-        if (wContext.version >= 72) {
+        if (wContext.mSession.version >= 72) {
             TextContentAnchorType anchorType = (TextContentAnchorType) frameProps.getPropertyValue("AnchorType");
             if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                 xText.insertString(wContext.mTextCursor, " ", false);
@@ -1962,7 +1985,7 @@ public class ConvGraphics {
         HwpCallback callback = new HwpCallback() {
             @Override
             public void onAutoNumber(Ctrl_AutoNumber autoNumber, int paraStyleID, int paraShapeID) {
-                capStr.add(Integer.toString(autoNum));
+                capStr.add(Integer.toString(wContext.mSession.graphicsAutoNum));
             };
 
             @Override
@@ -1990,16 +2013,16 @@ public class ConvGraphics {
         }
 
         HwpRecord_ParaShape captionParaShape = wContext.getParaShape(shape.caption.get(0).paraShapeID);
-        String styleName = ConvPara.getStyleName((int) shape.caption.get(0).paraStyleID);
+        String styleName = ConvPara.getStyleName(wContext, (int) shape.caption.get(0).paraStyleID);
         // short charShapeID =
         // ConvUtil.selectCharShapeID(shape.caption.get(0).charShapes, 0);
         HwpRecord_CharShape captionCharShape = wContext.getCharShape(charShapeID[0]);
 
         try {
             paraProps.setPropertyValue("ParaStyleName", styleName);
-            ConvPara.setParagraphProperties(paraProps, captionParaShape, wContext.getDocInfo().compatibleDoc, captionCharShape.lineSpaceAlpha);
+            ConvPara.setParagraphProperties(wContext, paraProps, captionParaShape, wContext.getDocInfo().compatibleDoc, captionCharShape.lineSpaceAlpha);
             HwpRecord_BorderFill borderFill = wContext.getBorderFill(captionCharShape.borderFillIDRef);
-            ConvPara.setCharacterProperties(paraProps, captionCharShape, borderFill, step);
+            ConvPara.setCharacterProperties(wContext, paraProps, captionCharShape, borderFill, step);
             paraProps.setPropertyValue("ParaTopMargin", Transform.translateHwp2Office(shape.captionSpacing));
             for (String cap : capStr) {
                 xFrameText.insertString(xFrameCursor, cap, false);
@@ -2009,19 +2032,19 @@ public class ConvGraphics {
         }
     }
 
-    private static void setPosition(XPropertySet xProps, Ctrl_GeneralShape shape, int xGrpOffset, int yGrpOffset)
+    private static void setPosition(WriterContext wContext, XPropertySet xProps, Ctrl_GeneralShape shape, int xGrpOffset, int yGrpOffset)
             throws SkipDrawingException {
         int xOffsetToAdd = Transform.translateHwp2Office(xGrpOffset);
         int yOffsetToAdd = Transform.translateHwp2Office(yGrpOffset);
         
-        setPositionLO(xProps, shape, xOffsetToAdd, yOffsetToAdd);
+        setPositionLO(wContext, xProps, shape, xOffsetToAdd, yOffsetToAdd);
     }
     
-    private static void setPositionLO(XPropertySet xProps, Ctrl_GeneralShape shape, int xOffsetToAdd, int yOffsetToAdd)
+    private static void setPositionLO(WriterContext wContext, XPropertySet xProps, Ctrl_GeneralShape shape, int xOffsetToAdd, int yOffsetToAdd)
             throws SkipDrawingException {
         int posX = 0;
         int posY = 0;
-        Page page = ConvPage.getCurrentPage().page;
+        Page page = ConvPage.getCurrentPage(wContext).page;
 
         try {
             if (shape.treatAsChar == true) {
@@ -2732,7 +2755,9 @@ public class ConvGraphics {
 	            }
 	
 	            int convertedLineWidth = Transform.translateHwp2Office(shape.lineThick);
-	            log.finest("Line width=" + convertedLineWidth + " from " + shape.lineThick + " in HWP.");
+	            if (log.isLoggable(Level.FINEST)) {
+		            log.finest("Line width=" + convertedLineWidth + " from " + shape.lineThick + " in HWP.");
+	            }
 	            // TextFrame
 	            // Line 566(2mm)
 	            // Curve 33(0.12mm)
@@ -2762,7 +2787,7 @@ public class ConvGraphics {
             arrowStyleName = null;
             break;
         case ARROW: // 화살모양
-            if (WriterContext.version >= 70) {
+            if (wContext.mSession.version >= 70) {
                 arrowStyleName = arrowWidth.ordinal() < 3 ? "Arrow short"
                         : arrowWidth.ordinal() < 6 ? "Arrow" : "Arrow large";
             } else {
@@ -2770,14 +2795,14 @@ public class ConvGraphics {
             }
             break;
         case SPEAR: // 라인모양
-            if (WriterContext.version >= 70) {
+            if (wContext.mSession.version >= 70) {
                 arrowStyleName = arrowWidth.ordinal() < 3 ? "Line short" : "Line";
             } else {
                 arrowStyleName = "Arrow";
             }
             break;
         case CONCAVE_ARROW: // 오목한 화살모양
-            if (WriterContext.version >= 70) {
+            if (wContext.mSession.version >= 70) {
                 arrowStyleName = arrowWidth.ordinal() < 3 ? "Concave short" : "Concave";
             } else {
                 arrowStyleName = "Arrow concave";
@@ -27,8 +27,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -62,16 +61,9 @@ import HwpDoc.paragraph.Ctrl_SectionDef;
 public class ConvNumbering {
     private static final Logger log = Logger.getLogger(ConvNumbering.class.getName());
 
-    public static Map<Integer, String> numberingStyleNameMap = new HashMap<Integer, String>();
-    public static Map<Integer, String> bulletStyleNameMap = new HashMap<Integer, String>();
     private static final String NUMBERING_STYLE_PREFIX = "HWP numbering ";
     private static final String BULLET_STYLE_PREFIX = "HWP bullet ";
 
-    // UNOAPI를 사용하지 않는 경우, 현재 numbering 값을 가져오기 위해 사용
-    private static Map<String, Integer[]> numberingNumbersMap = new HashMap<String, Integer[]>();
-    private static Map<String, Integer> prevNumberingLevelMap = new HashMap<String, Integer>();
-    private static Map<String, Integer[]> bulletNumbersMap = new HashMap<String, Integer[]>();
-
     public static void reset(WriterContext wContext) {
         deleteCustomStyles(wContext);
     }
@@ -83,25 +75,25 @@ public class ConvNumbering {
                 XNameAccess xFamilies = (XNameAccess) UnoRuntime.queryInterface (XNameAccess.class, xSupplier.getStyleFamilies());
 
                 XNameContainer xNumeringFamily = (XNameContainer) UnoRuntime.queryInterface(XNameContainer.class, xFamilies.getByName("NumberingStyles"));
-                for (Integer custIndex: numberingStyleNameMap.keySet()) {
-                    if (xNumeringFamily.hasByName(numberingStyleNameMap.get(custIndex))) {
-                        xNumeringFamily.removeByName(numberingStyleNameMap.get(custIndex));
+                for (Integer custIndex: wContext.mSession.numberingStyleNameMap.keySet()) {
+                    if (xNumeringFamily.hasByName(wContext.mSession.numberingStyleNameMap.get(custIndex))) {
+                        xNumeringFamily.removeByName(wContext.mSession.numberingStyleNameMap.get(custIndex));
                     }
                 }
-                for (Integer custIndex: bulletStyleNameMap.keySet()) {
-                    if (xNumeringFamily.hasByName(bulletStyleNameMap.get(custIndex))) {
-                        xNumeringFamily.removeByName(bulletStyleNameMap.get(custIndex));
+                for (Integer custIndex: wContext.mSession.bulletStyleNameMap.keySet()) {
+                    if (xNumeringFamily.hasByName(wContext.mSession.bulletStyleNameMap.get(custIndex))) {
+                        xNumeringFamily.removeByName(wContext.mSession.bulletStyleNameMap.get(custIndex));
                     }
                 }
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
-        numberingStyleNameMap.clear();
-        bulletStyleNameMap.clear();
+        wContext.mSession.numberingStyleNameMap.clear();
+        wContext.mSession.bulletStyleNameMap.clear();
     }
 
-    private static void setNumberingProp(PropertyValue[] aProps, int i, HwpRecord_Numbering numbering) {
+    private static void setNumberingProp(WriterContext wContext, PropertyValue[] aProps, int i, HwpRecord_Numbering numbering) {
         short numberingType = -1;
         short adjust = -1;
         short parentNumbering = -1;
@@ -150,7 +142,7 @@ public class ConvNumbering {
                 listFormat = getNumberFormat(numb.numFormat);
                 numberingType = getNumberingType(numb.numFormat, i);
                 charShapeId = numb.charShape+1;
-                charStyleName = ConvPara.getCharStyleName(charShapeId);
+                charStyleName = ConvPara.getCharStyleName(wContext, charShapeId);
                 if (numb.textOffsetType==0x1) {         // 절대값 거리
                     indentAt = Transform.translateHwp2Office(numb.textOffset);
                     listtabStopPosition = indentAt/2;
@@ -241,7 +233,7 @@ public class ConvNumbering {
             if (xFamily.hasByName(hwpStyleName)==false) {
                 xFamily.insertByName (hwpStyleName, xListStyle);
             }
-            numberingStyleNameMap.put(id, hwpStyleName);
+            wContext.mSession.numberingStyleNameMap.put(id, hwpStyleName);
 
             XPropertySet xStyleProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class, xFamily.getByName(hwpStyleName));
             XIndexReplace xReplace = (XIndexReplace) UnoRuntime.queryInterface(XIndexReplace.class, xStyleProps.getPropertyValue("NumberingRules"));
@@ -249,7 +241,7 @@ public class ConvNumbering {
             for (int i=0; i < xReplace.getCount(); i++) {
                 if (numbering.numbering[i]!=null && numbering.numbering[i].numFormat!=null) {
                     PropertyValue[] aProps = (PropertyValue []) xReplace.getByIndex(i);
-                    setNumberingProp(aProps, i, numbering);
+                    setNumberingProp(wContext, aProps, i, numbering);
                     xReplace.replaceByIndex(i, aProps);
                 }
             }
@@ -261,72 +253,6 @@ public class ConvNumbering {
         }
     }
 
-    public static String getNumberingHead(String hwpStyleName, HwpRecord_Numbering numbering, int headingLevel) {
-        
-        Integer[] curNumbers = numberingNumbersMap.get(hwpStyleName);
-        Integer prevLevel = prevNumberingLevelMap.get(hwpStyleName);
-        if (prevLevel == null) {
-            prevLevel = 0;
-        }
-        curNumbers[headingLevel] += 1;
-
-        StringBuffer sb = new StringBuffer();
-
-        // Hwp에서 수준(level)은 7개+확장3개,  LibreOffice에서 level은  10개이다.
-        if (headingLevel<7) {
-            Numbering numb = numbering.numbering[headingLevel];
-            
-            // ""
-            // "^2."
-            // "^2.^3."
-            // "^2.^3.^4"
-
-            if (numb.numFormat!=null && numb.numFormat.equals("")==false) {
-                Pattern pattern = Pattern.compile("\\^\\d+");
-                Matcher m = pattern.matcher(numb.numFormat);
-
-                int prevEnd = 0;
-                
-                while(m.find()) {
-                    int s = m.start();
-                    int e = m.end();
-
-                    int num = Integer.parseInt(numb.numFormat.substring(s+1, e));
-                    if (num <= headingLevel+1) {
-                        sb.append(numb.numFormat.subSequence(prevEnd, s));
-                        sb.append(curNumbers[num-1]);
-                    }
-                    prevEnd = e;
-                }
-                sb.append(numb.numFormat.substring(prevEnd));
-            }
-        } else {
-            //
-        }
-
-        // 현재 headingLevel값은 1증가
-        // curNumbers[headingLevel] += 1;
-
-        // 하위 headingLevel은 1로 초기화
-        for (int i=headingLevel+1; i<curNumbers.length; i++) {
-            curNumbers[i] = 0;
-        }
-        prevNumberingLevelMap.put(hwpStyleName, headingLevel);
-        
-        return sb.toString();
-    }
-
-    public static void makeCustomNumberingStyle(int id, HwpRecord_Numbering numbering) {
-        String hwpStyleName = NUMBERING_STYLE_PREFIX + id;
-        numberingStyleNameMap.put(id, hwpStyleName);
-
-        Integer[] curNumbers = new Integer[10];
-        for (int i=0; i< curNumbers.length; i++) {
-            curNumbers[i] = 0;
-        }
-        numberingNumbersMap.put(hwpStyleName, curNumbers);
-    }
-
     public static void makeCustomBulletStyle(WriterContext wContext, int id, HwpRecord_Bullet bullet) {
         try {
             XStyle xListStyle = UnoRuntime.queryInterface(XStyle.class, wContext.mMSF.createInstance("com.sun.star.style.NumberingStyle"));
@@ -338,7 +264,7 @@ public class ConvNumbering {
             if (xFamily.hasByName(hwpStyleName)==false) {
                 xFamily.insertByName (hwpStyleName, xListStyle);
             }
-            bulletStyleNameMap.put(id, hwpStyleName);
+            wContext.mSession.bulletStyleNameMap.put(id, hwpStyleName);
 
             XPropertySet xStyleProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class, xFamily.getByName(hwpStyleName));
             XIndexReplace xReplace = (XIndexReplace) UnoRuntime.queryInterface(XIndexReplace.class, xStyleProps.getPropertyValue("NumberingRules"));
@@ -520,14 +446,14 @@ public class ConvNumbering {
         }
     }
 
-    public static String getOutlineStyleName() {
-        Ctrl_SectionDef secd = ConvPage.getCurrentPage();
-        return numberingStyleNameMap.get(secd.outlineNumberingID);
+    public static String getOutlineStyleName(WriterContext wContext) {
+        Ctrl_SectionDef secd = ConvPage.getCurrentPage(wContext);
+        return wContext.mSession.numberingStyleNameMap.get(secd.outlineNumberingID);
     }
 
     public static void setNumberingStyle(WriterContext wContext, int id) {
         try {
-            String hwpStyleName = numberingStyleNameMap.get(id);
+            String hwpStyleName = wContext.mSession.numberingStyleNameMap.get(id);
 
             // Numbering level 조정
             XParagraphCursor xParaCursor = (XParagraphCursor) UnoRuntime.queryInterface(XParagraphCursor.class, wContext.mTextCursor);
@@ -542,7 +468,7 @@ public class ConvNumbering {
 
     public static void setBulletStyle(WriterContext wContext, int id) {
         try {
-            String hwpStyleName = bulletStyleNameMap.get(id);
+            String hwpStyleName = wContext.mSession.bulletStyleNameMap.get(id);
             // Numbering level 조정
             XParagraphCursor xParaCursor = (XParagraphCursor) UnoRuntime.queryInterface(XParagraphCursor.class, wContext.mTextCursor);
             XPropertySet xParaProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class, xParaCursor);
@@ -563,7 +489,9 @@ public class ConvNumbering {
 
         short cnt = 0;
         while (m.find()) {
-            log.finest("Parent Numbering. START="+m.start()+",END="+m.end());
+            if (log.isLoggable(Level.FINEST)) {
+                log.finest("Parent Numbering. START="+m.start()+",END="+m.end());
+            }
             cnt++;
         }
         return cnt;
@@ -20,10 +20,7 @@
  */
 package soffice;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Logger;
 
@@ -80,32 +77,26 @@ import HwpDoc.section.Page;
 public class ConvPage {
     private static final Logger log = Logger.getLogger(ConvPage.class.getName());
 
-    private static Map<Integer, String> pageStyleNameMap = new HashMap<Integer, String>();
-    private static Map<Integer, Ctrl_SectionDef> pageMap = new HashMap<Integer, Ctrl_SectionDef>();
-    private static List<Integer> headerDone = new ArrayList<>();    // Header 중복을 
-    private static List<Integer> footerDone = new ArrayList<>();
-    private static int customIndex = 0;
-    private static int secdIndex = 0;
     private static final String PAGE_STYLE_PREFIX = "HWP ";
 
-    public static int getSectionIndex() {
-        return secdIndex;
+    public static int getSectionIndex(WriterContext wContext) {
+        return wContext.mSession.secdIndex;
     }
 
-    public static void setSectionIndex(int index) {
-        secdIndex = index;
+    public static void setSectionIndex(WriterContext wContext, int index) {
+        wContext.mSession.secdIndex = index;
     }
 
-    public static Ctrl_SectionDef getCurrentPage() {
-        return pageMap.get(secdIndex);
+    public static Ctrl_SectionDef getCurrentPage(WriterContext wContext) {
+        return wContext.mSession.pageMap.get(wContext.mSession.secdIndex);
     }
 
     public static void reset(WriterContext wContext) {
         deleteAllCustomPageStyle(wContext);
-        headerDone.clear();
-        footerDone.clear();
-        secdIndex = 0;
-        customIndex = 0;
+        wContext.mSession.headerDone.clear();
+        wContext.mSession.footerDone.clear();
+        wContext.mSession.secdIndex = 0;
+        wContext.mSession.customIndex = 0;
     }
 
     private static void deleteAllCustomPageStyle(WriterContext wContext) {
@@ -118,10 +109,10 @@ public class ConvPage {
                 XNameContainer xFamily = (XNameContainer) UnoRuntime.queryInterface(XNameContainer.class,
                         xFamilies.getByName("PageStyles"));
 
-                for (Integer custIndex : pageStyleNameMap.keySet()) {
+                for (Integer custIndex : wContext.mSession.pageStyleNameMap.keySet()) {
                     try {
-                        if (xFamily.hasByName(pageStyleNameMap.get(custIndex))) {
-                            xFamily.removeByName(pageStyleNameMap.get(custIndex));
+                        if (xFamily.hasByName(wContext.mSession.pageStyleNameMap.get(custIndex))) {
+                            xFamily.removeByName(wContext.mSession.pageStyleNameMap.get(custIndex));
                         }
                     } catch (DisposedException e) {
                         log.severe(e.getMessage());
@@ -131,8 +122,8 @@ public class ConvPage {
                 log.severe(e.getMessage());
             }
         }
-        pageStyleNameMap.clear();
-        pageMap.clear();
+        wContext.mSession.pageStyleNameMap.clear();
+        wContext.mSession.pageMap.clear();
     }
 
     public static void adjustFontIfNotExists(WriterContext wContext) {
@@ -145,7 +136,7 @@ public class ConvPage {
 
             // 장평 조정 대상 폰트가 시스템에서 지원하는 폰트인지 알기 위해 저장
             for (int i = 0; i < fds.length; i++) {
-                WriterContext.fontNameSet.add(fds[i].Name);
+                wContext.mSession.fontNameSet.add(fds[i].Name);
             }
 
             // LibreOffice는 폰트마다 줄간격이 달라서 폰트별 줄간격 가중치를 미리 포함해 놓는다.
@@ -153,7 +144,7 @@ public class ConvPage {
             // 폰트(크기100)의 Ascent와 Descent 합이 130 이하이면 가중치 0.857. 예) 휴먼편지체
             // 폰트(크기100)의 Ascent와 Descent 합이 133 이하이면 가중치 0.764. 예) 함초롬*,한컴*
             // 폰트(크기100)의 Ascent와 Descent 합이 133 이상이면 가중치 0.752. 예) 맑은 고딕
-            List<HwpRecord_FaceName> fontnameList = WriterContext.getFontNames();
+            List<HwpRecord_FaceName> fontnameList = wContext.getFontNames();
             for (HwpRecord_FaceName fontname: fontnameList) {
                 FontDescriptor fd = new FontDescriptor();
                 fd.Name = fontname.faceName==null? fontname.substFace: fontname.faceName;
@@ -171,13 +162,13 @@ public class ConvPage {
                 } else if (fontAscDes >= 133) {
                     fontLineSpaceAlpha = 0.752;
                 }
-                WriterContext.setFontNameLineSpaceAlpha(fontname.faceName, fontLineSpaceAlpha);
+                wContext.setFontNameLineSpaceAlpha(fontname.faceName, fontLineSpaceAlpha);
             }
             
             for (int i = 0; i < wContext.getDocInfo().charShapeList.size(); i++) {
                 HwpRecord_CharShape font = (HwpRecord_CharShape) wContext.getDocInfo().charShapeList.get(i);
 
-                if (font.fontName[0]!=null && WriterContext.fontNameSet.contains(font.fontName[0])==false) {
+                if (font.fontName[0]!=null && wContext.mSession.fontNameSet.contains(font.fontName[0])==false) {
                     String replaceFontName = null;
 
                     // 한컴 전용폰트이므로, 대체폰트로 교체.
@@ -224,7 +215,7 @@ public class ConvPage {
                         replaceFontName = "나눔고딕";
                     }
                     for (int j = 0; j < font.fontName.length; j++) {
-                        if (WriterContext.fontNameSet.contains(replaceFontName)) {
+                        if (wContext.mSession.fontNameSet.contains(replaceFontName)) {
                             log.fine("Font[" + font.fontName[j] + "] does not exist. so replacing with basic Font["
                                     + replaceFontName + "]");
                             font.fontName[j] = replaceFontName;
@@ -250,7 +241,7 @@ public class ConvPage {
                     xSupplier.getStyleFamilies());
             XNameContainer xFamily = (XNameContainer) UnoRuntime.queryInterface(XNameContainer.class,
                     xFamilies.getByName("PageStyles"));
-            styleName = PAGE_STYLE_PREFIX + customIndex;
+            styleName = PAGE_STYLE_PREFIX + wContext.mSession.customIndex;
             if (xFamily.hasByName(styleName) == false) {
                 xFamily.insertByName(styleName, xPageStyle);
             }
@@ -381,9 +372,9 @@ public class ConvPage {
             e.printStackTrace();
         }
 
-        pageStyleNameMap.put(customIndex, styleName);
-        pageMap.put(customIndex, secd);
-        customIndex++;
+        wContext.mSession.pageStyleNameMap.put(wContext.mSession.customIndex, styleName);
+        wContext.mSession.pageMap.put(wContext.mSession.customIndex, secd);
+        wContext.mSession.customIndex++;
         return styleName;
     }
 
@@ -456,21 +447,13 @@ public class ConvPage {
         }
 	}
 
-	public static String makeCustomPageStyle(Ctrl_SectionDef secd) {
-        String styleName = PAGE_STYLE_PREFIX + customIndex;
-        pageStyleNameMap.put(customIndex, styleName);
-        pageMap.put(customIndex, secd);
-        customIndex++;
-        return styleName;
-    }
-
     public static void setColumn(WriterContext wContext, Ctrl_ColumnDef cold) {
         try {
             XPropertySet xCursorProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class,
                     wContext.mTextCursor);
             String currentPageStyleName = xCursorProps.getPropertyValue("PageStyleName").toString();
             if (currentPageStyleName.equals("")) {
-                currentPageStyleName = "HWP " + ConvPage.getSectionIndex();
+                currentPageStyleName = "HWP " + ConvPage.getSectionIndex(wContext);
             }
             XStyleFamiliesSupplier xSupplier = (XStyleFamiliesSupplier) UnoRuntime
                     .queryInterface(XStyleFamiliesSupplier.class, wContext.mMyDocument);
@@ -540,15 +523,17 @@ public class ConvPage {
             XNameContainer xFamily = (XNameContainer) UnoRuntime.queryInterface(XNameContainer.class,
                     xFamilies.getByName("PageStyles"));
 
-            styleName = PAGE_STYLE_PREFIX + ConvPage.getSectionIndex();
+            styleName = PAGE_STYLE_PREFIX + ConvPage.getSectionIndex(wContext);
             XPropertySet xStyleProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class,
                     xFamily.getByName(styleName));
 
-            HwpDoc.section.Page page = getCurrentPage().page;
+            HwpDoc.section.Page page = getCurrentPage(wContext).page;
             WriterContext context2 = new WriterContext();
             context2.mContext = wContext.mContext;
             context2.mDesktop = wContext.mDesktop;
             context2.mMCF = wContext.mMCF;
+            context2.mMonitor = wContext.mMonitor;
+            context2.mSession = wContext.mSession;
             context2.mMSF = wContext.mMSF;
             context2.mMyDocument = wContext.mMyDocument;
             context2.userHomeDir = wContext.userHomeDir;
@@ -578,12 +563,12 @@ public class ConvPage {
                 HwpCallback callbackOdd = new HwpCallback() {
                     @Override
                     public void onAutoNumber(Ctrl_AutoNumber autoNumber, int paraStyleID, int paraShapeID) {
-                        String paraStyleName = ConvPara.getStyleName(paraStyleID);
+                        String paraStyleName = ConvPara.getStyleName(wContext, paraStyleID);
                         HwpRecord_ParaShape paraShape = wContext.getParaShape((short) paraShapeID);
                         try {
                             XPropertySet paraProps = UnoRuntime.queryInterface(XPropertySet.class, headerCursorRight);
                             paraProps.setPropertyValue("ParaStyleName", paraStyleName);
-                            ConvPara.setParagraphProperties(paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
+                            ConvPara.setParagraphProperties(wContext, paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
                             // ConvPara.setCharacterProperties(paraProps, charShape);
                             XTextField numField;
                             XPropertySet numFieldProp;
@@ -652,12 +637,12 @@ public class ConvPage {
                 HwpCallback callbackEven = new HwpCallback() {
                     @Override
                     public void onAutoNumber(Ctrl_AutoNumber autoNumber, int paraStyleID, int paraShapeID) {
-                        String paraStyleName = ConvPara.getStyleName(paraStyleID);
+                        String paraStyleName = ConvPara.getStyleName(wContext, paraStyleID);
                         HwpRecord_ParaShape paraShape = wContext.getParaShape((short) paraShapeID);
                         try {
                             XPropertySet paraProps = UnoRuntime.queryInterface(XPropertySet.class, headerCursorLeft);
                             paraProps.setPropertyValue("ParaStyleName", paraStyleName);
-                            ConvPara.setParagraphProperties(paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
+                            ConvPara.setParagraphProperties(wContext, paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
                             // ConvPara.setCharacterProperties(paraProps, charShape);
                             XTextField numField;
                             XPropertySet numFieldProp;
@@ -717,8 +702,8 @@ public class ConvPage {
                 XText headerTextBoth = UnoRuntime.queryInterface(XText.class,
                         xStyleProps.getPropertyValue((hf.isHeader == true ? "HeaderText" : "FooterText")));
                 XTextCursor headerCursorBoth = headerTextBoth.createTextCursor();
-                if ((hf.isHeader==true && headerDone.contains(secdIndex)==false) || 
-                    (hf.isHeader==false && footerDone.contains(secdIndex)==false)) {    // Header 중복 생성 방지
+                if ((hf.isHeader==true && wContext.mSession.headerDone.contains(wContext.mSession.secdIndex)==false) || 
+                    (hf.isHeader==false && wContext.mSession.footerDone.contains(wContext.mSession.secdIndex)==false)) {    // Header 중복 생성 방지
                     headerCursorBoth.gotoEnd(false);
                     headerCursorBoth.gotoStart(true);
                     headerCursorBoth.setString("");
@@ -730,12 +715,12 @@ public class ConvPage {
                     HwpCallback callbackBoth = new HwpCallback() {
                         @Override
                         public void onAutoNumber(Ctrl_AutoNumber autoNumber, int paraStyleID, int paraShapeID) {
-                            String paraStyleName = ConvPara.getStyleName(paraStyleID);
+                            String paraStyleName = ConvPara.getStyleName(wContext, paraStyleID);
                             HwpRecord_ParaShape paraShape = wContext.getParaShape((short) paraShapeID);
                             try {
                                 XPropertySet paraProps = UnoRuntime.queryInterface(XPropertySet.class, headerCursorBoth);
                                 paraProps.setPropertyValue("ParaStyleName", paraStyleName);
-                                ConvPara.setParagraphProperties(paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
+                                ConvPara.setParagraphProperties(wContext, paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
                                 // ConvPara.setCharacterProperties(paraProps, charShape);
                                 XTextField numField;
                                 XPropertySet numFieldProp;
@@ -783,10 +768,10 @@ public class ConvPage {
                         HwpRecurs.removeLastParaBreak(context2.mTextCursor);
                     }
                     if (hf.isHeader==true) {
-                        headerDone.add(secdIndex);
+                        wContext.mSession.headerDone.add(wContext.mSession.secdIndex);
                     }
                     if (hf.isHeader==false) {
-                        footerDone.add(secdIndex);
+                        wContext.mSession.footerDone.add(wContext.mSession.secdIndex);
                     }
                 }
                 break;
@@ -804,7 +789,7 @@ public class ConvPage {
     }
 
     public static void makeNextPage(WriterContext wContext) {
-        if (secdIndex > 0) {
+        if (wContext.mSession.secdIndex > 0) {
             wContext.mText.insertControlCharacter(wContext.mTextCursor, ControlCharacter.PARAGRAPH_BREAK, false);
         }
 
@@ -828,8 +813,8 @@ public class ConvPage {
     }
 
     public static void setupPage(WriterContext wContext, Page page) {
-        String customPageStyleName = pageStyleNameMap.get(secdIndex);
-        transSection(customPageStyleName, wContext.mText, wContext.mTextCursor, (secdIndex > 0));
+        String customPageStyleName = wContext.mSession.pageStyleNameMap.get(wContext.mSession.secdIndex);
+        transSection(customPageStyleName, wContext.mText, wContext.mTextCursor, (wContext.mSession.secdIndex > 0));
     }
 
     public static void setupPageTemporary(WriterContext wContext, Page page) {
@@ -908,7 +893,7 @@ public class ConvPage {
                 = (XNameAccess) UnoRuntime.queryInterface(XNameAccess.class, xSupplier.getStyleFamilies());
             XNameContainer xFamily
                 = (XNameContainer) UnoRuntime.queryInterface(XNameContainer.class, xFamilies.getByName("PageStyles"));
-            String pageStyleName = pageStyleNameMap.get(secdIndex);
+            String pageStyleName = wContext.mSession.pageStyleNameMap.get(wContext.mSession.secdIndex);
             XStyle xStyle = UnoRuntime.queryInterface(XStyle.class, xFamily.getByName(pageStyleName));
             XPropertySet xStyleProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class, xStyle);
 
@@ -21,7 +21,9 @@
 package soffice;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.sun.star.awt.FontRelief;
@@ -37,7 +39,6 @@ import com.sun.star.style.LineSpacingMode;
 import com.sun.star.style.ParagraphAdjust;
 import com.sun.star.style.TabAlign;
 import com.sun.star.style.TabStop;
-import com.sun.star.style.XStyle;
 import com.sun.star.style.XStyleFamiliesSupplier;
 import com.sun.star.table.ShadowFormat;
 import com.sun.star.table.ShadowLocation;
@@ -47,7 +48,9 @@ import com.sun.star.text.XParagraphCursor;
 import com.sun.star.uno.Exception;
 import com.sun.star.uno.UnoRuntime;
 
+import HwpDoc.Metrics;
 import HwpDoc.HwpDocInfo.CompatDoc;
+import HwpDoc.HwpElement.HwpRecord;
 import HwpDoc.HwpElement.HwpRecord_BorderFill;
 import HwpDoc.HwpElement.HwpRecord_CharShape;
 import HwpDoc.HwpElement.HwpRecord_ParaShape;
@@ -59,9 +62,9 @@ import HwpDoc.HwpElement.HwpRecord_TabDef.Tab;
 
 public class ConvPara {
     private static final Logger log = Logger.getLogger(ConvPara.class.getName());
-    private static Map<Integer, String> paragraphStyleNameMap = new HashMap<Integer, String>();
-    private static Map<Integer, String> characterStyleNameMap = new HashMap<Integer, String>();
+    private static final Metrics.Counter unoCalls = Metrics.counter("uno.ConvPara");
     private static final String PARAGRAPH_STYLE_PREFIX = "HWP ";
+    private static final String DEFAULT_STYLE_NAME = "Standard";     // 만들지 못한 style 대신 쓴다.
 
     static final double PARA_SPACING = 0.85; // 0.75;
     
@@ -76,11 +79,14 @@ public class ConvPara {
                 XNameAccess xFamilies = (XNameAccess) UnoRuntime.queryInterface (XNameAccess.class, xSupplier.getStyleFamilies());
                 
                 XNameContainer xParagraphFamily = (XNameContainer) UnoRuntime.queryInterface(XNameContainer.class, xFamilies.getByName("ParagraphStyles"));
-                for (Integer custIndex: paragraphStyleNameMap.keySet()) {
-                    log.info("Deleting "+paragraphStyleNameMap.get(custIndex));
-                    if (xParagraphFamily.hasByName(paragraphStyleNameMap.get(custIndex))) {
+                for (Integer custIndex: wContext.mSession.paragraphStyleNameMap.keySet()) {
+                    if (DEFAULT_STYLE_NAME.equals(wContext.mSession.paragraphStyleNameMap.get(custIndex))) {
+                        continue;   // 만들지 못해 기본 style을 쓴 경우
+                    }
+                    log.info("Deleting "+wContext.mSession.paragraphStyleNameMap.get(custIndex));
+                    if (xParagraphFamily.hasByName(wContext.mSession.paragraphStyleNameMap.get(custIndex))) {
                         try {
-                            xParagraphFamily.removeByName(paragraphStyleNameMap.get(custIndex));
+                            xParagraphFamily.removeByName(wContext.mSession.paragraphStyleNameMap.get(custIndex));
                         } catch (com.sun.star.lang.DisposedException e) {
                             e.printStackTrace();
                         }
@@ -90,75 +96,108 @@ public class ConvPara {
                 e.printStackTrace();
             }
         }
-        paragraphStyleNameMap.clear();
+        wContext.mSession.paragraphStyleNameMap.clear();
     }
 
-    public static void makeCustomParagraphStyle(WriterContext wContext, int id, HwpRecord_Style hwpStyle) {
-        
-        HwpRecord_ParaShape paraShape = wContext.getParaShape(hwpStyle.paraShape);
-        HwpRecord_CharShape charShape = wContext.getCharShape(hwpStyle.charShape);
-        
+    /**
+     * 글자모양(CharShape)마다 글자 style을 만든다. 속성은 PropertyRecorder에 모았다가 style마다 setPropertyValues()로
+     * 한번에 설정하고, 속성이 같은 글자모양은 글자 style 하나를 같이 쓴다.
+     */
+    public static void makeCustomCharacterStyles(WriterContext wContext) {
+        long start = System.nanoTime();
+        StyleBatch batch = null;
         try {
-            XStyle xListStyle = UnoRuntime.queryInterface(XStyle.class, wContext.mMSF.createInstance("com.sun.star.style.ParagraphStyle"));
-            XStyleFamiliesSupplier xSupplier = (XStyleFamiliesSupplier)UnoRuntime.queryInterface(XStyleFamiliesSupplier.class, wContext.mMyDocument);
-            XNameAccess xFamilies = (XNameAccess) UnoRuntime.queryInterface (XNameAccess.class, xSupplier.getStyleFamilies());
-            XNameContainer xFamily = (XNameContainer) UnoRuntime.queryInterface(XNameContainer.class, xFamilies.getByName("ParagraphStyles"));
-            
-            String hwpStyleName = PARAGRAPH_STYLE_PREFIX +" "+id+" "+ hwpStyle.name;
-            if (xFamily.hasByName(hwpStyleName)==false) {
-                xFamily.insertByName (hwpStyleName, xListStyle);
-            }
-            paragraphStyleNameMap.put(id, hwpStyleName);
-            
-            XPropertySet xStyleProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class, xFamily.getByName(hwpStyleName));
-            
-            if (paraShape!=null) {
-                setParagraphProperties(xStyleProps, paraShape, wContext.getDocInfo().compatibleDoc, charShape.lineSpaceAlpha);
-            }
-            if (charShape!=null) {
-                HwpRecord_BorderFill borderFill = wContext.getBorderFill(charShape.borderFillIDRef);
-                setCharacterProperties(xStyleProps, charShape, borderFill, -1);
+            batch = new StyleBatch(wContext, "CharacterStyles", "com.sun.star.style.CharacterStyle");
+            List<HwpRecord> charShapeList = wContext.getDocInfo().charShapeList;
+            for (int i=0; i < charShapeList.size(); i++) {
+                // CharShape ID는 1부터 시작한다.
+                HwpRecord_CharShape charShape = (HwpRecord_CharShape)charShapeList.get(i);
+                String hwpStyleName = DEFAULT_STYLE_NAME;
+                try {
+                    PropertyRecorder props = new PropertyRecorder();
+                    if (charShape!=null) {
+                        HwpRecord_BorderFill borderFill = wContext.getBorderFill(charShape.borderFillIDRef);
+                        setCharacterProperties(wContext, props, charShape, borderFill, -1);
+                    }
+                    hwpStyleName = batch.share(PARAGRAPH_STYLE_PREFIX +" "+(i+1), props);
+                } catch (java.lang.Exception e) {
+                    // 만들지 못한 style만 건너뛰고, 기본 style을 쓰게 한다.
+                    log.severe("CharShape " + (i+1) + " style not created. " + e.getMessage());
+                    e.printStackTrace();
+                }
+                wContext.mSession.characterStyleNameMap.put(i+1, hwpStyleName);
             }
-            
+
             // NumberingRules 속성을 설정해야  Style이 변경된다. 
             XPropertySet xCursorProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class, wContext.mTextCursor);
-            xCursorProps.setPropertyValue("ParaStyleName", "Standard");
-            
+            xCursorProps.setPropertyValue("CharStyleName", "Standard");
         } catch (Exception e) {
             e.printStackTrace();
         }
+        logStyleBatch("Character styles", batch, start);
     }
-    
-    public static void makeCustomCharacterStyle(WriterContext wContext, int id, HwpRecord_CharShape charShape) {
+
+    /**
+     * 문단 style을 만든다. 이름이 화면에 보이므로 style마다 만들지만, ParaShape/CharShape가 같은 style의 속성은 한번만 계산하고
+     * style마다 setPropertyValues()로 한번에 설정한다. 탭 위치에 현재 page를 쓰므로 page style을 만든 뒤에 부른다.
+     */
+    public static void makeCustomParagraphStyles(WriterContext wContext) {
+        long start = System.nanoTime();
+        StyleBatch batch = null;
         try {
-            XStyle xListStyle = UnoRuntime.queryInterface(XStyle.class, wContext.mMSF.createInstance("com.sun.star.style.CharacterStyle"));
-            XStyleFamiliesSupplier xSupplier = (XStyleFamiliesSupplier)UnoRuntime.queryInterface(XStyleFamiliesSupplier.class, wContext.mMyDocument);
-            XNameAccess xFamilies = (XNameAccess) UnoRuntime.queryInterface (XNameAccess.class, xSupplier.getStyleFamilies());
-            XNameContainer xFamily = (XNameContainer) UnoRuntime.queryInterface(XNameContainer.class, xFamilies.getByName("CharacterStyles"));
-            
-            String hwpStyleName = PARAGRAPH_STYLE_PREFIX +" "+id;
-            if (xFamily.hasByName(hwpStyleName)==false) {
-                xFamily.insertByName (hwpStyleName, xListStyle);
-            }
-            characterStyleNameMap.put(id, hwpStyleName);
-            
-            XPropertySet xStyleProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class, xFamily.getByName(hwpStyleName));
-            
-            if (charShape!=null) {
-                HwpRecord_BorderFill borderFill = wContext.getBorderFill(charShape.borderFillIDRef);
-                setCharacterProperties(xStyleProps, charShape, borderFill, -1);
+            batch = new StyleBatch(wContext, "ParagraphStyles", "com.sun.star.style.ParagraphStyle");
+            Map<String, PropertyRecorder> propsMap = new HashMap<String, PropertyRecorder>();
+            List<HwpRecord> styleList = wContext.getDocInfo().styleList;
+            for (int i=0; i < styleList.size(); i++) {
+                HwpRecord_Style hwpStyle = (HwpRecord_Style)styleList.get(i);
+                String hwpStyleName = PARAGRAPH_STYLE_PREFIX +" "+i+" "+ hwpStyle.name;
+                try {
+                    String shapeKey = hwpStyle.paraShape + "/" + hwpStyle.charShape;
+                    PropertyRecorder props = propsMap.get(shapeKey);
+                    if (props==null) {
+                        props = new PropertyRecorder();
+                        HwpRecord_ParaShape paraShape = wContext.getParaShape(hwpStyle.paraShape);
+                        HwpRecord_CharShape charShape = wContext.getCharShape(hwpStyle.charShape);
+                        if (paraShape!=null) {
+                            setParagraphProperties(wContext, props, paraShape, wContext.getDocInfo().compatibleDoc, charShape.lineSpaceAlpha);
+                        }
+                        if (charShape!=null) {
+                            HwpRecord_BorderFill borderFill = wContext.getBorderFill(charShape.borderFillIDRef);
+                            setCharacterProperties(wContext, props, charShape, borderFill, -1);
+                        }
+                        propsMap.put(shapeKey, props);
+                    }
+                    batch.create(hwpStyleName, props);
+                } catch (java.lang.Exception e) {
+                    // 만들지 못한 style만 건너뛰고, 기본 style을 쓰게 한다.
+                    log.severe(hwpStyleName + " not created. " + e.getMessage());
+                    e.printStackTrace();
+                    hwpStyleName = DEFAULT_STYLE_NAME;
+                }
+                wContext.mSession.paragraphStyleNameMap.put(i, hwpStyleName);
             }
-            
-            // NumberingRules 속성을 설정해야  Style이 변경된다. 
+
             XPropertySet xCursorProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class, wContext.mTextCursor);
-            xCursorProps.setPropertyValue("CharStyleName", "Standard");
-            
+            xCursorProps.setPropertyValue("ParaStyleName", "Standard");
         } catch (Exception e) {
             e.printStackTrace();
         }
+        logStyleBatch("Paragraph styles", batch, start);
     }
 
-    static void setNumberingProperties(XPropertySet xStyleProps, HwpRecord_ParaShape paraShape) {
+    private static void logStyleBatch(String what, StyleBatch batch, long start) {
+        if (batch!=null) {
+            unoCalls.add(batch.unoCalls + 1);
+        }
+        if (batch!=null && log.isLoggable(Level.INFO)) {
+            // 속성을 하나씩 설정했다면 properties 만큼 UNO 호출이 더 있었다.
+            log.info(what + ": " + batch.requested + " requested, " + batch.created + " created in "
+                     + (System.nanoTime() - start) / 1000000 + "ms. UNO calls=" + (batch.unoCalls + 1)
+                     + ", properties=" + batch.properties);
+        }
+    }
+
+    static void setNumberingProperties(WriterContext wContext, XPropertySet xStyleProps, HwpRecord_ParaShape paraShape) {
         String numberingStyleName = "";
         try {
             switch(paraShape.headingType) {
@@ -167,19 +206,23 @@ public class ConvPara {
                 xStyleProps.setPropertyValue("NumberingLevel", (short) 0);
                 break;
             case OUTLINE:
-                numberingStyleName = ConvNumbering.getOutlineStyleName();
+                numberingStyleName = ConvNumbering.getOutlineStyleName(wContext);
                 xStyleProps.setPropertyValue("NumberingStyleName", numberingStyleName);
                 xStyleProps.setPropertyValue("NumberingLevel", (short) (paraShape.headingLevel));
                 break;
             case NUMBER:
-                log.finest("번호문단ID="+paraShape.headingIdRef + ",문단수준="+paraShape.headingLevel);
-                numberingStyleName = ConvNumbering.numberingStyleNameMap.get((int)paraShape.headingIdRef);
+                if (log.isLoggable(Level.FINEST)) {
+                    log.finest("번호문단ID="+paraShape.headingIdRef + ",문단수준="+paraShape.headingLevel);
+                }
+                numberingStyleName = wContext.mSession.numberingStyleNameMap.get((int)paraShape.headingIdRef);
                 xStyleProps.setPropertyValue("NumberingStyleName", numberingStyleName);
                 xStyleProps.setPropertyValue("NumberingLevel", (short) paraShape.headingLevel);
                 break;
             case BULLET:
-                log.finest("글머리표문단ID="+paraShape.headingIdRef + ",문단수준="+paraShape.headingLevel);
-                numberingStyleName = ConvNumbering.bulletStyleNameMap.get((int)paraShape.headingIdRef);
+                if (log.isLoggable(Level.FINEST)) {
+                    log.finest("글머리표문단ID="+paraShape.headingIdRef + ",문단수준="+paraShape.headingLevel);
+                }
+                numberingStyleName = wContext.mSession.bulletStyleNameMap.get((int)paraShape.headingIdRef);
                 xStyleProps.setPropertyValue("NumberingStyleName", numberingStyleName);
                 xStyleProps.setPropertyValue("NumberingLevel", (short) 0);
                 break;
@@ -197,7 +240,7 @@ public class ConvPara {
         
     }
 
-    static void setParagraphProperties(XPropertySet xStyleProps, HwpRecord_ParaShape paraShape, CompatDoc compat, double preferSpace) {
+    static void setParagraphProperties(WriterContext wContext, XPropertySet xStyleProps, HwpRecord_ParaShape paraShape, CompatDoc compat, double preferSpace) {
         try {
             ParagraphAdjust align = ParagraphAdjust.BLOCK;
             switch(paraShape.align) {
@@ -314,11 +357,13 @@ public class ConvPara {
                 lineSpacing.Height = (short)(paraShape.lineSpacing);
                 break;
             }
-            log.finest("lineSpacing="+lineSpacing.Height+"("+lineSpacing.Mode+") <= LineSpacing="+paraShape.lineSpacing + "("+paraShape.lineSpacingType+")");
+            if (log.isLoggable(Level.FINEST)) {
+                log.finest("lineSpacing="+lineSpacing.Height+"("+lineSpacing.Mode+") <= LineSpacing="+paraShape.lineSpacing + "("+paraShape.lineSpacingType+")");
+            }
             
             xStyleProps.setPropertyValue("ParaLineSpacing", lineSpacing);
             // tabDef                               // 탭 정의 아이디(TabDef ID) 참조 값
-            HwpRecord_TabDef tabDef = WriterContext.getTabDef(paraShape.tabDef);
+            HwpRecord_TabDef tabDef = wContext.getTabDef(paraShape.tabDef);
             TabStop[] tss = new TabStop[tabDef.count];
             if (tabDef.count>0) {
                 for (int i=0; i<tabDef.count; i++) {
@@ -358,8 +403,8 @@ public class ConvPara {
                 if ((tabDef.attr&0x2)==0x2) {       // 문단 오른쪽 끝 자동 탭
                     tss = new TabStop[1];
                     tss[0] = new TabStop();
-                    if (ConvPage.getCurrentPage()!=null) {
-                        HwpDoc.section.Page page = ConvPage.getCurrentPage().page;
+                    if (ConvPage.getCurrentPage(wContext)!=null) {
+                        HwpDoc.section.Page page = ConvPage.getCurrentPage(wContext).page;
                         tss[0].Position = Transform.translateHwp2Office(page.width-page.marginLeft-page.marginRight); // 150*100;
                     } else {
                         tss[0].Position = 0;
@@ -376,7 +421,7 @@ public class ConvPara {
             }
             xStyleProps.setPropertyValue("ParaTabStops", tss);
             // borderFill                           // 테두리/배경 모양 ID(BorderFill ID) 참조 값
-            HwpRecord_BorderFill borders = WriterContext.getBorderFill(paraShape.borderFill);
+            HwpRecord_BorderFill borders = wContext.getBorderFill(paraShape.borderFill);
             if (borders!=null) {
             	if (paraShape.offsetLeft >= 0 && paraShape.offsetRight >= 0
                     && paraShape.offsetTop >= 0 && paraShape.offsetBottom >= 0) {
@@ -408,7 +453,9 @@ public class ConvPara {
             if (paraShape.firstAfterTable) {
                 xStyleProps.setPropertyValue("ParaTopMargin", Transform.translateHwp2Office(paraShape.marginPrev/2) 
                                                             + Math.max(0, lineSpacing.Height-100)*10);
-                log.finest("ParaTopMargin="+ ((lineSpacing.Height-100)*10));
+                if (log.isLoggable(Level.FINEST)) {
+                    log.finest("ParaTopMargin="+ ((lineSpacing.Height-100)*10));
+                }
                 // xStyleProps.setPropertyValue("ParaContextMargin", true);
             }
             
@@ -426,7 +473,7 @@ public class ConvPara {
         }
     }
 
-    static void setDrawingParagraphProperties(XPropertySet xStyleProps, HwpRecord_ParaShape paraShape, CompatDoc compat, double preferSpace) {
+    static void setDrawingParagraphProperties(WriterContext wContext, XPropertySet xStyleProps, HwpRecord_ParaShape paraShape, CompatDoc compat, double preferSpace) {
         try {
             ParagraphAdjust align = ParagraphAdjust.BLOCK;
             switch(paraShape.align) {
@@ -508,11 +555,13 @@ public class ConvPara {
                 lineSpacing.Height = (short)(paraShape.lineSpacing);
                 break;
             }
-            log.finest("lineSpacing="+lineSpacing.Height+"("+lineSpacing.Mode+") <= LineSpacing="+paraShape.lineSpacing + "("+paraShape.lineSpacingType+")");
+            if (log.isLoggable(Level.FINEST)) {
+                log.finest("lineSpacing="+lineSpacing.Height+"("+lineSpacing.Mode+") <= LineSpacing="+paraShape.lineSpacing + "("+paraShape.lineSpacingType+")");
+            }
             
             xStyleProps.setPropertyValue("ParaLineSpacing", lineSpacing);
             // tabDef                   // 탭 정의 아이디(TabDef ID) 참조 값
-            HwpRecord_TabDef tabDef = WriterContext.getTabDef(paraShape.tabDef);
+            HwpRecord_TabDef tabDef = wContext.getTabDef(paraShape.tabDef);
             TabStop[] tss = new TabStop[tabDef.count];
             if (tabDef.count>0) {
                 for (int i=0; i<tabDef.count; i++) {
@@ -552,7 +601,7 @@ public class ConvPara {
                 if ((tabDef.attr&0x2)==0x2) {       // 문단 오른쪽 끝 자동 탭
                     tss = new TabStop[1];
                     tss[0] = new TabStop();
-                    HwpDoc.section.Page page = ConvPage.getCurrentPage().page;
+                    HwpDoc.section.Page page = ConvPage.getCurrentPage(wContext).page;
                     tss[0].Position = Transform.translateHwp2Office(page.width-page.marginLeft-page.marginRight); // 150*100;
                     tss[0].Alignment = TabAlign.RIGHT;
                     tss[0].FillChar = 32;
@@ -566,7 +615,7 @@ public class ConvPara {
             }
             xStyleProps.setPropertyValue("ParaTabStops", tss);
             // borderFill                           // 테두리/배경 모양 ID(BorderFill ID) 참조 값
-            HwpRecord_BorderFill borders = WriterContext.getBorderFill(paraShape.borderFill);
+            HwpRecord_BorderFill borders = wContext.getBorderFill(paraShape.borderFill);
             if (borders!=null) {
                 if (borders.fill!=null && borders.fill.isColorFill()==true && borders.fill.faceColor!=-1) {
                     xStyleProps.setPropertyValue("ParaBackColor", borders.fill.faceColor);
@@ -599,7 +648,7 @@ public class ConvPara {
         }
     }
 
-    static void setCharacterProperties(XPropertySet xStyleProps, HwpRecord_CharShape charShape, 
+    static void setCharacterProperties(WriterContext wContext, XPropertySet xStyleProps, HwpRecord_CharShape charShape, 
                                         HwpRecord_BorderFill borderFill, int step) {
         try {
             if (charShape.fontName[1]!=null) {
@@ -611,7 +660,7 @@ public class ConvPara {
             
             // charShape.fontID[0];                 // 언어별 글꼴ID(FaceID)         // f#
             // charShape.ratio[0];                  // 언어별 장평, 50%~200%         // r#
-            if (WriterContext.fontNameSet.contains(charShape.fontName[0])) {
+            if (wContext.mSession.fontNameSet.contains(charShape.fontName[0])) {
                 xStyleProps.setPropertyValue("CharScaleWidth", charShape.ratio[0]);
             } else {
                 // 일치하는 폰트가 리브레오피스에 없으면, 무조건 100%로 맞춘다. 100% 미만에서 폰트너비가 커지는 버그 존재
@@ -819,7 +868,9 @@ public class ConvPara {
             
             // charShape.fontID[0];                 // 언어별 글꼴ID(FaceID)         // f#
             // charShape.ratio[0];                  // 언어별 장평, 50%~200%         // r#
-            log.finest("CharWidth="+charShape.ratio[0]);
+            if (log.isLoggable(Level.FINEST)) {
+                log.finest("CharWidth="+charShape.ratio[0]);
+            }
             xStyleProps.setPropertyValue("CharScaleWidth", charShape.ratio[0]);
             // charShape.spacing[0];                // 언어별 자간, -50%~50%         // s#
             // 리브레오피스 자간거리(pt) = y ; (폰트크기(pt)*한컴자간(%) = x ; 가중치 a = 0.85 ; 절편 b = 0.5
@@ -986,7 +1037,7 @@ public class ConvPara {
             XParagraphCursor xParaCursor = (XParagraphCursor) UnoRuntime.queryInterface(XParagraphCursor.class, wContext.mTextCursor);
             xParaCursor.gotoEnd(false);
             XPropertySet xParaProps = (XPropertySet) UnoRuntime.queryInterface(XPropertySet.class, xParaCursor);
-            String styleName = getStyleName(0);
+            String styleName = getStyleName(wContext, 0);
             xParaProps.setPropertyValue ("ParaStyleName", styleName);
             xParaProps.setPropertyValue ("NumberingStyleName", "default");
             xParaProps.setPropertyValue ("NumberingLevel", (short) 0);
@@ -995,12 +1046,12 @@ public class ConvPara {
         }
     }
 
-    static String getStyleName(int styleID) {
-        return paragraphStyleNameMap.get(styleID);
+    static String getStyleName(WriterContext wContext, int styleID) {
+        return wContext.mSession.paragraphStyleNameMap.get(styleID);
     }
 
-    static String getCharStyleName(int styleID) {
-        return characterStyleNameMap.get(styleID);
+    static String getCharStyleName(WriterContext wContext, int styleID) {
+        return wContext.mSession.characterStyleNameMap.get(styleID);
     }
 
     
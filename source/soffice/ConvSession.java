@@ -0,0 +1,74 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package soffice;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import HwpDoc.HanType;
+import HwpDoc.HwpFile;
+import HwpDoc.HwpxFile;
+import HwpDoc.paragraph.Ctrl_SectionDef;
+
+/**
+ * 문서 하나를 변환하는 동안 쓰는 상태 (열린 문서, 만든 style 이름, 자동번호 등).
+ * 표, 글상자 등에서 만드는 하위 WriterContext도 같은 session을 공유하고,
+ * 서로 다른 문서는 서로 다른 session을 쓰므로 한 JVM에서 여러 문서를 동시에 변환할 수 있다.
+ * session 하나는 한 thread에서만 사용한다.
+ */
+public class ConvSession {
+    // 변환 중인 문서
+    HanType hType;
+    HwpFile hwp;
+    HwpxFile hwpx;
+    public int version;                 // LibreOffice version (ConvUtil.getVersion)
+    Set<String> fontNameSet = new HashSet<String>();
+
+    // ConvPara
+    Map<Integer, String> paragraphStyleNameMap = new HashMap<Integer, String>();
+    Map<Integer, String> characterStyleNameMap = new HashMap<Integer, String>();
+
+    // ConvNumbering
+    Map<Integer, String> numberingStyleNameMap = new HashMap<Integer, String>();
+    Map<Integer, String> bulletStyleNameMap = new HashMap<Integer, String>();
+
+    // ConvPage
+    Map<Integer, String> pageStyleNameMap = new HashMap<Integer, String>();
+    Map<Integer, Ctrl_SectionDef> pageMap = new HashMap<Integer, Ctrl_SectionDef>();
+    List<Integer> headerDone = new ArrayList<>();    // Header 중복을 막기 위해 이미 만든 section index
+    List<Integer> footerDone = new ArrayList<>();
+    int customIndex = 0;
+    int secdIndex = 0;
+
+    // HwpRecurs
+    short oldParaShapeID;
+    short oldCharShapeID;
+
+    // 자동번호
+    int equationAutoNum = 0;
+    int graphicsAutoNum = 0;
+    int tableAutoNum = 0;
+    int footnoteIndex = 0;
+}
@@ -23,6 +23,7 @@ package soffice;
 import java.io.IOException;
 import java.util.*;
 import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -30,6 +31,7 @@ import java.util.stream.IntStream;
 import com.sun.star.uno.*;
 import com.sun.star.uno.Exception;
 
+import HwpDoc.Metrics;
 import HwpDoc.HwpElement.HwpRecord_BorderFill;
 import HwpDoc.HwpElement.HwpRecord_CharShape;
 import HwpDoc.HwpElement.HwpRecord_ParaShape;
@@ -66,11 +68,11 @@ import com.sun.star.text.*;
 
 public class ConvTable {
     private static final Logger log = Logger.getLogger(ConvTable.class.getName());
-
-    private static int autoNum = 0;
+    private static final Metrics.Counter tables = Metrics.counter("emit.tables");
+    private static final Metrics.Counter unoCalls = Metrics.counter("uno.ConvTable");
 
     public static void reset(WriterContext wContext) {
-        autoNum = 0;
+        wContext.mSession.tableAutoNum = 0;
     }
 
     public static void endParagraph(XTextCursor cursor) {
@@ -85,20 +87,23 @@ public class ConvTable {
     public static void append(XTextCursor cursor, String text) {
         cursor.setString(text);
         cursor.gotoEnd(false);
+        unoCalls.add(2);
     }
 
     public static void append(XTextCursor cursor, short ctrlChar) {
         XText xText = cursor.getText();
         xText.insertControlCharacter(cursor, ctrlChar, false);
+        unoCalls.add(2);
     }
 
     public static void insertTable(WriterContext wContext, Ctrl_Table table, short paraShapeID, HwpCallback callback,
             int step) {
+        tables.increment();
         // 테이블 그리기 전, 문단모양 설정한다. 문단에 Frame을 넣기때문에 문단 margin에 맞게 여백이 들어가야 한다.
         HwpRecord_ParaShape paraShape = wContext.getParaShape((short) paraShapeID);
         XParagraphCursor paraCursor = UnoRuntime.queryInterface(XParagraphCursor.class, wContext.mTextCursor);
         XPropertySet paraProps = UnoRuntime.queryInterface(XPropertySet.class, paraCursor);
-        ConvPara.setParagraphProperties(paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
+        ConvPara.setParagraphProperties(wContext, paraProps, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
         
         XTextFrame xFrame = null;
         XText xFrameText = null;
@@ -134,7 +139,7 @@ public class ConvTable {
                 xFrameText = xFrame.getText();
                 xFrameCursor = xFrameText.createTextCursor();
                 xFrameText.insertTextContent(xFrameCursor, xTextTable, false);
-                if (wContext.version >= 72) {
+                if (wContext.mSession.version >= 72) {
                     XPropertySet frameProps = UnoRuntime.queryInterface(XPropertySet.class, xFrame);
                     TextContentAnchorType anchorType = (TextContentAnchorType) frameProps.getPropertyValue("AnchorType");
                     if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
@@ -145,7 +150,7 @@ public class ConvTable {
                 step += 1;
             } else {
                 wContext.mText.insertTextContent(wContext.mTextCursor, xTextTable, false);
-                if (wContext.version >= 72) {
+                if (wContext.mSession.version >= 72) {
                     TextContentAnchorType anchorType = (TextContentAnchorType) tableProps.getPropertyValue("AnchorType");
 
                     // 한컴에서 AS_CHAR 가 아니면 PARA_BREAK가 추가되어 있을것임, libreoffice에서는 ANCHOR를 붙일수 없으니 마지막
@@ -157,13 +162,13 @@ public class ConvTable {
                     }
                 }
                 // 캡션이 표시될 문단의 오른쪽 spacing을 임의로 조정
-                HwpDoc.section.Page page = ConvPage.getCurrentPage().page;
+                HwpDoc.section.Page page = ConvPage.getCurrentPage(wContext).page;
                 int rightSpace = page.width - page.marginLeft - page.marginRight - paraShape.marginLeft - table.width;
                 addCaptionString(wContext, wContext.mText, wContext.mTextCursor, table, 0, rightSpace, step);
                 if (callback != null && callback.onTableWithFrame() == TableFrame.MADE) {
 
                 } else {
-                    setParaPosition(tableProps, table, paraShape);
+                    setParaPosition(wContext, tableProps, table, paraShape);
                 }
                 if (table.treatAsChar) {
                     tableProps.setPropertyValue("Split", false);
@@ -177,7 +182,7 @@ public class ConvTable {
             }
 
             
-            HwpRecord_BorderFill tableBorderFill = WriterContext.getBorderFill(table.borderFillID);
+            HwpRecord_BorderFill tableBorderFill = wContext.getBorderFill(table.borderFillID);
             if (tableBorderFill != null) {
                 TableBorder tBorder = new TableBorder();
                 tBorder.LeftLine = Transform.toBorderLine(tableBorderFill.left);
@@ -254,6 +259,7 @@ public class ConvTable {
             
             // merge cell and fill text.
             for (int row = 0; row < cellArray.length; row++) {
+                wContext.mMonitor.checkCancelled();
                 for (int col = cellArray[row].length - 1; col >= 0; col--) {
                     TblCell cell = cellArray[row][col];
                     String cellAddr = mkCellNameBeforeMerge(cellArray, col, row, row - 1);
@@ -279,24 +285,34 @@ public class ConvTable {
                     if (cell.colSpan > 1 || cell.rowSpan > 1) {
                         try {
                             // 한가지 방식으로 통일하면 좋겠으나 extension에서 동작하지 않아 각각 방식을 달리한다.
-                            log.finest("CELL ADDR=" + cellAddr + " out of (" + cell.colAddr + ", " + cell.rowAddr
-                                    + ") spans (" + cell.colSpan + "," + cell.rowSpan + ")");
+                            if (log.isLoggable(Level.FINEST)) {
+                                log.finest("CELL ADDR=" + cellAddr + " out of (" + cell.colAddr + ", " + cell.rowAddr
+                                        + ") spans (" + cell.colSpan + "," + cell.rowSpan + ")");
+                            }
                             XTextTableCursor xCellCursor = xTextTable.createCursorByCellName(cellAddr);
                             // column merge는 goRight() 후 mergeRange(). gotoCellByName()은 extension에서 동작 안함.
                             if (cell.colSpan > 1) {
                             	boolean ret = xCellCursor.goRight((short) (cell.colSpan - 1), true);
-                                log.finest("GoRight(" + (cell.colSpan - 1) + ") return=" + ret);
+                                if (log.isLoggable(Level.FINEST)) {
+                                    log.finest("GoRight(" + (cell.colSpan - 1) + ") return=" + ret);
+                                }
                                 ret = xCellCursor.mergeRange();
-                                log.finest("Merge=" + ret);
+                                if (log.isLoggable(Level.FINEST)) {
+                                    log.finest("Merge=" + ret);
+                                }
                             }
                             // row merge는 gotoCellByName() 후 mergeRange(). goRight()은 extension에서 동작 안함.
                             if (cell.rowSpan > 1) {
                                 String cellAddr2 = mkCellNameBeforeMerge(cellArray, cell.colAddr + cell.colSpan - 1,
                                         cell.rowAddr + cell.rowSpan - 1, row - 1);
                                 boolean ret = xCellCursor.gotoCellByName(cellAddr2, true);
-                                log.finest("GotoCell(" + cellAddr2 + ") return=" + ret);
+                                if (log.isLoggable(Level.FINEST)) {
+                                    log.finest("GotoCell(" + cellAddr2 + ") return=" + ret);
+                                }
                                 ret = xCellCursor.mergeRange();
-                                log.finest("Merge=" + ret);
+                                if (log.isLoggable(Level.FINEST)) {
+                                    log.finest("Merge=" + ret);
+                                }
                             }
                         } catch (com.sun.star.uno.RuntimeException e1) {
                             e1.printStackTrace();
@@ -307,7 +323,7 @@ public class ConvTable {
                         // 셀을 병합한 후에 Border를 그린다.
                         if (xCell != null) {
                             XPropertySet cellProps = UnoRuntime.queryInterface(XPropertySet.class, xCell);
-                            HwpRecord_BorderFill cellBorderFill = WriterContext.getBorderFill(cell.borderFill);
+                            HwpRecord_BorderFill cellBorderFill = wContext.getBorderFill(cell.borderFill);
                             if (cellBorderFill != null) {
                                 cellProps.setPropertyValue("LeftBorder", Transform.toBorderLine(cellBorderFill.left));
                                 cellProps.setPropertyValue("RightBorder", Transform.toBorderLine(cellBorderFill.right));
@@ -372,7 +388,7 @@ public class ConvTable {
                 new Size(Transform.translateHwp2Office(table.width), Transform.translateHwp2Office(table.height)));
         XPropertySet frameProps = UnoRuntime.queryInterface(XPropertySet.class, xFrame);
 
-        setFramePosition(frameProps, table);
+        setFramePosition(wContext, frameProps, table);
         setFrameWrapStyle(frameProps, table);
 
         BorderLine2 frameBorder = new BorderLine2();
@@ -396,7 +412,7 @@ public class ConvTable {
 
         XText xText = wContext.mTextCursor.getText();
         xText.insertTextContent(wContext.mTextCursor, xFrame, false);
-        if (wContext.version >= 72) {
+        if (wContext.mSession.version >= 72) {
             TextContentAnchorType anchorType = (TextContentAnchorType) frameProps.getPropertyValue("AnchorType");
             if (anchorType == TextContentAnchorType.AT_PARAGRAPH) {
                 xText.insertString(wContext.mTextCursor, " ", false);
@@ -416,11 +432,11 @@ public class ConvTable {
         return xFrame;
     }
 
-    private static void setParaPosition(XPropertySet xProps, Ctrl_Table shape, HwpRecord_ParaShape paraShape) {
+    private static void setParaPosition(WriterContext wContext, XPropertySet xProps, Ctrl_Table shape, HwpRecord_ParaShape paraShape) {
         int posX = 0;
         int posY = 0;
 
-        HwpDoc.section.Page page = ConvPage.getCurrentPage().page;
+        HwpDoc.section.Page page = ConvPage.getCurrentPage(wContext).page;
         if (shape.treatAsChar == true) {
             posX = Transform.translateHwp2Office(shape.horzOffset) - Transform.translateHwp2Office(page.marginLeft);
             posX = Math.max(posX, 0);
@@ -625,7 +641,7 @@ public class ConvTable {
         }
     }
 
-    private static void setFramePosition(XPropertySet xProps, Ctrl_Table table) {
+    private static void setFramePosition(WriterContext wContext, XPropertySet xProps, Ctrl_Table table) {
         int posX = 0;
         int posY = 0;
 
@@ -639,7 +655,7 @@ public class ConvTable {
                 xProps.setPropertyValue("HoriOrient", HoriOrientation.CENTER); // 0:NONE=From left
                 xProps.setPropertyValue("HoriOrientRelation", RelOrientation.PRINT_AREA); // 1:paragraph text area
             } else {
-                HwpDoc.section.Page page = ConvPage.getCurrentPage().page;
+                HwpDoc.section.Page page = ConvPage.getCurrentPage(wContext).page;
 
                 switch (table.vertRelTo) {
                 case PAPER: // Anchor to Page
@@ -1045,7 +1061,7 @@ public class ConvTable {
         HwpCallback callback = new HwpCallback() {
             @Override
             public void onAutoNumber(Ctrl_AutoNumber autoNumber, int paraStyleID, int paraShapeID) {
-                capStr.add(Integer.toString(++autoNum));
+                capStr.add(Integer.toString(++wContext.mSession.tableAutoNum));
             };
 
             @Override
@@ -1075,15 +1091,15 @@ public class ConvTable {
                 }
             }
 
-            String styleName = ConvPara.getStyleName((int) table.caption.get(0).paraStyleID);
+            String styleName = ConvPara.getStyleName(wContext, (int) table.caption.get(0).paraStyleID);
             HwpRecord_ParaShape captionParaShape = wContext.getParaShape(table.caption.get(0).paraShapeID);
             HwpRecord_CharShape captionCharShape = wContext.getCharShape(charShapeID[0]);
 
             try {
                 paraProps.setPropertyValue("ParaStyleName", styleName);
-                ConvPara.setParagraphProperties(paraProps, captionParaShape, wContext.getDocInfo().compatibleDoc, captionCharShape.lineSpaceAlpha);
+                ConvPara.setParagraphProperties(wContext, paraProps, captionParaShape, wContext.getDocInfo().compatibleDoc, captionCharShape.lineSpaceAlpha);
                 HwpRecord_BorderFill borderFill = wContext.getBorderFill(captionCharShape.borderFillIDRef);
-                ConvPara.setCharacterProperties(paraProps, captionCharShape, borderFill, step);
+                ConvPara.setCharacterProperties(wContext, paraProps, captionCharShape, borderFill, step);
                 paraProps.setPropertyValue("ParaTopMargin", Transform.translateHwp2Office(table.captionSpacing));
                 paraProps.setPropertyValue("ParaBottomMargin", Transform.translateHwp2Office(table.captionSpacing));
                 paraProps.setPropertyValue("ParaLeftMargin", Transform.translateHwp2Office(leftSpacing));
@@ -1146,6 +1162,8 @@ public class ConvTable {
         childContext.mContext = wContext.mContext;
         childContext.mDesktop = wContext.mDesktop;
         childContext.mMCF = wContext.mMCF;
+        childContext.mMonitor = wContext.mMonitor;
+        childContext.mSession = wContext.mSession;
         childContext.mMSF = wContext.mMSF;
         childContext.mMyDocument = wContext.mMyDocument;
         childContext.userHomeDir = wContext.userHomeDir;
@@ -1159,8 +1177,10 @@ public class ConvTable {
             boolean isLastPara = (paraIndex == cell.paras.size() - 1) ? true : false;
             HwpParagraph para = cell.paras.get(paraIndex);
 
-            String styleName = ConvPara.getStyleName((int) para.paraStyleID);
-            log.finer("StyleID=" + para.paraStyleID + ", StyleName=" + styleName);
+            String styleName = ConvPara.getStyleName(wContext, (int) para.paraStyleID);
+            if (log.isLoggable(Level.FINER)) {
+                log.finer("StyleID=" + para.paraStyleID + ", StyleName=" + styleName);
+            }
             if (styleName == null || styleName.isEmpty()) {
                 log.fine("Style Name is empty");
             }
@@ -1203,7 +1223,7 @@ public class ConvTable {
 
                 @Override
                 public boolean onText(String content, int charShapeId, int charPos, boolean append) {
-                    String styleNameTemp = ConvPara.getStyleName((int) para.paraStyleID);
+                    String styleNameTemp = ConvPara.getStyleName(wContext, (int) para.paraStyleID);
                     HwpRecord_Style paraStyleTemp = wContext.getParaStyle(para.paraStyleID);
                     HwpRecord_ParaShape paraShape = wContext.getParaShape(para.paraShapeID);
                     HwpRecord_ParaShape paraShapeTemp = null;
@@ -1274,7 +1294,9 @@ public class ConvTable {
                 } else {
                     // all null 칼럼이라면,
                     for (int row = 0; row < newCellArray.length; row++) {
-                        log.finest("Removing null column. originalCol=" + oldCol + ", row=" + row);
+                        if (log.isLoggable(Level.FINEST)) {
+                            log.finest("Removing null column. originalCol=" + oldCol + ", row=" + row);
+                        }
                         if (newCol > 0) {
                             int nRow = row, nNewCol = newCol;
                             Optional<Integer> lastColOp = Arrays.stream(newCellArray[row]).filter(c -> c != null)
@@ -1405,9 +1427,11 @@ public class ConvTable {
         int[] colWidth = new int[nWidth];
 
         // print
-        for (int row = 0; row < cellArray.length; row++) {
-            log.finest("CELLS [" + row + "]=" + Arrays.stream(cellArray[row])
-                    .map(cell -> cell == null ? "" : String.valueOf(cell.width)).collect(Collectors.joining(",")));
+        if (log.isLoggable(Level.FINEST)) {
+            for (int row = 0; row < cellArray.length; row++) {
+                log.finest("CELLS [" + row + "]=" + Arrays.stream(cellArray[row])
+                        .map(cell -> cell == null ? "" : String.valueOf(cell.width)).collect(Collectors.joining(",")));
+            }
         }
 
         // span loop
@@ -1481,9 +1505,11 @@ public class ConvTable {
         			             .mapToInt(c -> c.height).min().orElse(0); 
         }
         // print
-        for (int row = 0; row < cellArray.length; row++) {
-            log.finest("CELLS [" + row + "]=" + Arrays.stream(cellArray[row])
-                    .map(cell -> cell == null ? "" : String.valueOf(cell.height)).collect(Collectors.joining(",")));
+        if (log.isLoggable(Level.FINEST)) {
+            for (int row = 0; row < cellArray.length; row++) {
+                log.finest("CELLS [" + row + "]=" + Arrays.stream(cellArray[row])
+                        .map(cell -> cell == null ? "" : String.valueOf(cell.height)).collect(Collectors.joining(",")));
+            }
         }
 
         // span loop
@@ -25,13 +25,9 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.time.Duration;
-import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.Base64;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.logging.Logger;
 
 import com.sun.star.awt.XBitmap;
@@ -427,50 +423,6 @@ public class ConvUtil {
         }
     }
     
-    public static class DebuggingElapse {
-        private static Map<String, LocalTime> localTimeMap = new HashMap<String, LocalTime>();
-        private static Map<String, Long> resultMap = new HashMap<String, Long>();
-        
-        private static boolean enabled = true;
-
-        static void setStart() {
-            setStart("temp");
-        }
-        static void setFinish() {
-            setFinish("temp");
-        }
-        static long getElapseTime() {
-            return getElapseTime("temp");
-        }
-        
-        public static void setStart(String timerName) {
-            localTimeMap.put(timerName, LocalTime.now());
-        }
-        
-        public static void setFinish(String timerName) {
-            if (enabled) {
-                LocalTime start = localTimeMap.get(timerName);
-                localTimeMap.remove(timerName);
-                if (start!=null) {
-                    LocalTime finish = LocalTime.now();
-                    resultMap.put(timerName, Duration.between(start, finish).toMillis());
-                }
-            } else {
-                resultMap.put(timerName, 0L);
-            }
-        }
-        
-        public static long getElapseTime(String timerName) {
-            if (enabled) {
-                Long elapsed = resultMap.get(timerName);
-                resultMap.remove(timerName);
-                return elapsed==null?0:elapsed;
-            } else { 
-                return 0;
-            }
-        }
-    }
-    
     /* get Version of LibreOffice
      * 
      */
@@ -21,6 +21,7 @@
 package soffice;
 
 import java.util.ListIterator;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -31,6 +32,7 @@ import com.sun.star.text.XTextCursor;
 import com.sun.star.text.XTextRange;
 import com.sun.star.uno.UnoRuntime;
 
+import HwpDoc.Metrics;
 import HwpDoc.HwpElement.HwpRecord_BorderFill;
 import HwpDoc.HwpElement.HwpRecord_CharShape;
 import HwpDoc.HwpElement.HwpRecord_ParaShape;
@@ -58,15 +60,21 @@ import HwpDoc.paragraph.LineSeg;
 
 public class HwpRecurs {
     private static final Logger log = Logger.getLogger(HwpRecurs.class.getName());
-    private static short oldParaShapeID;
-    private static short oldCharShapeID;
+    private static final Metrics.Counter paragraphs = Metrics.counter("emit.paragraphs");
+    private static final Metrics.Counter unoCalls = Metrics.counter("uno.HwpRecurs");
+    // 본문(step<=1)에서 부른 변환에 걸린 시간. 안에서 부르는 UNO 호출을 모두 포함한다.
+    private static final Metrics.Histogram tableTime = Metrics.histogram("conv.ConvTable", "ns");
+    private static final Metrics.Histogram graphicTime = Metrics.histogram("conv.ConvGraphics", "ns");
+    private static final Metrics.Histogram equationTime = Metrics.histogram("conv.ConvEquation", "ns");
     private static final String PATTERN_STRING = "[\\u0000\\u000a\\u000d\\u0018-\\u001f]|[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017].{6}[\\u0001\\u0002-\\u0009\\u000b-\\u000c\\u000e-\\u0017]";
 
     // 컨트롤에 쓰기는 wContext로, 페이지에 쓰기는 parentWriterContext로 (각주,미주)
     public static void printParaRecurs(WriterContext wContext, WriterContext parentWriterContext, HwpParagraph para, HwpCallback callback, int step) {
+        wContext.mMonitor.checkCancelled();
+        paragraphs.increment();
 
         // PARA_BREAK 후 return 되기 전에  default로 만들 필요 있음. 그래서 가장 먼저 한다.
-        if (step<=1 && oldParaShapeID!=para.paraShapeID) {
+        if (step<=1 && wContext.mSession.oldParaShapeID!=para.paraShapeID) {
             ConvPara.setDefaultParaStyle(wContext);
         }
 
@@ -86,7 +94,7 @@ public class HwpRecurs {
 
         if (para.p==null) {
             if (callback==null || callback.onParaBreak()==false) {
-                beforeParaBreak(wContext, para.paraShapeID, oldCharShapeID, false, step);
+                beforeParaBreak(wContext, para.paraShapeID, wContext.mSession.oldCharShapeID, false, step);
                 wContext.mText.insertControlCharacter(wContext.mTextCursor, ControlCharacter.PARAGRAPH_BREAK, false);
             }
             return;
@@ -136,8 +144,8 @@ public class HwpRecurs {
                                          append, 
                                          callback==null?false:callback.firstParaAfterTable,
                                          step);
-                        oldParaShapeID = para.paraShapeID;
-                        oldCharShapeID = (short) charShapeId;
+                        wContext.mSession.oldParaShapeID = para.paraShapeID;
+                        wContext.mSession.oldCharShapeID = (short) charShapeId;
                     }
                     append = true;
                 }
@@ -239,14 +247,16 @@ public class HwpRecurs {
                                     cellIndex += table.rowSize[row];
                                     rowHeightSum += Transform.translateHwp2Office(table.cells.get(cellIndex-1).height);
                                 }
-                                Page currPage = ConvPage.getCurrentPage().page;
+                                Page currPage = ConvPage.getCurrentPage(wContext).page;
                                 pageHeight = Transform.translateHwp2Office(currPage.height)
                                             - Transform.translateHwp2Office(currPage.marginTop)
                                             - Transform.translateHwp2Office(currPage.marginBottom)
                                             - Transform.translateHwp2Office(currPage.marginHeader)
                                             - Transform.translateHwp2Office(currPage.marginFooter);
-                                log.finest("curr Page=[top:" + currPage.marginTop + ",height:"+ currPage.height + ",bottom:" + currPage.marginBottom + "]");
-                                log.finest("Table acutual height=" + rowHeightSum + ", Page height=" + pageHeight);
+                                if (log.isLoggable(Level.FINEST)) {
+                                    log.finest("curr Page=[top:" + currPage.marginTop + ",height:"+ currPage.height + ",bottom:" + currPage.marginBottom + "]");
+                                    log.finest("Table acutual height=" + rowHeightSum + ", Page height=" + pageHeight);
+                                }
                             }
                             if (rowHeightSum==0 || rowHeightSum<pageHeight) {
                                 log.finest("make OuterFrame to show table");
@@ -267,7 +277,11 @@ public class HwpRecurs {
                     	// table 다음 PARA_BREAK 1개를 생략한다.
                         oweParaBreak = true;
                     }
+                    long tableStart = tableTime.start();
                     ConvTable.insertTable(wContext, (Ctrl_Table) ctrl, para.paraShapeID, callback, step+1);
+                    if (step<=1) {
+                        tableTime.stop(tableStart);
+                    }
                     if (callback!=null) {
                         callback.tableFrame = oldFrame;	// 원래 TableFrame 속성으로 복원
                     }
@@ -300,10 +314,18 @@ public class HwpRecurs {
             case "ruc$":    // 곡선
             case "div$":    // 비디오
             case "tat$":    // 글맵시
+                long graphicStart = graphicTime.start();
                 ConvGraphics.insertGraphic(wContext, (Ctrl_GeneralShape)ctrl, para.paraShapeID, step);
+                if (step<=1) {
+                    graphicTime.stop(graphicStart);
+                }
                 break;
             case "deqe":    // 한글97 수식
+                long equationStart = equationTime.start();
                 ConvEquation.addFormula(wContext, (Ctrl_EqEdit)ctrl, step);
+                if (step<=1) {
+                    equationTime.stop(equationStart);
+                }
                 break;
             case "cot%":    // FIELD_TABLEOFCONTENT
             case "klc%":    // FIELD_CLICKHERE
@@ -380,20 +402,20 @@ public class HwpRecurs {
                 if (append==false) {    // Paragraph의 첫content이면, Property 설정한다. 
                     if (ignoreNumbering==false) {
                         if (paraShape!=null) {
-                            ConvPara.setNumberingProperties(paraProps, paraShape);
+                            ConvPara.setNumberingProperties(wContext, paraProps, paraShape);
                         }
                     }
                 }
 
                 if (paraShape!=null) {
-                    ConvPara.setParagraphProperties(paraProps, paraShape, wContext.getDocInfo().compatibleDoc, charShape.lineSpaceAlpha);
+                    ConvPara.setParagraphProperties(wContext, paraProps, paraShape, wContext.getDocInfo().compatibleDoc, charShape.lineSpaceAlpha);
                 } else {
                     ConvPara.setMinimumParagraphProperties(paraProps);
                 }
 
                 if (charShape!=null) {
                     HwpRecord_BorderFill borderFill = wContext.getBorderFill(charShape.borderFillIDRef);
-                    ConvPara.setCharacterProperties(paraProps, charShape, borderFill, step);
+                    ConvPara.setCharacterProperties(wContext, paraProps, charShape, borderFill, step);
                 }
 
             } catch (Exception e) {
@@ -409,7 +431,7 @@ public class HwpRecurs {
         HwpRecord_ParaShape paraShape = wContext.getParaShape(paraShapeID);
         paraShape.firstAfterTable = firstParaAfterTable;
         HwpRecord_CharShape charShape = wContext.getCharShape(charShapeID);
-        String paraStyleName = ConvPara.getStyleName((int)styleID);
+        String paraStyleName = ConvPara.getStyleName(wContext, (int)styleID);
         
         insertParaString(wContext, content, lineSeg, paraStyleName, paraStyle, paraShape, charShape, append, false, step);
     }
@@ -431,22 +453,22 @@ public class HwpRecurs {
 
                     if (ignoreNumbering==false) {
                         if (paraShape!=null) {
-                            ConvPara.setNumberingProperties(paraProps, paraShape);
+                            ConvPara.setNumberingProperties(wContext, paraProps, paraShape);
                         } else if (paraStyle!=null) {
                             // para.paraStyle.paraShape 와 para.paraShape 일치할때.
                             HwpRecord_ParaShape numberingShape = wContext.getParaShape(paraStyle.paraShape);
-                            ConvPara.setNumberingProperties(paraProps, numberingShape);
+                            ConvPara.setNumberingProperties(wContext, paraProps, numberingShape);
                         }
                     }
                 }
 
                 if (paraShape!=null) {
-                    ConvPara.setParagraphProperties(paraProps, paraShape, wContext.getDocInfo().compatibleDoc, charShape.lineSpaceAlpha);
+                    ConvPara.setParagraphProperties(wContext, paraProps, paraShape, wContext.getDocInfo().compatibleDoc, charShape.lineSpaceAlpha);
                 }
 
                 if (charShape!=null) {
                     HwpRecord_BorderFill borderFill = wContext.getBorderFill(charShape.borderFillIDRef);
-                    ConvPara.setCharacterProperties(paraProps, charShape, borderFill, step);
+                    ConvPara.setCharacterProperties(wContext, paraProps, charShape, borderFill, step);
                 }
                 
             } catch (Exception e) {
@@ -454,8 +476,11 @@ public class HwpRecurs {
             }
         }
 
-        log.finest("Text=" + content);
+        if (log.isLoggable(Level.FINEST)) {
+            log.finest("Text=" + content);
+        }
         wContext.mText.insertString(wContext.mTextCursor, content, false);
+        unoCalls.increment();
     }
 
     public static void insertDrawingString(WriterContext wContext, String content,  
@@ -464,7 +489,7 @@ public class HwpRecurs {
         HwpRecord_Style paraStyle = wContext.getParaStyle(styleID);
         HwpRecord_ParaShape paraShape = wContext.getParaShape(paraShapeID);
         HwpRecord_CharShape charShape = wContext.getCharShape(charShapeID);
-        String paraStyleName = ConvPara.getStyleName((int)styleID);
+        String paraStyleName = ConvPara.getStyleName(wContext, (int)styleID);
 
         insertDrawingString(wContext, content, paraStyleName, paraStyle, paraShape, charShape, append, false, step);
     }
@@ -480,7 +505,7 @@ public class HwpRecurs {
         
         try {
             if (paraShape!=null) {
-                ConvPara.setDrawingParagraphProperties(xTextPropSet, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
+                ConvPara.setDrawingParagraphProperties(wContext, xTextPropSet, paraShape, wContext.getDocInfo().compatibleDoc, ConvPara.PARA_SPACING);
             }
 
             if (charShape!=null) {
@@ -491,7 +516,10 @@ public class HwpRecurs {
             e.printStackTrace();
         }
 
-        log.finest("Text=" + content);
+        if (log.isLoggable(Level.FINEST)) {
+            log.finest("Text=" + content);
+        }
         wContext.mText.insertString(wContext.mTextCursor, content, false);
+        unoCalls.increment();
     }
 }
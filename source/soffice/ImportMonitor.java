@@ -0,0 +1,98 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package soffice;
+
+import com.sun.star.task.XStatusIndicator;
+
+/**
+ * 변환 중단 요청과 진행상황을 관리한다. 표, 글상자 등에서 만드는 하위 WriterContext도 같은 monitor를 공유한다.
+ * cancel()은 다른 thread에서 불릴 수 있다.
+ */
+public class ImportMonitor {
+    private volatile boolean cancelled;
+    private XStatusIndicator statusIndicator;
+    private int range;
+    private int value;
+    private int reported = -1;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 중단 요청이 있으면 ImportCancelledException을 던진다. 문단, 표, 그림 단위로 부른다.
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new ImportCancelledException();
+        }
+    }
+
+    /**
+     * 새로운 변환을 시작한다. statusIndicator는 MediaDescriptor의 StatusIndicator (없으면 null)
+     */
+    public void reset(XStatusIndicator statusIndicator) {
+        this.cancelled = false;
+        this.statusIndicator = statusIndicator;
+        this.range = 0;
+        this.value = 0;
+        this.reported = -1;
+    }
+
+    /**
+     * reset() 뒤에 StatusIndicator를 정한다. 중단 요청은 그대로 둔다.
+     */
+    public void setStatusIndicator(XStatusIndicator statusIndicator) {
+        this.statusIndicator = statusIndicator;
+    }
+
+    public void start(String text, int range) {
+        this.range = Math.max(range, 1);
+        this.value = 0;
+        this.reported = -1;
+        if (statusIndicator != null) {
+            statusIndicator.start(text, 100);
+        }
+    }
+
+    /**
+     * 진행상황을 n 만큼 더한다. StatusIndicator에는 1% 단위로 바뀔때만 알린다.
+     */
+    public void advance(int n) {
+        value = Math.min(value + n, range);
+        int percent = (int)((long)value * 100 / range);
+        if (statusIndicator != null && percent != reported) {
+            reported = percent;
+            statusIndicator.setValue(percent);
+        }
+    }
+
+    public void end() {
+        if (statusIndicator != null) {
+            statusIndicator.end();
+            statusIndicator = null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package soffice;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.sun.star.beans.XMultiPropertySet;
+import com.sun.star.beans.XPropertyChangeListener;
+import com.sun.star.beans.XPropertySet;
+import com.sun.star.beans.XPropertySetInfo;
+import com.sun.star.beans.XVetoableChangeListener;
+import com.sun.star.uno.UnoRuntime;
+
+/**
+ * setPropertyValue()로 넘어온 속성을 UNO 호출 없이 모아 두었다가, applyTo()에서 setPropertyValues()로 한번에 설정한다.
+ * 같은 속성을 여러 번 설정하면 마지막 값만 남는다. ConvPara.setCharacterProperties() 등에 XPropertySet 대신 넘긴다.
+ */
+class PropertyRecorder implements XPropertySet {
+    private static final Logger log = Logger.getLogger(PropertyRecorder.class.getName());
+
+    private final Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+    @Override
+    public void setPropertyValue(String name, Object value) {
+        values.put(name, value);
+    }
+
+    @Override
+    public Object getPropertyValue(String name) {
+        return values.get(name);
+    }
+
+    @Override
+    public XPropertySetInfo getPropertySetInfo() {
+        return null;
+    }
+
+    @Override
+    public void addPropertyChangeListener(String name, XPropertyChangeListener listener) {
+    }
+
+    @Override
+    public void removePropertyChangeListener(String name, XPropertyChangeListener listener) {
+    }
+
+    @Override
+    public void addVetoableChangeListener(String name, XVetoableChangeListener listener) {
+    }
+
+    @Override
+    public void removeVetoableChangeListener(String name, XVetoableChangeListener listener) {
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * 모아둔 속성을 target에 설정한다. setPropertyValues()가 실패하면 하나씩 설정한다.
+     * @return UNO 호출 횟수
+     */
+    public int applyTo(XPropertySet target) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        XMultiPropertySet xMulti = UnoRuntime.queryInterface(XMultiPropertySet.class, target);
+        if (xMulti != null) {
+            try {
+                xMulti.setPropertyValues(values.keySet().toArray(new String[0]), values.values().toArray());
+                return 1;
+            } catch (java.lang.Exception e) {
+                log.fine("setPropertyValues failed. setting one by one: " + e.getMessage());
+            }
+        }
+
+        int calls = xMulti != null ? 1 : 0;
+        for (Map.Entry<String, Object> entry: values.entrySet()) {
+            try {
+                calls++;
+                target.setPropertyValue(entry.getKey(), entry.getValue());
+            } catch (java.lang.Exception e) {
+                log.fine(entry.getKey() + " not set: " + e.getMessage());
+            }
+        }
+        return calls;
+    }
+
+    /**
+     * 속성 이름과 값으로 만든 문자열. 같은 문자열이면 같은 속성을 설정한다.
+     */
+    public String key() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Object> entry: values.entrySet()) {
+            sb.append(entry.getKey()).append('=');
+            appendValue(sb, entry.getValue());
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    private static void appendValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value.getClass().isArray()) {
+            sb.append('[');
+            for (int i = 0; i < Array.getLength(value); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendValue(sb, Array.get(value, i));
+            }
+            sb.append(']');
+        } else if (value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            sb.append(value.getClass().getSimpleName()).append(':').append(value);
+        } else if (value instanceof com.sun.star.uno.Enum) {
+            sb.append(value.getClass().getName()).append(':').append(((com.sun.star.uno.Enum)value).getValue());
+        } else {
+            // UNO struct는 public field 값으로 비교한다. 비교할 수 없으면 공유하지 않는다.
+            sb.append(value.getClass().getName()).append('{');
+            int count = 0;
+            try {
+                for (Field field: value.getClass().getFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    sb.append(field.getName()).append('=');
+                    appendValue(sb, field.get(value));
+                    sb.append(',');
+                    count++;
+                }
+            } catch (IllegalAccessException e) {
+                count = 0;
+            }
+            if (count == 0) {
+                sb.append('@').append(System.identityHashCode(value));
+            }
+            sb.append('}');
+        }
+    }
+}
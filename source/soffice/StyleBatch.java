@@ -0,0 +1,94 @@
+/* Copyright (C) 2023 ebandal
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>
+ */
+/* 본 제품은 한글과컴퓨터의 ᄒᆞᆫ글 문서 파일(.hwp) 공개 문서를 참고하여 개발하였습니다.
+ * 개방형 워드프로세서 마크업 언어(OWPML) 문서 구조 KS X 6101:2018 문서를 참고하였습니다.
+ * 작성자 : 반희수 ebandal@gmail.com  
+ * 작성일 : 2022.10
+ */
+package soffice;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.star.beans.XPropertySet;
+import com.sun.star.container.XNameAccess;
+import com.sun.star.container.XNameContainer;
+import com.sun.star.style.XStyle;
+import com.sun.star.style.XStyleFamiliesSupplier;
+import com.sun.star.uno.Exception;
+import com.sun.star.uno.UnoRuntime;
+
+/**
+ * 한 style family(ParagraphStyles, CharacterStyles)에 style을 여러 개 만든다.
+ * family는 한번만 찾고, 속성은 PropertyRecorder에 모아서 style마다 한번에 설정한다.
+ * share()는 속성이 같은 style을 하나만 만들어 같이 쓰게 한다.
+ */
+class StyleBatch {
+    private final WriterContext wContext;
+    private final String serviceName;
+    private final XNameContainer xFamily;
+    private final Map<String, String> sharedStyles = new HashMap<String, String>();    // 속성 key -> style 이름
+
+    int unoCalls;       // bridge를 건너는 호출 수
+    int properties;     // 설정한 속성 수 (하나씩 설정했다면 그만큼 UNO 호출)
+    int requested;
+    int created;
+
+    StyleBatch(WriterContext wContext, String familyName, String serviceName) throws Exception {
+        this.wContext = wContext;
+        this.serviceName = serviceName;
+        XStyleFamiliesSupplier xSupplier = UnoRuntime.queryInterface(XStyleFamiliesSupplier.class, wContext.mMyDocument);
+        XNameAccess xFamilies = UnoRuntime.queryInterface(XNameAccess.class, xSupplier.getStyleFamilies());
+        xFamily = UnoRuntime.queryInterface(XNameContainer.class, xFamilies.getByName(familyName));
+        unoCalls += 2;
+    }
+
+    /**
+     * styleName으로 style을 만들고(이미 있으면 그대로 쓰고) props를 설정한다.
+     */
+    void create(String styleName, PropertyRecorder props) throws Exception {
+        requested++;
+        XPropertySet xStyleProps;
+        unoCalls++;
+        if (xFamily.hasByName(styleName)) {
+            unoCalls++;
+            xStyleProps = UnoRuntime.queryInterface(XPropertySet.class, xFamily.getByName(styleName));
+        } else {
+            XStyle xStyle = UnoRuntime.queryInterface(XStyle.class, wContext.mMSF.createInstance(serviceName));
+            xFamily.insertByName(styleName, xStyle);
+            unoCalls += 2;
+            xStyleProps = UnoRuntime.queryInterface(XPropertySet.class, xStyle);
+        }
+        created++;
+        properties += props.size();
+        unoCalls += props.applyTo(xStyleProps);
+    }
+
+    /**
+     * 같은 속성으로 만든 style이 있으면 그 이름을, 없으면 styleName으로 만들어 돌려준다.
+     */
+    String share(String styleName, PropertyRecorder props) throws Exception {
+        String key = props.key();
+        String sharedName = sharedStyles.get(key);
+        if (sharedName != null) {
+            requested++;
+            return sharedName;
+        }
+        create(styleName, props);
+        sharedStyles.put(key, styleName);
+        return styleName;
+    }
+}
@@ -22,12 +22,12 @@ package soffice;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.zip.DataFormatException;
@@ -45,9 +45,9 @@ import com.sun.star.text.XTextDocument;
 import com.sun.star.uno.XComponentContext;
 
 import HwpDoc.HanType;
+import HwpDoc.HancomDetector;
 import HwpDoc.HwpDetectException;
 import HwpDoc.HwpDocInfo;
-import HwpDoc.HwpFile;
 import HwpDoc.HwpSection;
 import HwpDoc.HwpxFile;
 import HwpDoc.IContext;
@@ -66,17 +66,10 @@ import HwpDoc.HwpElement.HwpRecord_Numbering;
 import HwpDoc.HwpElement.HwpRecord_ParaShape;
 import HwpDoc.HwpElement.HwpRecord_Style;
 import HwpDoc.HwpElement.HwpRecord_TabDef;
-import HwpDoc.HwpElement.HwpRecord_BinData.Type;
 
 public class WriterContext implements IContext {
     private static final Logger log = Logger.getLogger(WriterContext.class.getName());
 
-    private static HanType hType;
-    public static HwpFile hwp = null;
-    public static HwpxFile hwpx = null;
-    public static int version;
-    public static Set<String> fontNameSet = new HashSet<String>();
-
     public XDesktop mDesktop = null;
     public XComponentContext mContext = null;
     public XMultiComponentFactory mMCF = null;
@@ -85,18 +78,20 @@ public class WriterContext implements IContext {
     public XText mText = null;
     public XTextCursor mTextCursor = null;
     public Path userHomeDir = null;
+    public ImportMonitor mMonitor = new ImportMonitor();
+    public ConvSession mSession = new ConvSession();    // 하위 context는 상위 context의 session을 공유한다.
 
     public WriterContext() {
     }
 
     public List<HwpSection> getSections() throws HwpDetectException {
         List<HwpSection> sections = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            sections = hwp.getSections();
+            sections = mSession.hwp.getSections();
             break;
         case HWPX:
-            sections = hwpx.getSections();
+            sections = mSession.hwpx.getSections();
             break;
         case NONE:
             throw new HwpDetectException();
@@ -105,26 +100,32 @@ public class WriterContext implements IContext {
     }
 
     public static String detectHancom(File file) {
+        // signature로 형식을 정한 뒤 그 형식으로만 detect한다. detect한 파일은 open()에서 다시 사용한다.
+        return toTypeString(HancomDetector.detect(file));
+    }
+
+    /**
+     * 메모리에 읽어둔 문서를 detect한다. open(ByteBuffer, String)에는 같은 ByteBuffer를 넘겨야 한다.
+     */
+    public static String detectHancom(ByteBuffer data) {
+        return toTypeString(HancomDetector.detect(data));
+    }
+
+    private static String toTypeString(HanType type) {
         String detectingType = null;
 
-        try {
-            HwpxFile hwpxTemp = new HwpxFile(file);
-            hwpxTemp.detect();
+        switch (type) {
+        case HWP:
+            detectingType = "HWP";
+            log.info("file detected as HWP");
+            break;
+        case HWPX:
             detectingType = "HWPX";
-            hwpxTemp.close();
             log.info("file detected as HWPX");
-        } catch (IOException | HwpDetectException e1) {
-            log.info("file detected not HWPX");
-
-            try {
-                HwpFile hwpTemp = new HwpFile(file);
-                hwpTemp.detect();
-                detectingType = "HWP";
-                hwpTemp.close();
-                log.info("file detected as HWP");
-            } catch (IOException | HwpDetectException e2) {
-                log.info("file detected neither HWPX nor HWP");
-            }
+            break;
+        case NONE:
+            log.info("file detected neither HWPX nor HWP");
+            break;
         }
 
         return detectingType;
@@ -132,12 +133,12 @@ public class WriterContext implements IContext {
 
     public void detect() throws HwpDetectException, CompoundDetectException, NotImplementedException, IOException,
                                 CompoundParseException, ParserConfigurationException, SAXException, DataFormatException {
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            hwp.detect();
+            mSession.hwp.detect();
             break;
         case HWPX:
-            hwpx.detect();
+            mSession.hwpx.detect();
             break;
         case NONE:
             throw new HwpDetectException();
@@ -150,14 +151,38 @@ public class WriterContext implements IContext {
                                                                 SAXException, OwpmlParseException {
         switch (hanTypeStr) {
         case "HWP":
-            hType = HanType.HWP;
-            hwp = new HwpFile(inputFile);
-            hwp.open();
+            mSession.hType = HanType.HWP;
+            mSession.hwp = HancomDetector.takeHwp(new File(inputFile));
+            mSession.hwp.setCancelCheck(mMonitor::checkCancelled);
+            mSession.hwp.open();
             break;
         case "HWPX":
-            hType = HanType.HWPX;
-            hwpx = new HwpxFile(inputFile);
-            hwpx.open(this);
+            mSession.hType = HanType.HWPX;
+            mSession.hwpx = HancomDetector.takeHwpx(new File(inputFile));
+            mSession.hwpx.setCancelCheck(mMonitor::checkCancelled);
+            mSession.hwpx.open(this);
+            break;
+        default:
+            throw new HwpDetectException();
+        }
+    }
+
+    public void open(ByteBuffer data, String hanTypeStr) throws HwpDetectException, CompoundDetectException,
+                                                                 IOException, DataFormatException, HwpParseException, 
+                                                                 NotImplementedException, CompoundParseException, ParserConfigurationException,
+                                                                 SAXException, OwpmlParseException {
+        switch (hanTypeStr) {
+        case "HWP":
+            mSession.hType = HanType.HWP;
+            mSession.hwp = HancomDetector.takeHwp(data);
+            mSession.hwp.setCancelCheck(mMonitor::checkCancelled);
+            mSession.hwp.open();
+            break;
+        case "HWPX":
+            mSession.hType = HanType.HWPX;
+            mSession.hwpx = HancomDetector.takeHwpx(data);
+            mSession.hwpx.setCancelCheck(mMonitor::checkCancelled);
+            mSession.hwpx.open(this);
             break;
         default:
             throw new HwpDetectException();
@@ -170,57 +195,72 @@ public class WriterContext implements IContext {
                                                                  SAXException, OwpmlParseException {
         switch (hanTypeStr) {
         case "HWP":
-            hType = HanType.HWP;
-            hwp = new HwpFile(inputFile);
-            hwp.open();
+            mSession.hType = HanType.HWP;
+            mSession.hwp = HancomDetector.takeHwp(inputFile);
+            mSession.hwp.setCancelCheck(mMonitor::checkCancelled);
+            mSession.hwp.open();
             break;
         case "HWPX":
-            hType = HanType.HWPX;
-            hwpx = new HwpxFile(inputFile);
-            hwpx.open(this);
+            mSession.hType = HanType.HWPX;
+            mSession.hwpx = HancomDetector.takeHwpx(inputFile);
+            mSession.hwpx.setCancelCheck(mMonitor::checkCancelled);
+            mSession.hwpx.open(this);
             break;
         default:
             throw new HwpDetectException();
         }
     }
 
+    /**
+     * 열었던 HwpFile/HwpxFile을 닫고 놓는다. 파일(과 Windows의 파일 잠금), BinData 캐시가 여기서 풀린다.
+     */
     public void close() throws IOException, HwpDetectException {
-        if (hType != null) {
-            switch (hType) {
-            case HWP:
-                hwp.close();
-                break;
-            case HWPX:
-                hwpx.close();
-                break;
-            case NONE:
-                throw new HwpDetectException();
+        try {
+            if (mSession.hType != null) {
+                switch (mSession.hType) {
+                case HWP:
+                    if (mSession.hwp != null) {
+                        mSession.hwp.close();
+                    }
+                    break;
+                case HWPX:
+                    if (mSession.hwpx != null) {
+                        mSession.hwpx.close();
+                    }
+                    break;
+                case NONE:
+                    throw new HwpDetectException();
+                }
             }
+        } finally {
+            mSession.hwp = null;
+            mSession.hwpx = null;
+            mSession.hType = null;
+            mSession.fontNameSet.clear();
         }
-        fontNameSet.clear();
     }
 
     public HwpDocInfo getDocInfo() {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
         return docInfo;
     }
 
-    public static HwpRecord_BorderFill getBorderFill(short id) {
+    public HwpRecord_BorderFill getBorderFill(short id) {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
 
@@ -229,12 +269,12 @@ public class WriterContext implements IContext {
 
     public HwpRecord_ParaShape getParaShape(int id) {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
         if (id >= 0 && id < docInfo.paraShapeList.size()) {
@@ -246,12 +286,12 @@ public class WriterContext implements IContext {
 
     public HwpRecord_Style getParaStyle(short id) {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
 
@@ -260,12 +300,12 @@ public class WriterContext implements IContext {
 
     public HwpRecord_CharShape getCharShape(int id) {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
         if (id >= 0 && id < docInfo.charShapeList.size()) {
@@ -277,12 +317,12 @@ public class WriterContext implements IContext {
 
     public HwpRecord_Numbering getNumbering(short id) {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
 
@@ -291,12 +331,12 @@ public class WriterContext implements IContext {
 
     public HwpRecord_Bullet getBullet(short id) {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
 
@@ -307,15 +347,15 @@ public class WriterContext implements IContext {
         HwpRecord_BinData binData = null;
         String retString = "";
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             ArrayList<String> keyList = new ArrayList<String>(docInfo.binDataList.keySet());
             String key = keyList.get(Integer.parseInt(id));
             binData = (HwpRecord_BinData) docInfo.binDataList.get(key);
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             binData = (HwpRecord_BinData) docInfo.binDataList.get(id);
             break;
         }
@@ -323,7 +363,7 @@ public class WriterContext implements IContext {
         retString = binData.aPath;
         /*
          * String compoundFileName = String.format("BIN%04X.%s", binData.binDataID,
-         * binData.format); try { retString = hwp.saveChildEntry(getWorkingFolder(),
+         * binData.format); try { retString = mSession.hwp.saveChildEntry(getWorkingFolder(),
          * compoundFileName, binData.compressed); } catch (IOException e) {
          * e.printStackTrace(); }
          */
@@ -332,63 +372,122 @@ public class WriterContext implements IContext {
 
     public byte[] getBinBytes(String id) {
         byte[] imageBytes = null;
+        HwpRecord_BinData binData = findBinData(id);
+        if (binData == null) {
+            return null;
+        }
+        switch (mSession.hType) {
+        case HWP:
+            try {
+                imageBytes = mSession.hwp.getBinData(binData);
+            } catch (IOException | DataFormatException e) {
+                e.printStackTrace();
+            }
+            break;
+        case HWPX:
+            try {
+                String binShortName = binData.aPath.replaceAll("BinData/(.*)\\..*", "$1");
+                imageBytes = mSession.hwpx.getBinDataByIDRef(binShortName);
+            } catch (IOException | DataFormatException e) {
+                e.printStackTrace();
+            }
+            break;
+        }
+
+        return imageBytes;
+    }
+
+    /**
+     * 그림 내용을 stream으로 돌려준다. 이미 읽은 그림은 캐시된 내용을 사용하고, 아니면 파일에서 바로 읽는다.
+     * BinData가 없거나 비어 있으면 null
+     */
+    public InputStream getBinStream(String id) {
+        InputStream imageStream = null;
+        HwpRecord_BinData binData = findBinData(id);
+        if (binData == null) {
+            return null;
+        }
+        switch (mSession.hType) {
+        case HWP:
+            try {
+                imageStream = mSession.hwp.getBinDataStream(binData);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            break;
+        case HWPX:
+            try {
+                String binShortName = binData.aPath.replaceAll("BinData/(.*)\\..*", "$1");
+                imageStream = mSession.hwpx.getBinDataStreamByIDRef(binShortName);
+            } catch (IOException | DataFormatException e) {
+                e.printStackTrace();
+            }
+            break;
+        }
+
+        return nonEmpty(imageStream);
+    }
+
+    /**
+     * 첫 byte를 읽어 보고 비어 있으면 닫고 null을 돌려준다.
+     */
+    private static InputStream nonEmpty(InputStream is) {
+        if (is == null) {
+            return null;
+        }
+        PushbackInputStream pis = new PushbackInputStream(is, 1);
+        try {
+            int first = pis.read();
+            if (first < 0) {
+                pis.close();
+                return null;
+            }
+            pis.unread(first);
+            return pis;
+        } catch (IOException e) {
+            e.printStackTrace();
+            try {
+                pis.close();
+            } catch (IOException e1) {
+                e1.printStackTrace();
+            }
+            return null;
+        }
+    }
+
+    private HwpRecord_BinData findBinData(String id) {
+        HwpRecord_BinData binData = null;
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP: {
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             ArrayList<String> keyList = new ArrayList<String>(docInfo.binDataList.keySet());
             String key = keyList.get(Integer.parseInt(id));
-            HwpRecord_BinData binData = (HwpRecord_BinData) docInfo.binDataList.get(key);
-            if (binData != null) {
-                if (binData.type == Type.LINK) {
-                    File file = new File(binData.aPath);
-                    try {
-                        imageBytes = Files.readAllBytes(file.toPath());
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                } else {
-                    String compoundFileName = String.format("BIN%04X.%s", binData.binDataID, binData.format);
-                    try {
-                        imageBytes = hwp.getChildBytes(compoundFileName, binData.compressed);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
+            binData = (HwpRecord_BinData) docInfo.binDataList.get(key);
         }
             break;
         case HWPX: {
-            docInfo = hwpx.getDocInfo();
-            HwpRecord_BinData binData = (HwpRecord_BinData) docInfo.binDataList.get(id);
-            if (binData != null) {
-                try {
-                    String binShortName = binData.aPath.replaceAll("BinData/(.*)\\..*", "$1");
-                    imageBytes = hwpx.getBinDataByIDRef(binShortName);
-                } catch (IOException | DataFormatException e) {
-                    e.printStackTrace();
-                }
-            }
+            docInfo = mSession.hwpx.getDocInfo();
+            binData = (HwpRecord_BinData) docInfo.binDataList.get(id);
         }
             break;
         }
-
-        return imageBytes;
+        return binData;
     }
 
     public String getBinFormat(String id) {
         HwpRecord_BinData binData = null;
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP: {
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             ArrayList<String> keyList = new ArrayList<String>(docInfo.binDataList.keySet());
             String key = keyList.get(Integer.parseInt(id));
             binData = (HwpRecord_BinData) docInfo.binDataList.get(key);
         }
             break;
         case HWPX: {
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             binData = (HwpRecord_BinData) docInfo.binDataList.get(id);
         }
             break;
@@ -397,40 +496,40 @@ public class WriterContext implements IContext {
         return binData==null ? null : binData.format;
     }
 
-    public static HwpRecord_TabDef getTabDef(short id) {
+    public HwpRecord_TabDef getTabDef(short id) {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
         return (HwpRecord_TabDef) docInfo.tabDefList.get(id);
     }
     
-    public static List<HwpRecord_FaceName> getFontNames() {
+    public List<HwpRecord_FaceName> getFontNames() {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
         return docInfo.faceNameList.stream().map(r -> (HwpRecord_FaceName)r).collect(Collectors.toList());
     }
 
-    public static void setFontNameLineSpaceAlpha(String faceName, double fontLineSpaceAlpha) {
+    public void setFontNameLineSpaceAlpha(String faceName, double fontLineSpaceAlpha) {
         HwpDocInfo docInfo = null;
-        switch (hType) {
+        switch (mSession.hType) {
         case HWP:
-            docInfo = hwp.getDocInfo();
+            docInfo = mSession.hwp.getDocInfo();
             break;
         case HWPX:
-            docInfo = hwpx.getDocInfo();
+            docInfo = mSession.hwpx.getDocInfo();
             break;
         }
         docInfo.setFontNameLineSpaceAlpha(faceName, fontLineSpaceAlpha);
@@ -438,7 +537,7 @@ public class WriterContext implements IContext {
     
     @Override
     public HwpxFile getHwpx() {
-    	return hwpx;
+    	return mSession.hwpx;
     }
 
 }